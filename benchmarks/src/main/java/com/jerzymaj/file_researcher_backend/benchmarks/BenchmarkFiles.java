@@ -0,0 +1,130 @@
+package com.jerzymaj.file_researcher_backend.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates the staged files the ZIP benchmarks compress. Content is derived from a fixed seed,
+ * so every fork and every run compresses exactly the same bytes.
+ */
+public final class BenchmarkFiles {
+
+    private static final long SEED = 42L;
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final String[] WORDS = {
+            "INFO", "WARN", "DEBUG", "request", "user", "file", "archive", "sent", "processing", "completed",
+            "fileSet", "zip", "upload", "recipient", "status", "2026-01-15", "12:00:00.000", "thread-1", "id=", "ms"
+    };
+
+    private BenchmarkFiles() {
+    }
+
+    /**
+     * Shape of the staged upload: how many files and how large each one is.
+     */
+    public enum FileMix {
+        MANY_TINY(2_000, 4 * 1024),
+        FEW_HUGE(4, 32 * 1024 * 1024);
+
+        private final int fileCount;
+        private final int fileSize;
+
+        FileMix(int fileCount, int fileSize) {
+            this.fileCount = fileCount;
+            this.fileSize = fileSize;
+        }
+
+        public long totalBytes() {
+            return (long) fileCount * fileSize;
+        }
+    }
+
+    /**
+     * Kind of content: log-like text that DEFLATE shrinks well, or random bytes that stand in
+     * for already compressed media (JPEG, MP4) and do not shrink at all.
+     */
+    public enum Content {
+        TEXT,
+        MEDIA
+    }
+
+    /**
+     * Writes the files of the given mix into a fresh temporary directory, spread across subdirectories
+     * as a real upload would be.
+     *
+     * @param fileMix Number and size of the files.
+     * @param content Kind of content to write.
+     * @return The created directory.
+     * @throws IOException If the files cannot be written.
+     */
+
+    public static Path generate(FileMix fileMix, Content content) throws IOException {
+        Path sourceDir = Files.createTempDirectory("zip-bench-");
+        Random random = new Random(SEED);
+
+        for (int index = 0; index < fileMix.fileCount; index++) {
+            Path dir = sourceDir.resolve("dir-" + (index % 20));
+            Files.createDirectories(dir);
+            Path file = dir.resolve("file-" + index + (content == Content.TEXT ? ".log" : ".jpg"));
+
+            try (OutputStream outputStream = Files.newOutputStream(file)) {
+                write(outputStream, fileMix.fileSize, content, random);
+            }
+        }
+
+        return sourceDir;
+    }
+
+    public static List<Path> listFiles(Path sourceDir) throws IOException {
+        try (Stream<Path> paths = Files.walk(sourceDir)) {
+            return paths.filter(Files::isRegularFile).sorted().toList();
+        }
+    }
+
+    public static void delete(Path path) throws IOException {
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path entry : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(entry);
+            }
+        }
+    }
+
+    private static void write(OutputStream outputStream, int size, Content content, Random random) throws IOException {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int remaining = size;
+
+        while (remaining > 0) {
+            int length = Math.min(remaining, CHUNK_SIZE);
+            if (content == Content.TEXT) {
+                fillWithText(chunk, length, random);
+            } else {
+                random.nextBytes(chunk);
+            }
+            outputStream.write(chunk, 0, length);
+            remaining -= length;
+        }
+    }
+
+    private static void fillWithText(byte[] chunk, int length, Random random) {
+        StringBuilder text = new StringBuilder(length + 32);
+
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)])
+                    .append(random.nextInt(10) == 0 ? '\n' : ' ');
+        }
+
+        byte[] bytes = text.toString().getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, chunk, 0, length);
+    }
+}
@@ -0,0 +1,142 @@
+package com.jerzymaj.file_researcher_backend.benchmarks;
+
+import com.jerzymaj.file_researcher_backend.DTOs.FileSetDTO;
+import com.jerzymaj.file_researcher_backend.DTOs.ZipArchiveDTO;
+import com.jerzymaj.file_researcher_backend.mapper.EntityMapper;
+import com.jerzymaj.file_researcher_backend.models.FileEntry;
+import com.jerzymaj.file_researcher_backend.models.FileSet;
+import com.jerzymaj.file_researcher_backend.models.SentHistory;
+import com.jerzymaj.file_researcher_backend.models.User;
+import com.jerzymaj.file_researcher_backend.models.ZipArchive;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.DeliveryMode;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.FileSetStatus;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.SendStatus;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ZipArchiveStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link EntityMapper} conversions the listing endpoints run on detached entity graphs, built in memory
+ * without Hibernate. {@code entries} is the number of child entities in the graph.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class EntityMapperBenchmark {
+
+    private static final int FILES_PER_LISTED_SET = 100;
+
+    @Param({"1000", "10000", "100000"})
+    private int entries;
+
+    private FileSet fileSet;
+    private ZipArchive zipArchive;
+    private List<FileSet> fileSetListing;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        User user = User.builder()
+                .id(1L)
+                .name("benchmark")
+                .email("benchmark@example.com")
+                .creationDate(LocalDateTime.now())
+                .build();
+
+        fileSet = fileSet(1L, user, entries);
+        zipArchive = zipArchive(fileSet, user, entries);
+
+        fileSetListing = new ArrayList<>();
+        for (int index = 0; index < Math.max(1, entries / FILES_PER_LISTED_SET); index++) {
+            fileSetListing.add(fileSet(index + 2L, user, FILES_PER_LISTED_SET));
+        }
+    }
+
+    @Benchmark
+    public FileSetDTO convertFileSetToDTO() {
+        return EntityMapper.convertFileSetToDTO(fileSet);
+    }
+
+    @Benchmark
+    public ZipArchiveDTO convertZipArchiveToDTO() {
+        return EntityMapper.convertZipArchiveToDTO(zipArchive);
+    }
+
+    @Benchmark
+    public List<FileSetDTO> convertFileSetListing() {
+        return fileSetListing.stream()
+                .map(EntityMapper::convertFileSetToDTO)
+                .toList();
+    }
+
+    private static FileSet fileSet(Long id, User user, int fileCount) {
+        List<FileEntry> files = new ArrayList<>(fileCount);
+        for (int index = 0; index < fileCount; index++) {
+            files.add(FileEntry.builder()
+                    .id((long) index)
+                    .name("file-" + index + ".txt")
+                    .path("upload/dir-" + (index % 100) + "/file-" + index + ".txt")
+                    .size(1024L + index)
+                    .extension(".txt")
+                    .build());
+        }
+
+        return FileSet.builder()
+                .id(id)
+                .name("set-" + id)
+                .description("Benchmark file set")
+                .recipientEmail("recipient@example.com")
+                .status(FileSetStatus.ACTIVE)
+                .creationDate(LocalDateTime.now())
+                .user(user)
+                .files(files)
+                .build();
+    }
+
+    private static ZipArchive zipArchive(FileSet fileSet, User user, int historyCount) {
+        ZipArchive zipArchive = ZipArchive.builder()
+                .id(1L)
+                .archiveName("set-1.zip")
+                .archivePath("/tmp/set-1.zip")
+                .size(10_000_000L)
+                .creationDate(LocalDateTime.now())
+                .status(ZipArchiveStatus.SUCCESS)
+                .deliveryMode(DeliveryMode.ATTACHMENT)
+                .recipientEmail("recipient@example.com")
+                .fileSet(fileSet)
+                .user(user)
+                .build();
+
+        List<SentHistory> sentHistoryList = new ArrayList<>(historyCount);
+        for (int index = 0; index < historyCount; index++) {
+            sentHistoryList.add(SentHistory.builder()
+                    .id((long) index)
+                    .zipArchive(zipArchive)
+                    .sendAttemptDate(LocalDateTime.now())
+                    .status(index % 10 == 0 ? SendStatus.FAILURE : SendStatus.SUCCESS)
+                    .errorMessage(index % 10 == 0 ? "Error: recipient could not be reached" : null)
+                    .sentToEmail("recipient-" + index + "@example.com")
+                    .build());
+        }
+        zipArchive.setSentHistoryList(sentHistoryList);
+
+        return zipArchive;
+    }
+}
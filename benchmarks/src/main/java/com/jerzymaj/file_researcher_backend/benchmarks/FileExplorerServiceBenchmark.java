@@ -0,0 +1,57 @@
+package com.jerzymaj.file_researcher_backend.benchmarks;
+
+import com.jerzymaj.file_researcher_backend.DTOs.ScanPathResponseDTO;
+import com.jerzymaj.file_researcher_backend.benchmarks.PathSets.Shape;
+import com.jerzymaj.file_researcher_backend.services.FileExplorerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how building the explorer tree through {@link FileExplorerService#scanUploadedFiles} scales with the number
+ * and shape of the uploaded paths.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class FileExplorerServiceBenchmark {
+
+    @Param({"DEEP", "WIDE", "UNICODE"})
+    private Shape shape;
+
+    @Param({"1000", "10000", "100000", "500000"})
+    private int entries;
+
+    private final FileExplorerService fileExplorerService = new FileExplorerService();
+    private MultipartFile[] files;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        files = PathSets.generate(shape, entries);
+    }
+
+    @Benchmark
+    public ScanPathResponseDTO scanUploadedFiles() {
+        return fileExplorerService.scanUploadedFiles(files, null);
+    }
+
+    @Benchmark
+    public ScanPathResponseDTO scanUploadedFilesWithExtensionFilter() {
+        return fileExplorerService.scanUploadedFiles(files, ".txt");
+    }
+}
@@ -0,0 +1,61 @@
+package com.jerzymaj.file_researcher_backend.benchmarks;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.InputStream;
+
+/**
+ * An uploaded file that carries only the metadata the explorer reads: its original path and its size.
+ * Keeps the benchmarks free of request parsing and of file content.
+ */
+public final class PathOnlyMultipartFile implements MultipartFile {
+
+    private final String originalFilename;
+    private final long size;
+
+    public PathOnlyMultipartFile(String originalFilename, long size) {
+        this.originalFilename = originalFilename;
+        this.size = size;
+    }
+
+    @Override
+    public String getName() {
+        return "files";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/octet-stream";
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() {
+        throw new UnsupportedOperationException("Benchmark files carry no content");
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        throw new UnsupportedOperationException("Benchmark files carry no content");
+    }
+
+    @Override
+    public void transferTo(File dest) {
+        throw new UnsupportedOperationException("Benchmark files carry no content");
+    }
+}
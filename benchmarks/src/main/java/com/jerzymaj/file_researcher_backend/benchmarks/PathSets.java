@@ -0,0 +1,72 @@
+package com.jerzymaj.file_researcher_backend.benchmarks;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Generates synthetic directory uploads, as a browser sends them: one file per entry,
+ * named by its relative path.
+ */
+public final class PathSets {
+
+    private static final int DEEP_LEVELS = 12;
+    private static final int WIDE_DIRECTORIES = 1024;
+    private static final int UNICODE_LEVELS = 4;
+    private static final String[] UNICODE_NAMES = {
+            "Zdjęcia", "Документы", "文件夹", "Ñandú", "📁 archiwum", "Résumé", "ファイル", "Ελληνικά"
+    };
+
+    private PathSets() {
+    }
+
+    /**
+     * Shape of the uploaded directory tree.
+     */
+    public enum Shape {
+        /**
+         * Twelve directory levels with a fan-out of four: long paths, small directories.
+         */
+        DEEP,
+        /**
+         * A single level of 1024 sibling directories: short paths, long sibling lists.
+         */
+        WIDE,
+        /**
+         * Four levels with a fan-out of eight, named in several scripts including emoji: multi-byte names.
+         */
+        UNICODE
+    }
+
+    public static MultipartFile[] generate(Shape shape, int entries) {
+        MultipartFile[] files = new MultipartFile[entries];
+
+        for (int index = 0; index < entries; index++) {
+            files[index] = new PathOnlyMultipartFile(path(shape, index), 1024L + index);
+        }
+
+        return files;
+    }
+
+    private static String path(Shape shape, int index) {
+        StringBuilder path = new StringBuilder("upload/");
+
+        switch (shape) {
+            case DEEP -> {
+                for (int level = 0; level < DEEP_LEVELS; level++) {
+                    path.append("level-").append(level).append('-').append((index >> (2 * level)) & 3).append('/');
+                }
+                path.append("file-").append(index).append(".txt");
+            }
+            case WIDE -> path.append("dir-").append(index % WIDE_DIRECTORIES).append("/file-").append(index).append(".txt");
+            case UNICODE -> {
+                for (int level = 0; level < UNICODE_LEVELS; level++) {
+                    int branch = (index >> (3 * level)) & 7;
+                    path.append(UNICODE_NAMES[(level + branch) % UNICODE_NAMES.length]).append(' ')
+                            .append(branch).append('/');
+                }
+                path.append("plik-żółć-").append(index).append(".txt");
+            }
+        }
+
+        return path.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package com.jerzymaj.file_researcher_backend.benchmarks;
+
+import com.jerzymaj.file_researcher_backend.benchmarks.BenchmarkFiles.Content;
+import com.jerzymaj.file_researcher_backend.benchmarks.BenchmarkFiles.FileMix;
+import com.jerzymaj.file_researcher_backend.services.CompressionGovernor;
+import com.jerzymaj.file_researcher_backend.services.DeflaterPool;
+import com.jerzymaj.file_researcher_backend.services.ProgressCounter;
+import com.jerzymaj.file_researcher_backend.services.ZipArchiveCreator;
+import com.jerzymaj.file_researcher_backend.services.ZipPipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.DirectFieldAccessor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ZipArchiveCreator#createZipArchiveFromPaths} as production runs it: pooled Deflater and 64 KB copy
+ * buffer, default compression level, progress byte counter and Micrometer timers. {@link ZipTuningBenchmark} is the
+ * baseline without progress reporting and metrics.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ZipArchiveCreatorBenchmark {
+
+    @Param({"MANY_TINY", "FEW_HUGE"})
+    private FileMix fileMix;
+
+    @Param({"TEXT", "MEDIA"})
+    private Content content;
+
+    /**
+     * {@code -1} is the production pool, one Deflater per processor; {@code 0} creates a Deflater and a copy
+     * buffer per archive. Compare {@code gc.alloc.rate.norm} of both under {@code -prof gc}.
+     */
+    @Param({"-1", "0"})
+    private int deflaterPoolSize;
+
+    private ZipArchiveCreator zipArchiveCreator;
+    private Path sourceDir;
+    private List<Path> files;
+    private Path zipPath;
+
+    /**
+     * Reports uncompressed bytes processed per second next to archives per second.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class BytesCounter {
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ZipPipelineMetrics metrics = new ZipPipelineMetrics(new SimpleMeterRegistry());
+        CompressionGovernor compressionGovernor = new CompressionGovernor(metrics);
+        DeflaterPool deflaterPool = new DeflaterPool(metrics);
+        new DirectFieldAccessor(deflaterPool).setPropertyValue("size", deflaterPoolSize);
+        new DirectFieldAccessor(deflaterPool).setPropertyValue("bufferBytes", 65536);
+        deflaterPool.init();
+        zipArchiveCreator = new ZipArchiveCreator(metrics, List.of(), compressionGovernor, deflaterPool);
+        sourceDir = BenchmarkFiles.generate(fileMix, content);
+        files = BenchmarkFiles.listFiles(sourceDir);
+        zipPath = Files.createTempFile("zip-bench-", ".zip");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(sourceDir);
+        Files.deleteIfExists(zipPath);
+    }
+
+    @Benchmark
+    public long createZipArchiveFromPaths(BytesCounter counter) throws IOException {
+        ProgressCounter progressCounter = new ProgressCounter();
+
+        zipArchiveCreator.createZipArchiveFromPaths(files, zipPath, sourceDir, progressCounter);
+        counter.bytes += fileMix.totalBytes();
+        return progressCounter.getBytesProcessed();
+    }
+}
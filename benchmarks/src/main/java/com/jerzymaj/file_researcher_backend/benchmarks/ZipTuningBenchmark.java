@@ -0,0 +1,93 @@
+package com.jerzymaj.file_researcher_backend.benchmarks;
+
+import com.jerzymaj.file_researcher_backend.benchmarks.BenchmarkFiles.Content;
+import com.jerzymaj.file_researcher_backend.benchmarks.BenchmarkFiles.FileMix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes the same archive as {@code ZipArchiveCreator} with a bare {@link ZipOutputStream}, varying the copy buffer
+ * size and the DEFLATE level, which the production API does not expose. Progress reporting and metrics are left out.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class ZipTuningBenchmark {
+
+    @Param({"MANY_TINY", "FEW_HUGE"})
+    private FileMix fileMix;
+
+    @Param({"TEXT", "MEDIA"})
+    private Content content;
+
+    @Param({"8192", "65536", "262144"})
+    private int bufferSize;
+
+    @Param({"1", "6", "9"})
+    private int level;
+
+    private Path sourceDir;
+    private List<Path> files;
+    private Path zipPath;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        sourceDir = BenchmarkFiles.generate(fileMix, content);
+        files = BenchmarkFiles.listFiles(sourceDir);
+        zipPath = Files.createTempFile("zip-bench-", ".zip");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.delete(sourceDir);
+        Files.deleteIfExists(zipPath);
+    }
+
+    @Benchmark
+    public long zipWithoutProgress(ZipArchiveCreatorBenchmark.BytesCounter counter) throws IOException {
+        byte[] buffer = new byte[bufferSize];
+
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+            zos.setLevel(level);
+
+            for (Path file : files) {
+                zos.putNextEntry(new ZipEntry(sourceDir.relativize(file).toString().replace("\\", "/")));
+
+                try (InputStream inputStream = Files.newInputStream(file)) {
+                    int length;
+                    while ((length = inputStream.read(buffer)) != -1) {
+                        zos.write(buffer, 0, length);
+                    }
+                }
+
+                zos.closeEntry();
+            }
+        }
+
+        counter.bytes += fileMix.totalBytes();
+        return Files.size(zipPath);
+    }
+}
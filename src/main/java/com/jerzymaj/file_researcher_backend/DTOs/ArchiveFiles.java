@@ -0,0 +1,4 @@
+package com.jerzymaj.file_researcher_backend.DTOs;
+
+public record ArchiveFiles(String archivePath, Integer partCount) {
+}
@@ -0,0 +1,6 @@
+package com.jerzymaj.file_researcher_backend.DTOs;
+
+import java.nio.file.Path;
+
+public record CompressedPart(int partNumber, Path partPath, long size, Exception failure) {
+}
@@ -0,0 +1,7 @@
+package com.jerzymaj.file_researcher_backend.DTOs;
+
+import java.net.URI;
+import java.time.Instant;
+
+public record DownloadLink(URI uri, Instant expiresAt) {
+}
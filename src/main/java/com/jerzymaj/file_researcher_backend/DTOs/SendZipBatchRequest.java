@@ -0,0 +1,15 @@
+package com.jerzymaj.file_researcher_backend.DTOs;
+
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ArchiveFormat;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+public record SendZipBatchRequest(@NotEmpty @Size(max = 50) List<@NotBlank @Email String> recipientEmails,
+                                  MultipartFile[] files,
+                                  ArchiveFormat format) {
+}
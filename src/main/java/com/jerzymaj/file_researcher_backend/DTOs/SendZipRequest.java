@@ -1,9 +1,11 @@
 package com.jerzymaj.file_researcher_backend.DTOs;
 
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ArchiveFormat;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.web.multipart.MultipartFile;
 
 public record SendZipRequest(@NotBlank @Email String recipientEmail,
-                             MultipartFile[] files) {
+                             MultipartFile[] files,
+                             ArchiveFormat format) {
 }
@@ -29,6 +29,8 @@ public class SentHistoryDTO {
 
     private String errorMessage;
 
+    private Integer partNumber;
+
     @Email
     @NotBlank
     private String sentToEmail;
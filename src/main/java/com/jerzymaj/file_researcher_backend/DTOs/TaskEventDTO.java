@@ -0,0 +1,8 @@
+package com.jerzymaj.file_researcher_backend.DTOs;
+
+import com.jerzymaj.file_researcher_backend.models.enum_classes.TaskStage;
+
+import java.time.LocalDateTime;
+
+public record TaskEventDTO(TaskStage stage, int percent, String message, LocalDateTime occurredAt) {
+}
@@ -0,0 +1,15 @@
+package com.jerzymaj.file_researcher_backend.DTOs;
+
+import com.jerzymaj.file_researcher_backend.models.enum_classes.TaskStage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record TaskStatusDTO(String taskId,
+                            TaskStage stage,
+                            int percent,
+                            String message,
+                            LocalDateTime startedAt,
+                            LocalDateTime updatedAt,
+                            List<TaskEventDTO> timeline) {
+}
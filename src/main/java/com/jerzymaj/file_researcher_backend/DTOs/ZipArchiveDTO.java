@@ -1,5 +1,7 @@
 package com.jerzymaj.file_researcher_backend.DTOs;
 
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ArchiveFormat;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.DeliveryMode;
 import com.jerzymaj.file_researcher_backend.models.enum_classes.ZipArchiveStatus;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Min;
@@ -32,6 +34,14 @@ public class ZipArchiveDTO {
     @NotNull
     private ZipArchiveStatus status;
 
+    private DeliveryMode deliveryMode;
+
+    private ArchiveFormat format;
+
+    private Integer partCount;
+
+    private Integer recipientCount;
+
     @Email
     @NotBlank
     private String recipientEmail;
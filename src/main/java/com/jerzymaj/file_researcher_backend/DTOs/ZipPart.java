@@ -0,0 +1,7 @@
+package com.jerzymaj.file_researcher_backend.DTOs;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public record ZipPart(int partNumber, List<Path> files, long rawBytes) {
+}
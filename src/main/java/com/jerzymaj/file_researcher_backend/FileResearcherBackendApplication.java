@@ -3,9 +3,11 @@ package com.jerzymaj.file_researcher_backend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableAsync
+@EnableScheduling
 public class FileResearcherBackendApplication {
 
 	public static void main(String[] args) {
@@ -15,4 +15,8 @@ public final class ApiRoutes {
     public static final String FILE_SETS = BASE_API + "/file-sets";
 
     public static final String ZIP_ARCHIVES = BASE_API + "/zip-archives";
+
+    public static final String DOWNLOADS = BASE_API + "/downloads";
+
+    public static final String TASKS = BASE_API + "/tasks";
 }
@@ -1,6 +1,7 @@
 package com.jerzymaj.file_researcher_backend.configuration;
 
 import com.jerzymaj.file_researcher_backend.security.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -16,6 +17,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 @Slf4j
@@ -32,8 +34,10 @@ public class JWTAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (jwt != null && tokenProvider.validateToken(jwt)) {
-                String userName = tokenProvider.getUsernameFromJWT(jwt);
+            Optional<Claims> claims = jwt != null ? tokenProvider.getVerifiedClaims(jwt) : Optional.empty();
+
+            if (claims.isPresent()) {
+                String userName = claims.get().getSubject();
 
                 UserDetails userDetails = userDetailsService.loadUserByUsername(userName);
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
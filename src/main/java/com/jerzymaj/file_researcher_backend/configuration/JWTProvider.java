@@ -1,5 +1,8 @@
 package com.jerzymaj.file_researcher_backend.configuration;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
@@ -11,8 +14,14 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Component
@@ -24,12 +33,28 @@ public class JWTProvider {
     @Value("${app.jwt.expiration-ms}")
     private long jwtExpirationMs;
 
+    @Value("${app.jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
     private Key key;
 
+    private JwtParser jwtParser;
+
+    private Cache<String, Claims> verifiedClaims;
+
+    /**
+     * Builds the signing key, the parser and the cache of verified tokens once at startup. Claims are cached under a
+     * SHA-256 of the token until it expires; {@code app.jwt.cache.max-size} of 0 disables the cache.
+     */
     @PostConstruct
     public void init() {
         byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
     }
 
     public String generateToken(Authentication authentication) {
@@ -46,20 +71,39 @@ public class JWTProvider {
                 .compact();
     }
 
-    public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verifies a token and returns its claims in one step, serving repeated tokens from the cache.
+     *
+     * @param token The compact JWT from the Authorization header.
+     * @return The verified claims, or empty if the token is invalid or expired.
+     */
+
+    public Optional<Claims> getVerifiedClaims(String token) {
+        String tokenHash = hash(token);
+
+        Claims cachedClaims = verifiedClaims.getIfPresent(tokenHash);
+        if (cachedClaims != null) {
+            return Optional.of(cachedClaims);
+        }
 
-        return claims.getSubject();
+        Optional<Claims> claims = parseClaims(token);
+        claims.filter(parsed -> parsed.getExpiration() != null)
+                .ifPresent(parsed -> verifiedClaims.put(tokenHash, parsed));
+
+        return claims;
+    }
+
+    public String getUsernameFromJWT(String token) {
+        return jwtParser.parseClaimsJws(token).getBody().getSubject();
     }
 
     public boolean validateToken(String authToken) {
+        return getVerifiedClaims(authToken).isPresent();
+    }
+
+    private Optional<Claims> parseClaims(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            return true;
+            return Optional.of(jwtParser.parseClaimsJws(authToken).getBody());
         } catch (SignatureException ex) {
             log.error("Invalid JWT signature: {}", ex.getMessage());
         } catch (MalformedJwtException ex) {
@@ -71,6 +115,38 @@ public class JWTProvider {
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string is empty: {}", ex.getMessage());
         }
-        return false;
+        return Optional.empty();
+    }
+
+    private String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * Keeps verified claims exactly as long as the token itself is valid, so an expired token
+     * is never accepted from the cache.
+     */
+    private static final class UntilTokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String tokenHash, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
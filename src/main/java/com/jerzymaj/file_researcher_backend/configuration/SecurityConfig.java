@@ -25,11 +25,14 @@ public class SecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/ws/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
                         .requestMatchers(ApiRoutes.AUTHENTICATION + "/**").permitAll()
                         .requestMatchers(ApiRoutes.USERS).permitAll()
+                        .requestMatchers(ApiRoutes.DOWNLOADS + "/**").permitAll()
                         .requestMatchers(ApiRoutes.FILE_SETS + "/**").authenticated()
                         .requestMatchers(ApiRoutes.ZIP_ARCHIVES + "/**").authenticated()
                         .requestMatchers(ApiRoutes.FILE_EXPLORER + "/**").authenticated()
+                        .requestMatchers(ApiRoutes.TASKS + "/**").authenticated()
                         .requestMatchers(ApiRoutes.USERS + "/authentication").authenticated()
                         .anyRequest().authenticated()
                 )
@@ -3,6 +3,8 @@ package com.jerzymaj.file_researcher_backend.configuration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
+import org.springframework.util.StringUtils;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -14,9 +16,46 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${app.http/ws.allowed-origins}")
     private String allowedOrigins;
 
+    @Value("${app.ws.broker.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${app.ws.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.ws.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.ws.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${app.ws.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${app.ws.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    /**
+     * Configures the broker behind {@code /topic}: the in-memory simple broker, or with {@code
+     * app.ws.broker.relay.enabled} a relay to an external STOMP broker shared by all instances.
+     */
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry messageBrokerRegistry) {
-        messageBrokerRegistry.enableSimpleBroker("/topic");
+        if (relayEnabled) {
+            StompBrokerRelayRegistration relay = messageBrokerRegistry.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+
+            if (StringUtils.hasText(relayVirtualHost)) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        } else {
+            messageBrokerRegistry.enableSimpleBroker("/topic");
+        }
         messageBrokerRegistry.setApplicationDestinationPrefixes("/app");
     }
 
@@ -0,0 +1,31 @@
+package com.jerzymaj.file_researcher_backend.controllers;
+
+import com.jerzymaj.file_researcher_backend.configuration.ApiRoutes;
+import com.jerzymaj.file_researcher_backend.services.ZipArchiveDownloadService;
+import com.jerzymaj.file_researcher_backend.services.ZipArchiveService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping(ApiRoutes.DOWNLOADS)
+@RequiredArgsConstructor
+public class DownloadLinkController {
+
+    private final ZipArchiveService zipArchiveService;
+    private final ZipArchiveDownloadService zipArchiveDownloadService;
+
+    @GetMapping("/{zipArchiveId}")
+    public void downloadByLink(@PathVariable Long zipArchiveId,
+                               @RequestParam long expires,
+                               @RequestParam String signature,
+                               HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+
+        zipArchiveDownloadService.serveArchive(
+                zipArchiveService.getZipArchiveByDownloadLink(zipArchiveId, expires, signature), request, response);
+    }
+}
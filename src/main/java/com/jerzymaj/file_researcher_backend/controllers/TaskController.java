@@ -0,0 +1,40 @@
+package com.jerzymaj.file_researcher_backend.controllers;
+
+import com.jerzymaj.file_researcher_backend.DTOs.TaskStatusDTO;
+import com.jerzymaj.file_researcher_backend.configuration.ApiRoutes;
+import com.jerzymaj.file_researcher_backend.security.AuthFacade;
+import com.jerzymaj.file_researcher_backend.services.ProgressStreamRegistry;
+import com.jerzymaj.file_researcher_backend.services.TaskRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.file.AccessDeniedException;
+
+@RestController
+@RequestMapping(ApiRoutes.TASKS)
+@RequiredArgsConstructor
+public class TaskController {
+
+    private final TaskRegistry taskRegistry;
+    private final ProgressStreamRegistry progressStreamRegistry;
+    private final AuthFacade authFacade;
+
+    @GetMapping("/{taskId}")
+    public ResponseEntity<TaskStatusDTO> retrieveTaskStatus(@PathVariable String taskId) throws AccessDeniedException {
+        return ResponseEntity.ok(taskRegistry.getTask(taskId, authFacade.getCurrentUserId()));
+    }
+
+    @GetMapping(value = "/{taskId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTaskProgress(@PathVariable String taskId,
+                                         @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId)
+            throws AccessDeniedException {
+        return progressStreamRegistry.subscribe(taskId, authFacade.getCurrentUserId(), lastEventId);
+    }
+}
@@ -1,10 +1,14 @@
 package com.jerzymaj.file_researcher_backend.controllers;
 
+import com.jerzymaj.file_researcher_backend.DTOs.SendZipBatchRequest;
 import com.jerzymaj.file_researcher_backend.DTOs.SendZipRequest;
 import com.jerzymaj.file_researcher_backend.DTOs.ZipArchiveDTO;
 import com.jerzymaj.file_researcher_backend.configuration.ApiRoutes;
+import com.jerzymaj.file_researcher_backend.services.ZipArchiveDownloadService;
 import com.jerzymaj.file_researcher_backend.services.ZipArchiveService;
 import com.jerzymaj.file_researcher_backend.mapper.EntityMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,7 +27,7 @@ import java.util.List;
 public class ZipArchiveController {
 
     private final ZipArchiveService zipArchiveService;
-
+    private final ZipArchiveDownloadService zipArchiveDownloadService;
 
     @GetMapping("/zip-archives")
     public List<ZipArchiveDTO> retrieveAllZipArchivesForUser() {
@@ -51,11 +55,32 @@ public class ZipArchiveController {
         return ResponseEntity.ok(zipArchiveDTO);
     }
 
+    @GetMapping("/file-sets/{fileSetId}/zip-archives/{zipArchiveId}/download")
+    public void downloadZipArchive(@PathVariable Long fileSetId,
+                                   @PathVariable Long zipArchiveId,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+
+        zipArchiveDownloadService.serveArchive(
+                zipArchiveService.getZipArchiveById(fileSetId, zipArchiveId), request, response);
+    }
+
     @PostMapping(value = "/file-sets/{fileSetId}/zip-archives/send-uploaded-files", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<String> sendZipArchiveFromUploaded(@PathVariable Long fileSetId,
                                                              @Valid @ModelAttribute SendZipRequest zipRequest) throws IOException {
 
-        String taskId = zipArchiveService.startZipProcessFromUploaded(fileSetId, zipRequest.recipientEmail(), zipRequest.files());
+        String taskId = zipArchiveService.startZipProcessFromUploaded(fileSetId, List.of(zipRequest.recipientEmail()),
+                zipRequest.format(), zipRequest.files());
+
+        return ResponseEntity.ok(taskId);
+    }
+
+    @PostMapping(value = "/file-sets/{fileSetId}/zip-archives/send-uploaded-files/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<String> sendZipArchiveFromUploadedToRecipients(@PathVariable Long fileSetId,
+                                                                         @Valid @ModelAttribute SendZipBatchRequest zipRequest) throws IOException {
+
+        String taskId = zipArchiveService.startZipProcessFromUploaded(fileSetId, zipRequest.recipientEmails(),
+                zipRequest.format(), zipRequest.files());
 
         return ResponseEntity.ok(taskId);
     }
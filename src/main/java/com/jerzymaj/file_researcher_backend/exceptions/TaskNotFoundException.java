@@ -0,0 +1,7 @@
+package com.jerzymaj.file_researcher_backend.exceptions;
+
+public class TaskNotFoundException extends RuntimeException {
+    public TaskNotFoundException(String message) {
+        super(message);
+    }
+}
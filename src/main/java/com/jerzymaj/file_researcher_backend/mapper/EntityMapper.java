@@ -51,6 +51,10 @@ public final class EntityMapper {
                 .size(zipArchive.getSize())
                 .creationDate(zipArchive.getCreationDate())
                 .status(zipArchive.getStatus())
+                .deliveryMode(zipArchive.getDeliveryMode())
+                .format(zipArchive.getFormat())
+                .partCount(zipArchive.getPartCount())
+                .recipientCount(zipArchive.getRecipientCount())
                 .recipientEmail(zipArchive.getRecipientEmail())
                 .fileSetId(zipArchive.getFileSet().getId())
                 .userId(zipArchive.getUser().getId())
@@ -67,6 +71,7 @@ public final class EntityMapper {
                 .sentAttemptDate(sentHistory.getSendAttemptDate())
                 .status(sentHistory.getStatus())
                 .errorMessage(sentHistory.getErrorMessage())
+                .partNumber(sentHistory.getPartNumber())
                 .sentToEmail(sentHistory.getSentToEmail())
                 .build();
     }
@@ -0,0 +1,62 @@
+package com.jerzymaj.file_researcher_backend.models;
+
+import com.jerzymaj.file_researcher_backend.models.enum_classes.OutboxStatus;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Email;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(indexes = @Index(name = "idx_email_outbox_due", columnList = "status, nextAttemptAt"))
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, updatable = false)
+    private String idempotencyKey;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "zip_archive_id", nullable = false, updatable = false)
+    private ZipArchive zipArchive;
+
+    private Integer partNumber;
+
+    private String attachmentPath;
+
+    private Long attachmentSize;
+
+    @Email
+    @Column(nullable = false)
+    private String recipientEmail;
+
+    private String taskId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+
+    @Version
+    private Long version;
+
+}
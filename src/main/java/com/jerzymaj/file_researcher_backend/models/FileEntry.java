@@ -2,6 +2,10 @@ package com.jerzymaj.file_researcher_backend.models;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +16,8 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @ToString(onlyExplicitlyIncluded = true)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class FileEntry {
 
     @Id
@@ -22,6 +28,7 @@ public class FileEntry {
     @Column(nullable = false)
     private String name;
 
+    @NaturalId
     @Column(nullable = false, unique = true)
     private String path;
 
@@ -33,6 +33,8 @@ public class SentHistory {
 
     private String errorMessage;
 
+    private Integer partNumber;
+
     @Email
     @Column(nullable = false)
     private String sentToEmail;
@@ -0,0 +1,41 @@
+package com.jerzymaj.file_researcher_backend.models;
+
+import com.jerzymaj.file_researcher_backend.models.enum_classes.TaskStage;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_task_event_task", columnList = "taskId"),
+        @Index(name = "idx_task_event_occurred", columnList = "occurredAt")
+})
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TaskEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, updatable = false)
+    private String taskId;
+
+    @Column(updatable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false)
+    private TaskStage stage;
+
+    private int percent;
+
+    @Column(length = 1000)
+    private String message;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime occurredAt;
+}
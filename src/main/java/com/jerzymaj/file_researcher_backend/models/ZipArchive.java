@@ -1,6 +1,8 @@
 package com.jerzymaj.file_researcher_backend.models;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ArchiveFormat;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.DeliveryMode;
 import com.jerzymaj.file_researcher_backend.models.enum_classes.ZipArchiveStatus;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
@@ -47,10 +49,25 @@ public class ZipArchive {
 
     private Integer sendNumber;
 
+    private Integer partCount;
+
+    private Integer recipientCount;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private ZipArchiveStatus status;
 
+    @Enumerated(EnumType.STRING)
+    private DeliveryMode deliveryMode;
+
+    @Enumerated(EnumType.STRING)
+    private ArchiveFormat format;
+
+    /**
+     * When the file of a link-delivered archive was removed after its links had expired.
+     */
+    private LocalDateTime filesPurgedAt;
+
     @Email
     @NotBlank
     @Column(nullable = false)
@@ -68,4 +85,8 @@ public class ZipArchive {
     @Builder.Default
     private List<SentHistory> sentHistoryList = new ArrayList<>();
 
+    @OneToMany(mappedBy = "zipArchive", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Builder.Default
+    private List<EmailOutbox> outboxEntries = new ArrayList<>();
+
 }
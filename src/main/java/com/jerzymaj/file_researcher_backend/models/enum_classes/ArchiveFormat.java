@@ -0,0 +1,40 @@
+package com.jerzymaj.file_researcher_backend.models.enum_classes;
+
+import java.nio.file.Path;
+
+public enum ArchiveFormat {
+    ZIP(".zip", "application/zip"),
+    TAR_GZ(".tar.gz", "application/gzip"),
+    TAR_ZST(".tar.zst", "application/zstd");
+
+    private final String extension;
+    private final String contentType;
+
+    ArchiveFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Replaces the {@code .zip} extension of an archive path with the extension of this format.
+     *
+     * @param zipPath Path prepared for a ZIP archive, e.g. {@code fileset-1-3.zip}.
+     * @return The path of the archive in this format, e.g. {@code fileset-1-3.tar.zst}.
+     */
+    public Path applyTo(Path zipPath) {
+        String fileName = zipPath.getFileName().toString();
+        String baseName = fileName.endsWith(ZIP.extension)
+                ? fileName.substring(0, fileName.length() - ZIP.extension.length())
+                : fileName;
+
+        return zipPath.resolveSibling(baseName + extension);
+    }
+}
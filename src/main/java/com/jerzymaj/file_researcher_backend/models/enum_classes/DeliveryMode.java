@@ -0,0 +1,7 @@
+package com.jerzymaj.file_researcher_backend.models.enum_classes;
+
+public enum DeliveryMode {
+    ATTACHMENT,
+    DOWNLOAD_LINK,
+    SPLIT
+}
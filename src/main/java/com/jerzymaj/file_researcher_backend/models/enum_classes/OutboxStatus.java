@@ -0,0 +1,8 @@
+package com.jerzymaj.file_researcher_backend.models.enum_classes;
+
+public enum OutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,11 @@
+package com.jerzymaj.file_researcher_backend.models.enum_classes;
+
+public enum TaskStage {
+    STAGED,
+    QUEUED,
+    COMPRESSING,
+    REGISTERED,
+    SENDING,
+    DONE,
+    FAILED
+}
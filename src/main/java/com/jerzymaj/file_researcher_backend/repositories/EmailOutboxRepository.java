@@ -0,0 +1,97 @@
+package com.jerzymaj.file_researcher_backend.repositories;
+
+import com.jerzymaj.file_researcher_backend.models.EmailOutbox;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.OutboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    List<EmailOutbox> findAllByZipArchiveId(Long zipArchiveId);
+
+    @Query("""
+            SELECT o
+            FROM EmailOutbox o
+            JOIN FETCH o.zipArchive za
+            JOIN FETCH za.fileSet
+            WHERE o.status IN :statuses
+            AND o.nextAttemptAt <= :now
+            ORDER BY o.nextAttemptAt
+            """)
+    List<EmailOutbox> findDue(@Param("statuses") Collection<OutboxStatus> statuses,
+                              @Param("now") LocalDateTime now,
+                              Pageable pageable);
+
+    @Modifying
+    @Query("""
+            UPDATE EmailOutbox o
+            SET o.status = :status,
+                o.nextAttemptAt = :leaseUntil,
+                o.attempts = o.attempts + 1,
+                o.version = o.version + 1
+            WHERE o.id = :id
+            AND o.version = :version
+            """)
+    int claim(@Param("id") Long id,
+              @Param("version") Long version,
+              @Param("status") OutboxStatus status,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("""
+            UPDATE EmailOutbox o
+            SET o.nextAttemptAt = :leaseUntil,
+                o.version = o.version + 1
+            WHERE o.id = :id
+            AND o.version = :version
+            AND o.status = :status
+            """)
+    int renewLease(@Param("id") Long id,
+                   @Param("version") Long version,
+                   @Param("status") OutboxStatus status,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("""
+            UPDATE EmailOutbox o
+            SET o.status = :status,
+                o.nextAttemptAt = COALESCE(:nextAttemptAt, o.nextAttemptAt),
+                o.lastError = :lastError,
+                o.version = o.version + 1
+            WHERE o.id = :id
+            AND o.version = :version
+            """)
+    int release(@Param("id") Long id,
+                @Param("version") Long version,
+                @Param("status") OutboxStatus status,
+                @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                @Param("lastError") String lastError);
+
+    @Modifying
+    @Query("""
+            DELETE FROM EmailOutbox o
+            WHERE o.zipArchive.id = :zipArchiveId
+            """)
+    int deleteAllByZipArchiveIdInBulk(@Param("zipArchiveId") Long zipArchiveId);
+
+    @Modifying
+    @Query("""
+            DELETE FROM EmailOutbox o
+            WHERE o.zipArchive.id IN (SELECT z.id FROM ZipArchive z WHERE z.fileSet.id = :fileSetId)
+            """)
+    int deleteAllByFileSetIdInBulk(@Param("fileSetId") Long fileSetId);
+
+    @Modifying
+    @Query("""
+            DELETE FROM EmailOutbox o
+            WHERE o.zipArchive.id IN (SELECT z.id FROM ZipArchive z WHERE z.user.id = :userId)
+            """)
+    int deleteAllByUserIdInBulk(@Param("userId") Long userId);
+}
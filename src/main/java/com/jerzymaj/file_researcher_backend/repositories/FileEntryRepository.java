@@ -5,7 +5,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface FileEntryRepository extends JpaRepository<FileEntry, Long> {
+public interface FileEntryRepository extends JpaRepository<FileEntry, Long>, NaturalIdRepository {
 
-    Optional<FileEntry> findByPath(String path);
+    /**
+     * Resolves a file entry by path through the natural-id cache, see {@link NaturalIdRepository}.
+     */
+    default Optional<FileEntry> findByPath(String path) {
+        return findBySimpleNaturalId(FileEntry.class, path);
+    }
 }
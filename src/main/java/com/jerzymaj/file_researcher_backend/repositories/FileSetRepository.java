@@ -2,6 +2,7 @@ package com.jerzymaj.file_researcher_backend.repositories;
 
 import com.jerzymaj.file_researcher_backend.models.FileSet;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -21,4 +22,22 @@ public interface FileSetRepository extends JpaRepository<FileSet, Long> {
             WHERE f.id = :fileSetId
             """)
     Optional<FileSet> findByIdWithFiles(@Param("fileSetId") Long fileSetId);
+
+    /**
+     * Deletes a file set without loading it. Hibernate removes its rows of the {@code file_set_files}
+     * join table first; the file entries themselves are shared between file sets and stay.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            DELETE FROM FileSet f
+            WHERE f.id = :fileSetId
+            """)
+    int deleteByIdInBulk(@Param("fileSetId") Long fileSetId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            DELETE FROM FileSet f
+            WHERE f.user.id = :userId
+            """)
+    int deleteAllByUserIdInBulk(@Param("userId") Long userId);
 }
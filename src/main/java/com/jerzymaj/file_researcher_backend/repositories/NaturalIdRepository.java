@@ -0,0 +1,12 @@
+package com.jerzymaj.file_researcher_backend.repositories;
+
+import java.util.Optional;
+
+/**
+ * Repository fragment loading entities by their {@code @NaturalId} through Hibernate's natural-id cache, so a repeated
+ * lookup runs no SQL.
+ */
+public interface NaturalIdRepository {
+
+    <T> Optional<T> findBySimpleNaturalId(Class<T> entityType, Object naturalId);
+}
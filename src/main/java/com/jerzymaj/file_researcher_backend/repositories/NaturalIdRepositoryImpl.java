@@ -0,0 +1,22 @@
+package com.jerzymaj.file_researcher_backend.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import org.hibernate.Session;
+
+import java.util.Optional;
+
+public class NaturalIdRepositoryImpl implements NaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public <T> Optional<T> findBySimpleNaturalId(Class<T> entityType, Object naturalId) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(entityType)
+                .loadOptional(naturalId);
+    }
+}
@@ -2,6 +2,7 @@ package com.jerzymaj.file_researcher_backend.repositories;
 
 import com.jerzymaj.file_researcher_backend.models.SentHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -38,5 +39,25 @@ public interface SentHistoryRepository extends JpaRepository<SentHistory, Long>
             """, nativeQuery = true)
     String findLastRecipient(@Param("zipArchiveId") Long zipArchiveId);
 
+    @Modifying
+    @Query("""
+            DELETE FROM SentHistory sh
+            WHERE sh.zipArchive.id = :zipArchiveId
+            """)
+    int deleteAllByZipArchiveIdInBulk(@Param("zipArchiveId") Long zipArchiveId);
+
+    @Modifying
+    @Query("""
+            DELETE FROM SentHistory sh
+            WHERE sh.zipArchive.id IN (SELECT z.id FROM ZipArchive z WHERE z.fileSet.id = :fileSetId)
+            """)
+    int deleteAllByFileSetIdInBulk(@Param("fileSetId") Long fileSetId);
+
+    @Modifying
+    @Query("""
+            DELETE FROM SentHistory sh
+            WHERE sh.zipArchive.id IN (SELECT z.id FROM ZipArchive z WHERE z.user.id = :userId)
+            """)
+    int deleteAllByUserIdInBulk(@Param("userId") Long userId);
 
 }
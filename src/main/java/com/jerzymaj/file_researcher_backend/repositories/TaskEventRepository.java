@@ -0,0 +1,29 @@
+package com.jerzymaj.file_researcher_backend.repositories;
+
+import com.jerzymaj.file_researcher_backend.models.TaskEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TaskEventRepository extends JpaRepository<TaskEvent, Long> {
+
+    List<TaskEvent> findAllByTaskIdOrderByIdAsc(String taskId);
+
+    @Modifying
+    @Query("""
+            DELETE FROM TaskEvent e
+            WHERE e.occurredAt < :cutoff
+            """)
+    int deleteAllOccurredBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("""
+            DELETE FROM TaskEvent e
+            WHERE e.userId = :userId
+            """)
+    int deleteAllByUserId(@Param("userId") Long userId);
+}
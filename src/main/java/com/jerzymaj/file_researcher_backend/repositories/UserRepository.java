@@ -5,12 +5,17 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User,Long> {
+public interface UserRepository extends JpaRepository<User,Long>, NaturalIdRepository {
 
     boolean existsByName(String name);
 
     boolean existsByEmail(String email);
 
-    Optional<User> findByName(String name);
+    /**
+     * Resolves a user by name through the natural-id cache, see {@link NaturalIdRepository}.
+     */
+    default Optional<User> findByName(String name) {
+        return findBySimpleNaturalId(User.class, name);
+    }
 
 }
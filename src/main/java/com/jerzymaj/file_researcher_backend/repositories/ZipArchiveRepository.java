@@ -1,11 +1,16 @@
 package com.jerzymaj.file_researcher_backend.repositories;
 
+import com.jerzymaj.file_researcher_backend.DTOs.ArchiveFiles;
 import com.jerzymaj.file_researcher_backend.DTOs.ZipStatsResponse;
 import com.jerzymaj.file_researcher_backend.models.ZipArchive;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ZipArchiveStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,6 +30,16 @@ public interface ZipArchiveRepository extends JpaRepository<ZipArchive, Long> {
             """)
     int findMaxSendNumberByFileSetId(@Param("fileSetId") Long fileSetId);
 
+    @Query("""
+            SELECT z
+            FROM ZipArchive z
+            WHERE z.fileSet.id = :fileSetId
+            AND (z.deliveryMode IS NULL OR z.deliveryMode <> 'SPLIT')
+            AND (z.format IS NULL OR z.format = 'ZIP')
+            ORDER BY z.sendNumber DESC
+            """)
+    List<ZipArchive> findSingleArchivesByFileSetIdLatestFirst(@Param("fileSetId") Long fileSetId);
+
     @Query("""
             SELECT new com.jerzymaj.file_researcher_backend.DTOs.ZipStatsResponse(
                 SUM(CASE WHEN z.status = 'SUCCESS' THEN 1 ELSE 0 END) as successCount,
@@ -35,6 +50,17 @@ public interface ZipArchiveRepository extends JpaRepository<ZipArchive, Long> {
             """)
     ZipStatsResponse countSuccessAndFailuresByUser(@Param("userId") Long userId);
 
+    @Modifying
+    @Query("""
+            UPDATE ZipArchive z
+            SET z.status = :newStatus
+            WHERE z.id = :id
+            AND z.status = :currentStatus
+            """)
+    int updateStatusIfCurrent(@Param("id") Long id,
+                              @Param("currentStatus") ZipArchiveStatus currentStatus,
+                              @Param("newStatus") ZipArchiveStatus newStatus);
+
     @Query(value = """
             SELECT *
             FROM zip_archive
@@ -42,4 +68,61 @@ public interface ZipArchiveRepository extends JpaRepository<ZipArchive, Long> {
             AND size > :minSize
             """, nativeQuery = true)
     List<ZipArchive> findLargeZipArchives(@Param("userId") Long userId, @Param("minSize") Long minSize);
+
+    @Query("""
+            SELECT new com.jerzymaj.file_researcher_backend.DTOs.ArchiveFiles(z.archivePath, z.partCount)
+            FROM ZipArchive z
+            WHERE z.fileSet.id = :fileSetId
+            """)
+    List<ArchiveFiles> findArchiveFilesByFileSetId(@Param("fileSetId") Long fileSetId);
+
+    @Query("""
+            SELECT new com.jerzymaj.file_researcher_backend.DTOs.ArchiveFiles(z.archivePath, z.partCount)
+            FROM ZipArchive z
+            WHERE z.user.id = :userId
+            """)
+    List<ArchiveFiles> findArchiveFilesByUserId(@Param("userId") Long userId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            DELETE FROM ZipArchive z
+            WHERE z.id = :zipArchiveId
+            """)
+    int deleteByIdInBulk(@Param("zipArchiveId") Long zipArchiveId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            DELETE FROM ZipArchive z
+            WHERE z.fileSet.id = :fileSetId
+            """)
+    int deleteAllByFileSetIdInBulk(@Param("fileSetId") Long fileSetId);
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+            DELETE FROM ZipArchive z
+            WHERE z.user.id = :userId
+            """)
+    int deleteAllByUserIdInBulk(@Param("userId") Long userId);
+
+    /**
+     * Link-delivered archives whose every link has expired: links are issued right before the email is sent,
+     * so no link outlives the last sent history entry (or the creation, if nothing was recorded) by more than the TTL.
+     */
+    @Query("""
+            SELECT z
+            FROM ZipArchive z
+            WHERE z.deliveryMode = 'DOWNLOAD_LINK'
+            AND z.status <> 'PENDING'
+            AND z.filesPurgedAt IS NULL
+            AND COALESCE((SELECT MAX(sh.sendAttemptDate) FROM SentHistory sh WHERE sh.zipArchive = z), z.creationDate) < :cutoff
+            """)
+    List<ZipArchive> findLinkArchivesExpiredBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("""
+            UPDATE ZipArchive z
+            SET z.filesPurgedAt = :purgedAt
+            WHERE z.id IN :ids
+            """)
+    int markFilesPurged(@Param("ids") Collection<Long> ids, @Param("purgedAt") LocalDateTime purgedAt);
 }
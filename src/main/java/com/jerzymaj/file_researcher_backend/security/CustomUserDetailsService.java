@@ -11,6 +11,10 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    /**
+     * Loads the principal of an authenticated request through the natural-id cache, so a repeated lookup runs no
+     * SQL. Every call returns an instance of its own.
+     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
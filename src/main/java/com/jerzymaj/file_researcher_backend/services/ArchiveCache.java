@@ -0,0 +1,198 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class ArchiveCache {
+
+    private static final String SUFFIX = ".zip";
+
+    @Value("${app.archives.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.archives.cache.dir:archive-cache}")
+    private String cacheBaseDir;
+
+    @Value("${app.archives.cache.max-bytes:2147483648}")
+    private long maxBytes;
+
+    private Path cacheDir;
+
+    /**
+     * Sizes of the cached archives by digest, least recently used first. Guarded by {@code this}.
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Rebuilds the index from the cache directory, so cached archives survive restarts. The modification time
+     * of a file is its last use, which restores the LRU order; leftovers of interrupted stores are removed.
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        cacheDir = Paths.get(cacheBaseDir).toAbsolutePath();
+        Files.createDirectories(cacheDir);
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(cacheDir)) {
+            files = list.toList();
+        }
+
+        List<Path> archives = files.stream()
+                .filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                .sorted(Comparator.comparing(ArchiveCache::lastModified))
+                .toList();
+
+        for (Path file : files) {
+            if (!archives.contains(file)) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        synchronized (this) {
+            for (Path archive : archives) {
+                String fileName = archive.getFileName().toString();
+                long size = Files.size(archive);
+                entries.put(fileName.substring(0, fileName.length() - SUFFIX.length()), size);
+                totalBytes += size;
+            }
+            evict();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Places the cached archive with the given digest at {@code target}, as a hard link or, where links are not
+     * supported, a copy.
+     *
+     * @param digest The digest computed by {@link ZipArchiveCreator#contentDigest}.
+     * @param target Path where the archive should be created.
+     * @return {@code true} on a cache hit, {@code false} if the archive has to be built.
+     * @throws IOException If the cached archive cannot be linked or copied.
+     */
+
+    public boolean restore(String digest, Path target) throws IOException {
+        synchronized (this) {
+            if (entries.get(digest) == null) {
+                return false;
+            }
+        }
+
+        Path cached = pathOf(digest);
+        try {
+            Files.deleteIfExists(target);
+            linkOrCopy(cached, target);
+        } catch (NoSuchFileException ex) {
+            // evicted between the lookup and the link
+            forget(digest);
+            return false;
+        }
+
+        try {
+            Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ex) {
+            log.debug("Could not touch cached archive {}", digest, ex);
+        }
+        return true;
+    }
+
+    /**
+     * Adds a freshly built archive to the cache and evicts the least recently used archives beyond
+     * {@code app.archives.cache.max-bytes}. The cache is best effort: a failure is logged, never thrown.
+     *
+     * @param digest  The digest computed by {@link ZipArchiveCreator#contentDigest}.
+     * @param archive The built archive; it stays where it is.
+     */
+
+    public void store(String digest, Path archive) {
+        try {
+            long size = Files.size(archive);
+            if (size > maxBytes) {
+                return;
+            }
+
+            Path tempPath = cacheDir.resolve(digest + "." + Thread.currentThread().threadId() + ".tmp");
+            linkOrCopy(archive, tempPath);
+
+            synchronized (this) {
+                Files.move(tempPath, pathOf(digest), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Long previous = entries.put(digest, size);
+                totalBytes += size - (previous == null ? 0 : previous);
+                evict();
+            }
+        } catch (IOException ex) {
+            log.warn("Could not cache archive {}", archive, ex);
+        }
+    }
+
+    private synchronized void forget(String digest) {
+        Long size = entries.remove(digest);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue();
+
+            try {
+                Files.deleteIfExists(pathOf(entry.getKey()));
+            } catch (IOException ex) {
+                log.warn("Could not evict cached archive {}", entry.getKey(), ex);
+            }
+        }
+    }
+
+    private Path pathOf(String digest) {
+        return cacheDir.resolve(digest + SUFFIX);
+    }
+
+    private static void linkOrCopy(Path source, Path target) throws IOException {
+        if (Files.notExists(source)) {
+            throw new NoSuchFileException(source.toString());
+        }
+
+        try {
+            Files.createLink(target, source);
+        } catch (UnsupportedOperationException | IOException ex) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException ex) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.jerzymaj.file_researcher_backend.DTOs.ArchiveFiles;
+import com.jerzymaj.file_researcher_backend.models.ZipArchive;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+@Slf4j
+@Service
+public class ArchiveStorage {
+
+    @Value("${app.archives.retain:false}")
+    private boolean retainArchives;
+
+    @Value("${app.archives.storage-dir:archives}")
+    private String storageBaseDir;
+
+    /**
+     * Tells whether created archives should be kept on disk after the email has been dispatched,
+     * so they can be downloaded later instead of being purged together with the staging folder.
+     *
+     * @return {@code true} if archives are retained.
+     */
+
+    public boolean isRetainEnabled() {
+        return retainArchives;
+    }
+
+    /**
+     * Resolves the location of a retained archive inside the configured storage directory.
+     * Unlike the temporary directory, this location is expected to survive restarts.
+     *
+     * @param fileSetId   The ID of the associated FileSet.
+     * @param sendCounter The send number of the archive within the FileSet.
+     * @return {@link Path} where the archive should be created.
+     * @throws IOException If the storage directory cannot be created.
+     */
+
+    public Path prepareRetainedPath(Long fileSetId, int sendCounter) throws IOException {
+        Path storageDir = Paths.get(storageBaseDir).toAbsolutePath();
+        Files.createDirectories(storageDir);
+
+        return storageDir.resolve("fileset-" + fileSetId + "-" + sendCounter + ".zip");
+    }
+
+    /**
+     * Moves an already created archive into the storage directory, unless it is stored there already.
+     * Used when an archive has to outlive the send, e.g. when it is delivered as a download link.
+     * The file keeps its extension, so archives of other formats than ZIP stay recognisable.
+     *
+     * @param zipPath     Current location of the archive.
+     * @param fileSetId   The ID of the associated FileSet.
+     * @param sendCounter The send number of the archive within the FileSet.
+     * @return {@link Path} of the retained archive.
+     * @throws IOException If the archive cannot be moved.
+     */
+
+    public Path retain(Path zipPath, Long fileSetId, int sendCounter) throws IOException {
+        Path retainedPath = prepareRetainedPath(fileSetId, sendCounter).resolveSibling(zipPath.getFileName());
+
+        if (retainedPath.equals(zipPath.toAbsolutePath())) {
+            return retainedPath;
+        }
+
+        return Files.move(zipPath, retainedPath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Resolves the file of a single part of a split archive, next to the logical archive path.
+     * E.g. {@code fileset-1-3.zip} is delivered as {@code fileset-1-3.part1.zip}, {@code fileset-1-3.part2.zip}, ...
+     *
+     * @param zipPath    Path of the logical (unsplit) archive.
+     * @param partNumber Number of the part, starting at 1.
+     * @return {@link Path} of the part file.
+     */
+
+    public Path partPath(Path zipPath, int partNumber) {
+        String fileName = zipPath.getFileName().toString();
+        String baseName = fileName.endsWith(".zip") ? fileName.substring(0, fileName.length() - 4) : fileName;
+
+        return zipPath.resolveSibling(baseName + ".part" + partNumber + ".zip");
+    }
+
+    /**
+     * Removes all files of an archive from disk, including every part of a split archive.
+     *
+     * @param zipArchive The archive whose files should be removed.
+     */
+
+    public void delete(ZipArchive zipArchive) {
+        delete(new ArchiveFiles(zipArchive.getArchivePath(), zipArchive.getPartCount()));
+    }
+
+    /**
+     * Removes all files of an archive whose row has already been deleted, see {@link CascadeDeletionService}.
+     *
+     * @param archiveFiles Archive path and part count read from the deleted row.
+     */
+
+    public void delete(ArchiveFiles archiveFiles) {
+        if (archiveFiles.archivePath() != null && archiveFiles.partCount() != null && archiveFiles.partCount() > 1) {
+            Path zipPath = Path.of(archiveFiles.archivePath());
+
+            for (int partNumber = 1; partNumber <= archiveFiles.partCount(); partNumber++) {
+                delete(partPath(zipPath, partNumber).toString());
+            }
+        }
+
+        delete(archiveFiles.archivePath());
+    }
+
+    /**
+     * Removes an archive file from disk. Missing files are ignored, as archives
+     * that were not retained have already been purged after sending.
+     *
+     * @param archivePath Absolute path stored on the {@code ZipArchive} entity.
+     */
+
+    public void delete(String archivePath) {
+        if (archivePath == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(Path.of(archivePath));
+        } catch (IOException ex) {
+            log.warn("Could not delete archive file: {}", archivePath, ex);
+        }
+    }
+}
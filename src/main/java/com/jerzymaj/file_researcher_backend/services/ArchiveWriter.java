@@ -0,0 +1,26 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ArchiveFormat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SequencedMap;
+
+/**
+ * Writes an archive in a format other than ZIP. {@link ZipArchiveCreator} picks the writer by
+ * {@link #format()}, resolves the entries and records the metrics, so a writer only encodes.
+ */
+public interface ArchiveWriter {
+
+    ArchiveFormat format();
+
+    /**
+     * Writes the entries into a new archive.
+     *
+     * @param entries         Files by entry name, in the order they are to be written.
+     * @param archivePath     Target path for the archive.
+     * @param progressCounter Counter of processed bytes, sampled for progress updates.
+     * @throws IOException If a read/write error occurs.
+     */
+    void write(SequencedMap<String, Path> entries, Path archivePath, ProgressCounter progressCounter) throws IOException;
+}
@@ -0,0 +1,82 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.jerzymaj.file_researcher_backend.DTOs.ArchiveFiles;
+import com.jerzymaj.file_researcher_backend.models.ZipArchive;
+import com.jerzymaj.file_researcher_backend.repositories.*;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Deletes file sets, archives and users together with everything hanging off them, with one set-based statement per
+ * table instead of entity-by-entity cascades.
+ * Archive files on disk are not removed here: every method returns the files of the deleted archives,
+ * for the caller to remove once the transaction has committed.
+ */
+@Service
+@RequiredArgsConstructor
+public class CascadeDeletionService {
+
+    private final SentHistoryRepository sentHistoryRepository;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final ZipArchiveRepository zipArchiveRepository;
+    private final FileSetRepository fileSetRepository;
+    private final TaskEventRepository taskEventRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * Deletes an archive with its send history and outbox entries.
+     *
+     * @param zipArchive The archive to delete, already checked to belong to the current user.
+     * @return The files of the deleted archive.
+     */
+    @Transactional
+    public ArchiveFiles deleteZipArchive(ZipArchive zipArchive) {
+        sentHistoryRepository.deleteAllByZipArchiveIdInBulk(zipArchive.getId());
+        emailOutboxRepository.deleteAllByZipArchiveIdInBulk(zipArchive.getId());
+        zipArchiveRepository.deleteByIdInBulk(zipArchive.getId());
+
+        return new ArchiveFiles(zipArchive.getArchivePath(), zipArchive.getPartCount());
+    }
+
+    /**
+     * Deletes a file set with all of its archives, their send history and outbox entries.
+     *
+     * @param fileSetId ID of the FileSet, already checked to belong to the current user.
+     * @return The files of the deleted archives.
+     */
+    @Transactional
+    public List<ArchiveFiles> deleteFileSet(Long fileSetId) {
+        List<ArchiveFiles> archiveFiles = zipArchiveRepository.findArchiveFilesByFileSetId(fileSetId);
+
+        sentHistoryRepository.deleteAllByFileSetIdInBulk(fileSetId);
+        emailOutboxRepository.deleteAllByFileSetIdInBulk(fileSetId);
+        zipArchiveRepository.deleteAllByFileSetIdInBulk(fileSetId);
+        fileSetRepository.deleteByIdInBulk(fileSetId);
+
+        return archiveFiles;
+    }
+
+    /**
+     * Deletes a user with all of their file sets, archives, send history, outbox entries and task events.
+     *
+     * @param userId ID of the user.
+     * @return The files of the deleted archives.
+     */
+    @Transactional
+    public List<ArchiveFiles> deleteUser(Long userId) {
+        List<ArchiveFiles> archiveFiles = zipArchiveRepository.findArchiveFilesByUserId(userId);
+
+        sentHistoryRepository.deleteAllByUserIdInBulk(userId);
+        emailOutboxRepository.deleteAllByUserIdInBulk(userId);
+        zipArchiveRepository.deleteAllByUserIdInBulk(userId);
+        fileSetRepository.deleteAllByUserIdInBulk(userId);
+        taskEventRepository.deleteAllByUserId(userId);
+        // through the repository rather than in bulk, so only this user leaves the second-level cache
+        userRepository.deleteById(userId);
+
+        return archiveFiles;
+    }
+}
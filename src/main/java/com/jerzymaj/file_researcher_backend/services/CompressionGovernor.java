@@ -0,0 +1,127 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+import java.util.zip.Deflater;
+
+@Service
+@RequiredArgsConstructor
+public class CompressionGovernor {
+
+    public static final String REASON_FIXED = "fixed";
+    public static final String REASON_IDLE = "idle";
+    public static final String REASON_QUEUE = "queue";
+    public static final String REASON_CPU = "cpu";
+
+    private final ZipPipelineMetrics metrics;
+
+    @Value("${app.archives.compression.adaptive:true}")
+    private boolean adaptive;
+
+    @Value("${app.archives.compression.max-level:9}")
+    private int maxLevel;
+
+    /**
+     * Number of other compressions in flight at which the level reaches the bottom.
+     */
+    @Value("${app.archives.compression.queue-high:8}")
+    private int queueHigh;
+
+    @Value("${app.archives.compression.cpu-low:0.5}")
+    private double cpuLow;
+
+    @Value("${app.archives.compression.cpu-high:0.9}")
+    private double cpuHigh;
+
+    /**
+     * Whether fully saturated nodes store entries uncompressed instead of deflating them at level 1.
+     */
+    @Value("${app.archives.compression.allow-stored:true}")
+    private boolean allowStored;
+
+    private final AtomicInteger activeCompressions = new AtomicInteger();
+
+    private DoubleSupplier cpuLoad;
+
+    @PostConstruct
+    public void init() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            cpuLoad = os::getCpuLoad;
+        } else {
+            cpuLoad = () -> -1;
+        }
+    }
+
+    /**
+     * Picks the deflate level for an archive about to be compressed and counts the compression as active until the
+     * returned lease is closed. The level steps down from {@code max-level} as other compressions in flight or CPU
+     * usage rise.
+     *
+     * @return A lease carrying the chosen level; close it when the compression is done.
+     */
+
+    public Lease acquire() {
+        int othersInFlight = activeCompressions.getAndIncrement();
+        Decision decision = decide(othersInFlight);
+        metrics.recordCompressionLevel(decision.level(), decision.reason());
+
+        return new Lease(decision.level());
+    }
+
+    private Decision decide(int othersInFlight) {
+        if (!adaptive) {
+            return new Decision(Deflater.DEFAULT_COMPRESSION, REASON_FIXED);
+        }
+
+        double queuePressure = queueHigh > 0 ? (double) othersInFlight / queueHigh : 0;
+
+        double cpu = cpuLoad.getAsDouble();
+        double cpuPressure = cpu < 0 || cpuHigh <= cpuLow ? 0 : (cpu - cpuLow) / (cpuHigh - cpuLow);
+
+        double pressure = Math.clamp(Math.max(queuePressure, cpuPressure), 0, 1);
+        String reason = pressure == 0 ? REASON_IDLE : queuePressure >= cpuPressure ? REASON_QUEUE : REASON_CPU;
+
+        if (pressure >= 1) {
+            return new Decision(allowStored ? Deflater.NO_COMPRESSION : Deflater.BEST_SPEED, reason);
+        }
+
+        int top = Math.clamp(maxLevel, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION);
+        int level = (int) Math.round(top - pressure * (top - Deflater.BEST_SPEED));
+
+        return new Decision(level, reason);
+    }
+
+    private record Decision(int level, String reason) {
+    }
+
+    /**
+     * An active compression. The level is a {@link Deflater} level, {@code -1} for zlib's default.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final int level;
+        private boolean closed;
+
+        private Lease(int level) {
+            this.level = level;
+        }
+
+        public int level() {
+            return level;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                activeCompressions.decrementAndGet();
+            }
+        }
+    }
+}
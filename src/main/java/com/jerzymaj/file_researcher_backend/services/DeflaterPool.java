@@ -0,0 +1,105 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+
+@Component
+@RequiredArgsConstructor
+public class DeflaterPool {
+
+    private final ZipPipelineMetrics metrics;
+
+    /**
+     * Number of idle Deflaters (with their copy and output buffers) kept for reuse; {@code 0} disables pooling,
+     * a negative value keeps one per available processor.
+     */
+    @Value("${app.archives.deflater-pool.size:-1}")
+    private int size;
+
+    @Value("${app.archives.deflater-pool.buffer-bytes:65536}")
+    private int bufferBytes;
+
+    private int capacity;
+    private BlockingQueue<Slot> idle;
+
+    @PostConstruct
+    public void init() {
+        capacity = size < 0 ? Runtime.getRuntime().availableProcessors() : size;
+        idle = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Slot slot;
+        while ((slot = idle.poll()) != null) {
+            slot.deflater.end();
+        }
+    }
+
+    /**
+     * Hands out a raw-DEFLATE {@link Deflater} set to the given level, together with a copy buffer and an output
+     * buffer, until the returned lease is closed. Leases beyond the pool size get a one-off Deflater, ended on return.
+     *
+     * @param level The {@link Deflater} level, {@code -1} for zlib's default.
+     * @return A lease to close once the stream using the Deflater is closed.
+     */
+
+    public Lease borrow(int level) {
+        Slot slot = capacity > 0 ? idle.poll() : null;
+        metrics.recordDeflaterBorrow(slot != null);
+
+        if (slot == null) {
+            slot = new Slot(new Deflater(Deflater.DEFAULT_COMPRESSION, true), new byte[bufferBytes], new byte[bufferBytes]);
+        }
+        slot.deflater.setLevel(level);
+
+        return new Lease(slot);
+    }
+
+    private void giveBack(Slot slot) {
+        slot.deflater.reset();
+
+        if (capacity <= 0 || !idle.offer(slot)) {
+            slot.deflater.end();
+        }
+    }
+
+    private record Slot(Deflater deflater, byte[] buffer, byte[] outputBuffer) {
+    }
+
+    public final class Lease implements AutoCloseable {
+
+        private Slot slot;
+
+        private Lease(Slot slot) {
+            this.slot = slot;
+        }
+
+        public Deflater deflater() {
+            return slot.deflater;
+        }
+
+        public byte[] buffer() {
+            return slot.buffer;
+        }
+
+        public byte[] outputBuffer() {
+            return slot.outputBuffer;
+        }
+
+        @Override
+        public void close() {
+            if (slot != null) {
+                giveBack(slot);
+                slot = null;
+            }
+        }
+    }
+}
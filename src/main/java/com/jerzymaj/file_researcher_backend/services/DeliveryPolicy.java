@@ -0,0 +1,63 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.jerzymaj.file_researcher_backend.models.enum_classes.DeliveryMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Service
+public class DeliveryPolicy {
+
+    @Value("${app.delivery.link-threshold-bytes:20971520}")
+    private long linkThresholdBytes;
+
+    @Value("${app.delivery.links-enabled:true}")
+    private boolean linksEnabled;
+
+    @Value("${app.delivery.split-part-bytes:0}")
+    private long splitPartBytes;
+
+    /**
+     * Decides how an archive should reach the recipient. Archives above {@code app.delivery.link-threshold-bytes} are
+     * sent as a signed download link, unless links are disabled.
+     *
+     * @param archiveSize Size of the created archive in bytes.
+     * @return {@link DeliveryMode} to be used for the send.
+     */
+
+    public DeliveryMode resolveMode(long archiveSize) {
+        return linksEnabled && archiveSize > linkThresholdBytes ? DeliveryMode.DOWNLOAD_LINK : DeliveryMode.ATTACHMENT;
+    }
+
+    /**
+     * Decides how an archive should reach the recipient when its files could not be split into parts, because one
+     * of them alone is larger than {@code app.delivery.split-part-bytes}. An archive that is still above the part
+     * limit once compressed is sent as a download link, however low the link threshold is set.
+     *
+     * @param archiveSize Size of the created archive in bytes.
+     * @return {@link DeliveryMode} to be used for the send.
+     */
+
+    public DeliveryMode resolveUnsplittableMode(long archiveSize) {
+        return archiveSize > splitPartBytes ? DeliveryMode.DOWNLOAD_LINK : resolveMode(archiveSize);
+    }
+
+    /**
+     * Tells whether oversized file sets should be delivered as several size-bounded ZIP parts.
+     * When enabled, splitting takes precedence over download links, because the recipient
+     * receives the files themselves instead of a link that expires.
+     *
+     * @return {@code true} if {@code app.delivery.split-part-bytes} is configured.
+     */
+
+    public boolean isSplitEnabled() {
+        return splitPartBytes > 0;
+    }
+
+    public long getSplitPartBytes() {
+        return splitPartBytes;
+    }
+
+    public boolean isLinksEnabled() {
+        return linksEnabled;
+    }
+}
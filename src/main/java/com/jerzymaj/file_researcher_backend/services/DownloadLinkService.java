@@ -0,0 +1,127 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.jerzymaj.file_researcher_backend.DTOs.DownloadLink;
+import com.jerzymaj.file_researcher_backend.configuration.ApiRoutes;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+@Service
+public class DownloadLinkService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    /**
+     * Key of the link signatures. Has no default and is deliberately not the JWT secret, so a leaked
+     * link key cannot be used to forge login tokens, and the other way round.
+     */
+    @Value("${app.delivery.link-secret:}")
+    private String linkSecret;
+
+    @Value("${app.delivery.link-ttl:7d}")
+    private Duration linkTtl;
+
+    /**
+     * Base URL of the links put into emails. Has no default, as a guessed host would send
+     * recipients to a server they cannot reach.
+     */
+    @Value("${app.delivery.public-base-url:}")
+    private String publicBaseUrl;
+
+    @Value("${app.delivery.links-enabled:true}")
+    private boolean linksEnabled;
+
+    private SecretKeySpec signingKey;
+
+    private Clock clock = Clock.systemUTC();
+
+    @PostConstruct
+    public void init() {
+        if (linksEnabled && !StringUtils.hasText(publicBaseUrl)) {
+            throw new IllegalStateException("app.delivery.public-base-url (PUBLIC_BASE_URL) must be set while link "
+                    + "delivery is enabled; set it or disable links with app.delivery.links-enabled=false");
+        }
+        if (linksEnabled && !StringUtils.hasText(linkSecret)) {
+            throw new IllegalStateException("app.delivery.link-secret (DELIVERY_LINK_SECRET) must be set while link "
+                    + "delivery is enabled; set it or disable links with app.delivery.links-enabled=false");
+        }
+        // links issued before they were disabled keep working as long as the secret stays
+        if (StringUtils.hasText(linkSecret)) {
+            this.signingKey = new SecretKeySpec(linkSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        }
+    }
+
+    /**
+     * Creates a public, expiring download link for a retained archive.
+     * The link carries an HMAC of the archive ID and expiry time, so it cannot be
+     * forged or extended without the server-side secret.
+     *
+     * @param zipArchiveId ID of the retained ZipArchive.
+     * @return {@link DownloadLink} pointing to the public download endpoint, with its expiry time.
+     */
+
+    public DownloadLink createLink(Long zipArchiveId) {
+        Instant expiresAt = clock.instant().plus(linkTtl);
+        long expires = expiresAt.getEpochSecond();
+
+        URI uri = UriComponentsBuilder.fromUriString(publicBaseUrl)
+                .path(ApiRoutes.DOWNLOADS + "/{zipArchiveId}")
+                .queryParam("expires", expires)
+                .queryParam("signature", sign(zipArchiveId, expires))
+                .buildAndExpand(zipArchiveId)
+                .toUri();
+
+        return new DownloadLink(uri, Instant.ofEpochSecond(expires));
+    }
+
+    /**
+     * Checks that a download link was issued by this server and has not expired.
+     *
+     * @param zipArchiveId ID of the ZipArchive taken from the link.
+     * @param expires      Expiry time in epoch seconds taken from the link.
+     * @param signature    Signature taken from the link.
+     * @throws AccessDeniedException if the signature does not match or the link has expired.
+     */
+
+    public void verifyLink(Long zipArchiveId, long expires, String signature) throws AccessDeniedException {
+        if (signingKey == null || signature == null || !MessageDigest.isEqual(
+                sign(zipArchiveId, expires).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII))) {
+            throw new AccessDeniedException("Invalid download link.");
+        }
+
+        if (clock.instant().getEpochSecond() > expires) {
+            throw new AccessDeniedException("Download link has expired.");
+        }
+    }
+
+    public Duration getLinkTtl() {
+        return linkTtl;
+    }
+
+    private String sign(Long zipArchiveId, long expires) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            byte[] digest = mac.doFinal((zipArchiveId + ":" + expires).getBytes(StandardCharsets.UTF_8));
+
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Unable to sign download link", ex);
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.jerzymaj.file_researcher_backend.models.EmailOutbox;
+import com.jerzymaj.file_researcher_backend.models.SentHistory;
+import com.jerzymaj.file_researcher_backend.models.ZipArchive;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.DeliveryMode;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.OutboxStatus;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.SendStatus;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.TaskStage;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.AddressException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxDispatcher {
+
+    private final EmailOutboxService emailOutboxService;
+    private final ZipEmailSender zipEmailSender;
+    private final DownloadLinkService downloadLinkService;
+    private final ZipArchiveStatusService zipArchiveStatusService;
+    private final SentHistoryService sentHistoryService;
+    private final ArchiveStorage archiveStorage;
+    private final ProgressNotifier progressNotifier;
+    private final SmtpRateGovernor smtpRateGovernor;
+    private final ZipPipelineMetrics metrics;
+    private final TaskRegistry taskRegistry;
+
+    @Value("${app.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.outbox.initial-backoff:30s}")
+    private Duration initialBackoff;
+
+    @Value("${app.outbox.max-backoff:30m}")
+    private Duration maxBackoff;
+
+    @Value("${app.outbox.dispatch-parallelism:4}")
+    private int parallelism;
+
+    private ExecutorService dispatchExecutor;
+    private Semaphore freeSlots;
+
+    @PostConstruct
+    public void init() {
+        freeSlots = new Semaphore(parallelism);
+        dispatchExecutor = Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().name("email-outbox-", 0).factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatchExecutor.shutdown();
+    }
+
+    /**
+     * Picks up due outbox entries and sends them on the dispatch pool.
+     * Entries are claimed with a versioned update, as a lease that lets the entry become due again if this
+     * instance dies mid-send. Only as many entries are claimed as there are idle dispatch threads,
+     * so a claimed entry never waits in the executor queue while its lease runs out.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:2s}")
+    public void dispatchDue() {
+        int idleSlots = Math.min(batchSize, freeSlots.availablePermits());
+        if (idleSlots == 0) {
+            return;
+        }
+
+        for (EmailOutbox entry : emailOutboxService.findDue(idleSlots)) {
+            if (!freeSlots.tryAcquire()) {
+                return;
+            }
+            if (!emailOutboxService.claim(entry)) {
+                freeSlots.release();
+                continue;
+            }
+
+            try {
+                dispatchExecutor.execute(() -> {
+                    try {
+                        deliver(entry);
+                    } finally {
+                        freeSlots.release();
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                freeSlots.release();
+                log.warn("Outbox dispatcher is shutting down, entry {} will be retried after its lease", entry.getId());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sends a single claimed entry and records the outcome.
+     * Transient send failures are rescheduled; permanent failures and exhausted retries finalize the delivery as failed.
+     * Once the message has been accepted, the entry is never rescheduled, whatever happens during the bookkeeping.
+     *
+     * @param entry A claimed outbox entry with its archive and FileSet fetched.
+     */
+
+    public void deliver(EmailOutbox entry) {
+        taskRegistry.transition(entry.getTaskId(), TaskStage.SENDING, "Sending to " + entry.getRecipientEmail()
+                + (entry.getPartNumber() != null ? " (part " + entry.getPartNumber() + ")" : ""));
+        String warning = null;
+        try {
+            if (!send(entry)) {
+                log.warn("Lease of outbox entry {} expired before sending, leaving it to its new owner", entry.getId());
+                return;
+            }
+        } catch (Exception ex) {
+            if (!isGmailSecurityWarning(ex)) {
+                onFailure(entry, ex);
+                return;
+            }
+            log.warn("Detected Gmail 552-5.7.0 security warning. Message likely delivered. Finalizing as SUCCESS.");
+            metrics.recordGmailWarning();
+            warning = "Sent with Gmail security warning";
+        }
+
+        try {
+            onDelivered(entry, warning);
+        } catch (RuntimeException ex) {
+            log.error("Outbox entry {} was sent, but recording the delivery failed; it will not be sent again", entry.getId(), ex);
+        }
+    }
+
+    /**
+     * Sends the email of a claimed entry once the rate limit allows it. The lease is extended to cover
+     * the rate-limit wait, and checked once more right before sending.
+     *
+     * @return {@code false} if the claim was lost while waiting and nothing was sent.
+     */
+    private boolean send(EmailOutbox entry) throws Exception {
+        long attachmentBytes = entry.getAttachmentSize() != null ? entry.getAttachmentSize() : 0;
+
+        try (SmtpRateGovernor.SendPermit ignored = smtpRateGovernor.acquire(attachmentBytes, delay -> {
+            emailOutboxService.renewLease(entry, delay);
+            progressNotifier.publish(entry.getTaskId(), 95, "Waiting for the mail provider's rate limit, sending in ~"
+                    + Math.max(1, delay.toSeconds()) + "s");
+        })) {
+            if (!emailOutboxService.renewLease(entry, Duration.ZERO)) {
+                return false;
+            }
+
+            Timer.Sample sample = metrics.startTimer();
+            String outcome = ZipPipelineMetrics.OUTCOME_FAILURE;
+            try {
+                sendMessage(entry);
+                outcome = ZipPipelineMetrics.OUTCOME_SUCCESS;
+            } catch (Exception ex) {
+                if (isGmailSecurityWarning(ex)) {
+                    outcome = "gmail_warning";
+                }
+                throw ex;
+            } finally {
+                metrics.stopTimer(sample, ZipPipelineMetrics.Stage.SMTP_SEND, outcome);
+            }
+        }
+        return true;
+    }
+
+    private void sendMessage(EmailOutbox entry) throws Exception {
+        ZipArchive zipArchive = entry.getZipArchive();
+        String messageId = emailOutboxService.messageId(entry);
+
+        if (zipArchive.getDeliveryMode() == DeliveryMode.DOWNLOAD_LINK) {
+            zipEmailSender.sendDownloadLinkByEmail(entry.getRecipientEmail(),
+                    downloadLinkService.createLink(zipArchive.getId()), "Files",
+                    "The ZIP archive of requested files is too large to attach. You can download it here:", messageId);
+        } else if (entry.getPartNumber() != null) {
+            zipEmailSender.sendZipArchiveByEmail(entry.getRecipientEmail(), Path.of(entry.getAttachmentPath()),
+                    "Files (part " + entry.getPartNumber() + " of " + zipArchive.getPartCount() + ")",
+                    "Please find attached part " + entry.getPartNumber() + " of " + zipArchive.getPartCount()
+                            + " of the ZIP archive of requested files", messageId);
+        } else {
+            zipEmailSender.sendZipArchiveByEmail(entry.getRecipientEmail(), Path.of(entry.getAttachmentPath()),
+                    "Files", "Please find attached the ZIP archive of requested files", messageId);
+        }
+    }
+
+    private void onDelivered(EmailOutbox entry, String warning) {
+        ZipArchive zipArchive = entry.getZipArchive();
+
+        if (!emailOutboxService.markSent(entry, warning)) {
+            return;
+        }
+
+        if (isBatch(zipArchive)) {
+            finalizeBatchArchive(entry);
+            return;
+        }
+
+        sentHistoryService.saveSentHistory(zipArchive, entry.getRecipientEmail(), true, warning, entry.getPartNumber());
+        cleanUp(entry);
+
+        if (entry.getPartNumber() != null) {
+            finalizeSplitArchive(entry);
+            return;
+        }
+
+        zipArchiveStatusService.updateDatabaseAfterSuccess(zipArchive.getId(), zipArchive.getFileSet().getId());
+        progressNotifier.publish(entry.getTaskId(), 100, warning == null ? "Completed!" : "Completed with warnings");
+    }
+
+    private void onFailure(EmailOutbox entry, Exception ex) {
+        int attempts = entry.getAttempts() + 1;
+
+        if (!isPermanent(ex) && attempts < maxAttempts) {
+            Duration delay = backoff(attempts);
+            log.warn("Delivery of outbox entry {} failed (attempt {} of {}), retrying in {}s: {}",
+                    entry.getId(), attempts, maxAttempts, delay.toSeconds(), ex.getMessage());
+
+            if (!emailOutboxService.reschedule(entry, LocalDateTime.now().plus(delay), ex.getMessage())) {
+                return;
+            }
+            progressNotifier.publish(entry.getTaskId(), 95,
+                    "Email delivery failed, retrying in " + delay.toSeconds() + "s (attempt " + attempts + " of " + maxAttempts + ")");
+            return;
+        }
+
+        log.error("CRITICAL DELIVERY FAILURE: {}", ex.getMessage());
+        ZipArchive zipArchive = entry.getZipArchive();
+
+        if (!emailOutboxService.markFailed(entry, ex.getMessage())) {
+            return;
+        }
+
+        if (isBatch(zipArchive)) {
+            finalizeBatchArchive(entry);
+            return;
+        }
+
+        cleanUp(entry);
+
+        if (entry.getPartNumber() != null) {
+            sentHistoryService.saveSentHistory(zipArchive, entry.getRecipientEmail(), false, ex.getMessage(), entry.getPartNumber());
+            finalizeSplitArchive(entry);
+            return;
+        }
+
+        zipArchiveStatusService.updateDatabaseAfterFailure(zipArchive.getId(), ex.getMessage());
+        progressNotifier.publish(entry.getTaskId(), -1, "Error: " + ex.getMessage());
+    }
+
+    /**
+     * Finalizes a split archive once every one of its parts has reached a terminal outbox state.
+     * Parts finish concurrently, so every finished part checks, and only the one that wins the final
+     * status switch reports the outcome.
+     */
+    private void finalizeSplitArchive(EmailOutbox entry) {
+        ZipArchive zipArchive = entry.getZipArchive();
+        List<EmailOutbox> parts = emailOutboxService.findAllForZipArchive(zipArchive.getId());
+
+        long finishedParts = parts.stream()
+                .filter(this::isTerminal)
+                .count();
+        int partCount = zipArchive.getPartCount();
+
+        if (parts.size() < partCount || finishedParts < partCount) {
+            progressNotifier.publish(entry.getTaskId(), 90 + (int) (9 * finishedParts / partCount),
+                    "Sent part " + finishedParts + " of " + partCount);
+            return;
+        }
+
+        boolean allPartsSent = parts.stream().allMatch(part -> part.getStatus() == OutboxStatus.SENT);
+        long totalSize = parts.stream()
+                .map(EmailOutbox::getAttachmentSize)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .sum();
+
+        if (!zipArchiveStatusService.updateDatabaseAfterSplitDelivery(zipArchive.getId(),
+                zipArchive.getFileSet().getId(), totalSize, allPartsSent)) {
+            return;
+        }
+
+        if (allPartsSent) {
+            progressNotifier.publish(entry.getTaskId(), 100, "Completed!");
+        } else {
+            long failedParts = parts.stream().filter(part -> part.getStatus() == OutboxStatus.FAILED).count();
+            progressNotifier.publish(entry.getTaskId(), -1, "Error: " + failedParts + " of " + partCount
+                    + " parts could not be sent");
+        }
+    }
+
+    /**
+     * Finalizes an archive sent to several recipients once every recipient's email has reached a terminal
+     * outbox state. All recipients share one attachment, so it is only cleaned up at this point, and the
+     * sent history of all recipients is written in one batch from the final outbox states.
+     */
+    private void finalizeBatchArchive(EmailOutbox entry) {
+        ZipArchive zipArchive = entry.getZipArchive();
+        List<EmailOutbox> recipients = emailOutboxService.findAllForZipArchive(zipArchive.getId());
+
+        long finishedRecipients = recipients.stream().filter(this::isTerminal).count();
+        int recipientCount = recipients.size();
+
+        if (finishedRecipients < recipientCount) {
+            progressNotifier.publish(entry.getTaskId(), 95 + (int) (4 * finishedRecipients / recipientCount),
+                    "Sent to " + finishedRecipients + " of " + recipientCount + " recipients");
+            return;
+        }
+
+        List<SentHistory> sentHistories = recipients.stream()
+                .map(recipient -> SentHistory.builder()
+                        .zipArchive(zipArchive)
+                        .sentToEmail(recipient.getRecipientEmail())
+                        .status(recipient.getStatus() == OutboxStatus.SENT ? SendStatus.SUCCESS : SendStatus.FAILURE)
+                        .errorMessage(recipient.getLastError())
+                        .build())
+                .toList();
+
+        if (!zipArchiveStatusService.updateDatabaseAfterBatchDelivery(zipArchive.getId(),
+                zipArchive.getFileSet().getId(), sentHistories)) {
+            return;
+        }
+
+        cleanUp(entry);
+
+        long failedRecipients = recipients.stream().filter(recipient -> recipient.getStatus() == OutboxStatus.FAILED).count();
+        if (failedRecipients == 0) {
+            progressNotifier.publish(entry.getTaskId(), 100, "Completed!");
+        } else {
+            progressNotifier.publish(entry.getTaskId(), -1, "Error: " + failedRecipients + " of " + recipientCount
+                    + " recipients could not be reached");
+        }
+    }
+
+    private boolean isBatch(ZipArchive zipArchive) {
+        return zipArchive.getRecipientCount() != null && zipArchive.getRecipientCount() > 1;
+    }
+
+    private boolean isTerminal(EmailOutbox entry) {
+        return entry.getStatus() == OutboxStatus.SENT || entry.getStatus() == OutboxStatus.FAILED;
+    }
+
+    /**
+     * Exponential backoff with "equal jitter": half of the delay is fixed, the other half random,
+     * so retries of many failed entries do not hit the mail server at the same moment.
+     */
+    private Duration backoff(int attempts) {
+        long baseMillis = initialBackoff.toMillis() << Math.min(attempts - 1, 20);
+        long cappedMillis = Math.min(baseMillis, maxBackoff.toMillis());
+        long halfMillis = cappedMillis / 2;
+
+        return Duration.ofMillis(halfMillis + ThreadLocalRandom.current().nextLong(halfMillis + 1));
+    }
+
+    /**
+     * SMTP 5xx replies and malformed addresses will fail again on every retry,
+     * unlike connection problems and 4xx replies, which are worth retrying.
+     */
+    private boolean isPermanent(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AddressException) {
+                return true;
+            }
+            if (cause instanceof SMTPAddressFailedException addressFailed && addressFailed.getReturnCode() >= 500) {
+                return true;
+            }
+            if (cause instanceof SMTPSendFailedException sendFailed && sendFailed.getReturnCode() >= 500) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isGmailSecurityWarning(Exception ex) {
+        return ex.getMessage() != null && ex.getMessage().contains("552-5.7.0");
+    }
+
+    /**
+     * Removes the attachment once the delivery is final, unless archives are retained for download.
+     */
+    private void cleanUp(EmailOutbox entry) {
+        if (entry.getAttachmentPath() == null || archiveStorage.isRetainEnabled()) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(Path.of(entry.getAttachmentPath()));
+        } catch (IOException ex) {
+            log.warn("Could not delete sent attachment: {}", entry.getAttachmentPath(), ex);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.jerzymaj.file_researcher_backend.models.EmailOutbox;
+import com.jerzymaj.file_researcher_backend.models.ZipArchive;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.OutboxStatus;
+import com.jerzymaj.file_researcher_backend.repositories.EmailOutboxRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+
+    @Value("${app.outbox.lease:10m}")
+    private Duration lease;
+
+    /**
+     * Queues an email for a registered archive, in the caller's transaction. Its idempotency key, unique per archive
+     * and part, doubles as the Message-ID of the email.
+     *
+     * @param zipArchive     The registered archive.
+     * @param partNumber     Number of the part for split archives, {@code null} otherwise.
+     * @param attachmentPath File to attach, or {@code null} when only a link is sent.
+     * @param taskId         Task ID used for progress updates.
+     * @return The saved {@link EmailOutbox} entry.
+     * @throws IOException If the size of the attachment cannot be read.
+     */
+
+    @Transactional
+    public EmailOutbox enqueue(ZipArchive zipArchive, Integer partNumber, Path attachmentPath, String taskId) throws IOException {
+        return emailOutboxRepository.save(buildEntry(zipArchive, zipArchive.getRecipientEmail(),
+                idempotencyKey(zipArchive.getId(), partNumber), partNumber, attachmentPath, taskId));
+    }
+
+    /**
+     * Queues one email per recipient for the same archive, so a single compression serves all of them.
+     * Every recipient gets its own entry, and with it its own retries and its own delivery outcome.
+     *
+     * @param zipArchive     The registered archive.
+     * @param recipients     Distinct recipient addresses.
+     * @param attachmentPath File to attach, or {@code null} when only a link is sent.
+     * @param taskId         Task ID used for progress updates.
+     * @return The saved {@link EmailOutbox} entries, in recipient order.
+     * @throws IOException If the size of the attachment cannot be read.
+     */
+
+    @Transactional
+    public List<EmailOutbox> enqueueForRecipients(ZipArchive zipArchive, List<String> recipients, Path attachmentPath,
+                                                  String taskId) throws IOException {
+        List<EmailOutbox> entries = new ArrayList<>();
+
+        for (int index = 0; index < recipients.size(); index++) {
+            entries.add(buildEntry(zipArchive, recipients.get(index),
+                    "zip-" + zipArchive.getId() + "-rcpt-" + (index + 1), null, attachmentPath, taskId));
+        }
+
+        return emailOutboxRepository.saveAll(entries);
+    }
+
+    /**
+     * Returns entries that are due for sending, including entries whose sending lease ran out
+     * because the instance processing them stopped. Archive and FileSet are fetched eagerly,
+     * as the entries are processed outside of a persistence context.
+     *
+     * @param batchSize Maximum number of entries to return.
+     * @return Due entries, oldest first.
+     */
+
+    public List<EmailOutbox> findDue(int batchSize) {
+        return emailOutboxRepository.findDue(EnumSet.of(OutboxStatus.PENDING, OutboxStatus.SENDING),
+                LocalDateTime.now(), PageRequest.of(0, batchSize));
+    }
+
+    /**
+     * Claims an entry for sending with a compare-and-set on its version. Only one dispatcher,
+     * in this or another instance, can win the claim for a given version of the entry.
+     * On success the entry carries the claimed version, which every later update of the claim checks.
+     *
+     * @param entry The entry as returned by {@link #findDue}.
+     * @return {@code true} if the caller now owns the entry until the lease expires.
+     */
+
+    @Transactional
+    public boolean claim(EmailOutbox entry) {
+        return advanceVersion(entry, emailOutboxRepository.claim(entry.getId(), entry.getVersion(), OutboxStatus.SENDING,
+                LocalDateTime.now().plus(lease)));
+    }
+
+    /**
+     * Extends the lease of a claimed entry to a full lease after the given wait.
+     *
+     * @param entry A claimed entry.
+     * @param wait  Time the caller is about to wait before sending.
+     * @return {@code false} if the lease has expired and the entry was claimed by someone else.
+     */
+
+    @Transactional
+    public boolean renewLease(EmailOutbox entry, Duration wait) {
+        return advanceVersion(entry, emailOutboxRepository.renewLease(entry.getId(), entry.getVersion(),
+                OutboxStatus.SENDING, LocalDateTime.now().plus(wait).plus(lease)));
+    }
+
+    /**
+     * Marks a claimed entry as delivered.
+     *
+     * @param entry   A claimed entry.
+     * @param warning Warning reported by the server for an accepted message, or {@code null}.
+     * @return {@code false} if the claim had been lost to another dispatcher.
+     */
+
+    @Transactional
+    public boolean markSent(EmailOutbox entry, String warning) {
+        return release(entry, OutboxStatus.SENT, null, warning);
+    }
+
+    @Transactional
+    public boolean markFailed(EmailOutbox entry, String errorMessage) {
+        return release(entry, OutboxStatus.FAILED, null, truncate(errorMessage));
+    }
+
+    @Transactional
+    public boolean reschedule(EmailOutbox entry, LocalDateTime nextAttemptAt, String errorMessage) {
+        return release(entry, OutboxStatus.PENDING, nextAttemptAt, truncate(errorMessage));
+    }
+
+    public List<EmailOutbox> findAllForZipArchive(Long zipArchiveId) {
+        return emailOutboxRepository.findAllByZipArchiveId(zipArchiveId);
+    }
+
+    /**
+     * Builds the Message-ID header value of the email behind an outbox entry.
+     *
+     * @param entry The outbox entry.
+     * @return A Message-ID that stays the same across retries.
+     */
+
+    public String messageId(EmailOutbox entry) {
+        return "<" + entry.getIdempotencyKey() + "@file-researcher>";
+    }
+
+    private EmailOutbox buildEntry(ZipArchive zipArchive, String recipientEmail, String idempotencyKey,
+                                   Integer partNumber, Path attachmentPath, String taskId) throws IOException {
+        return EmailOutbox.builder()
+                .idempotencyKey(idempotencyKey)
+                .zipArchive(zipArchive)
+                .partNumber(partNumber)
+                .attachmentPath(attachmentPath != null ? attachmentPath.toAbsolutePath().toString() : null)
+                .attachmentSize(attachmentPath != null ? Files.size(attachmentPath) : null)
+                .recipientEmail(recipientEmail)
+                .taskId(taskId)
+                .status(OutboxStatus.PENDING)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
+
+    private boolean release(EmailOutbox entry, OutboxStatus status, LocalDateTime nextAttemptAt, String lastError) {
+        if (!advanceVersion(entry, emailOutboxRepository.release(entry.getId(), entry.getVersion(), status,
+                nextAttemptAt, lastError))) {
+            log.warn("Outbox entry {} was claimed by another dispatcher, not marking it {}", entry.getId(), status);
+            return false;
+        }
+        entry.setStatus(status);
+        entry.setLastError(lastError);
+        return true;
+    }
+
+    private boolean advanceVersion(EmailOutbox entry, int updatedRows) {
+        if (updatedRows != 1) {
+            return false;
+        }
+        entry.setVersion(entry.getVersion() + 1);
+        return true;
+    }
+
+    private String idempotencyKey(Long zipArchiveId, Integer partNumber) {
+        return "zip-" + zipArchiveId + (partNumber != null ? "-part-" + partNumber : "");
+    }
+
+    private String truncate(String errorMessage) {
+        if (errorMessage == null || errorMessage.length() <= MAX_ERROR_LENGTH) {
+            return errorMessage;
+        }
+        return errorMessage.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -26,6 +26,8 @@ public class FileSetService {
     private final FileEntryRepository fileEntryRepository;
     private final FileSetRepository fileSetRepository;
     private final AuthFacade authFacade;
+    private final CascadeDeletionService cascadeDeletionService;
+    private final ArchiveStorage archiveStorage;
 
     @Transactional
     public FileSet createFileSetFromUploadedFiles(String name,
@@ -75,7 +77,7 @@ public class FileSetService {
 
     public void deleteFileSetById(Long fileSetId) throws AccessDeniedException {
         FileSet fileSet = getFileSetForCurrentUser(fileSetId);
-        fileSetRepository.deleteById(fileSet.getId());
+        cascadeDeletionService.deleteFileSet(fileSet.getId()).forEach(archiveStorage::delete);
     }
 
     /**
@@ -0,0 +1,45 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.jerzymaj.file_researcher_backend.models.ZipArchive;
+import com.jerzymaj.file_researcher_backend.repositories.ZipArchiveRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LinkArchivePurger {
+
+    private final ZipArchiveRepository zipArchiveRepository;
+    private final ArchiveStorage archiveStorage;
+    private final DownloadLinkService downloadLinkService;
+
+    /**
+     * Removes the files of archives that were kept only to back a download link, once every link has expired.
+     * The archive rows stay, so the send history is not affected. With {@code app.archives.retain} enabled
+     * archives are kept for their owners on purpose and nothing is purged.
+     */
+    @Scheduled(fixedDelayString = "${app.delivery.purge-interval:1h}")
+    @Transactional
+    public void purgeExpiredLinkArchives() {
+        if (archiveStorage.isRetainEnabled()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<ZipArchive> expired = zipArchiveRepository.findLinkArchivesExpiredBefore(now.minus(downloadLinkService.getLinkTtl()));
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        expired.forEach(archiveStorage::delete);
+        zipArchiveRepository.markFilesPurged(expired.stream().map(ZipArchive::getId).toList(), now);
+        log.info("Purged the files of {} archives with expired download links", expired.size());
+    }
+}
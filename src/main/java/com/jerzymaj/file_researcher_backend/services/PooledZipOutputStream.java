@@ -0,0 +1,411 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * Writes a ZIP file with the {@link Deflater} and output buffer of a {@link DeflaterPool.Lease}, so an archive
+ * creates no zlib stream of its own. The CRC-32 and sizes of an entry are patched into its local header once the
+ * entry is complete, so no data descriptors are written; ZIP64 fields are added only where a size, an offset or
+ * the entry count needs them.
+ * <p>
+ * Entries are either written between {@link #putNextEntry} and {@link #closeEntry()}, or copied as they are
+ * with {@link #addRawEntry}. The central directory is written by {@link #finish()} only; a stream closed without
+ * it leaves an incomplete file that no reader takes for an archive. The lease must stay open until this stream
+ * is closed.
+ * </p>
+ */
+public class PooledZipOutputStream extends OutputStream {
+
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_SHORT = 0xFFFF;
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final short ZIP64_EXTRA_ID = 0x0001;
+    private static final short UTF8_FLAG = 1 << 11;
+    private static final short VERSION = 20;
+    private static final short ZIP64_VERSION = 45;
+
+    private static final LocalDateTime DOS_EPOCH = LocalDateTime.of(1980, 1, 1, 0, 0);
+
+    private final FileChannel channel;
+    private final Deflater deflater;
+    private final byte[] outputBuffer;
+    private final CRC32 crc = new CRC32();
+    private final List<CentralEntry> entries = new ArrayList<>();
+    private final long zip64Limit;
+    private final long zip64EntryThreshold;
+
+    private long position;
+    private OpenEntry current;
+    private boolean finished;
+
+    public PooledZipOutputStream(Path path, DeflaterPool.Lease lease) throws IOException {
+        this(path, lease, ZIP64_MAGIC);
+    }
+
+    /**
+     * Creates a stream that switches sizes and offsets to ZIP64 fields from {@code zip64Limit} on instead of
+     * from 4 GiB, so the ZIP64 layout can be produced on small files.
+     */
+    public PooledZipOutputStream(Path path, DeflaterPool.Lease lease, long zip64Limit) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        deflater = lease.deflater();
+        outputBuffer = lease.outputBuffer();
+        this.zip64Limit = zip64Limit;
+        // leaves room for the few bytes DEFLATE adds to incompressible data
+        zip64EntryThreshold = zip64Limit - (zip64Limit >>> 8);
+    }
+
+    /**
+     * Starts a new entry, closing the current one.
+     *
+     * @param method   {@link ZipEntry#DEFLATED} or {@link ZipEntry#STORED}.
+     * @param time     Modification time in epoch milliseconds.
+     * @param sizeHint Expected uncompressed size, used to decide on ZIP64 sizes up front.
+     */
+    public void putNextEntry(String name, int method, long time, long sizeHint) throws IOException {
+        if (method != ZipEntry.DEFLATED && method != ZipEntry.STORED) {
+            throw new ZipException("Unsupported compression method: " + method);
+        }
+        closeEntry();
+
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int dosTime = dosTime(time);
+        boolean zip64 = sizeHint >= zip64EntryThreshold;
+        long offset = position;
+
+        writeLocalHeader(nameBytes, method, dosTime, 0, 0, 0, zip64);
+        current = new OpenEntry(name, nameBytes, method, dosTime, offset, position, zip64);
+        crc.reset();
+    }
+
+    /**
+     * Copies an entry as compressed bytes, e.g. from another archive, without inflating or deflating it.
+     *
+     * @param rawData Exactly {@code compressedSize} bytes of entry data.
+     */
+    public void addRawEntry(String name, int method, long time, long entryCrc, long compressedSize, long size,
+                     InputStream rawData) throws IOException {
+        closeEntry();
+
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int dosTime = dosTime(time);
+        long offset = position;
+
+        writeLocalHeader(nameBytes, method, dosTime, entryCrc, compressedSize, size,
+                size >= zip64Limit || compressedSize >= zip64Limit);
+
+        long copied = 0;
+        int length;
+        while ((length = rawData.read(outputBuffer)) != -1) {
+            writeOut(outputBuffer, 0, length);
+            copied += length;
+        }
+        if (copied != compressedSize) {
+            throw new ZipException("Raw data of " + name + " has " + copied + " bytes, expected " + compressedSize);
+        }
+
+        entries.add(new CentralEntry(name, nameBytes, method, dosTime, entryCrc, compressedSize, size, offset));
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (current == null) {
+            throw new ZipException("No current ZIP entry");
+        }
+        crc.update(b, off, len);
+        current.size += len;
+
+        if (current.method == ZipEntry.STORED) {
+            writeOut(b, off, len);
+            return;
+        }
+
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            deflate();
+        }
+    }
+
+    public void closeEntry() throws IOException {
+        if (current == null) {
+            return;
+        }
+
+        if (current.method == ZipEntry.DEFLATED) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+            deflater.reset();
+        }
+
+        long compressedSize = position - current.dataOffset;
+        patchLocalHeader(current, crc.getValue(), compressedSize);
+        entries.add(new CentralEntry(current.name, current.nameBytes, current.method, current.dosTime, crc.getValue(),
+                compressedSize, current.size, current.offset));
+        current = null;
+    }
+
+    /**
+     * Names of the entries written so far, in order.
+     */
+    public List<String> entryNames() {
+        return entries.stream().map(CentralEntry::name).toList();
+    }
+
+    /**
+     * Closes the current entry and writes the central directory, completing the archive. Call it once every entry
+     * has been written; {@link #close()} alone does not.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        closeEntry();
+
+        long centralOffset = position;
+        for (CentralEntry entry : entries) {
+            writeCentralHeader(entry);
+        }
+        long centralSize = position - centralOffset;
+
+        if (entries.size() >= ZIP64_MAGIC_SHORT || centralOffset >= zip64Limit || centralSize >= zip64Limit) {
+            writeZip64End(centralOffset, centralSize);
+        }
+
+        ByteBuffer end = header(22);
+        end.putInt(END_SIGNATURE);
+        end.putShort((short) 0);
+        end.putShort((short) 0);
+        end.putShort((short) Math.min(entries.size(), ZIP64_MAGIC_SHORT));
+        end.putShort((short) Math.min(entries.size(), ZIP64_MAGIC_SHORT));
+        end.putInt(field32(centralSize));
+        end.putInt(field32(centralOffset));
+        end.putShort((short) 0);
+        writeOut(end.flip());
+
+        finished = true;
+    }
+
+    /**
+     * Closes the file. Without a preceding {@link #finish()}, e.g. when the build failed midway, no central
+     * directory is written and the file is not a readable archive.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void deflate() throws IOException {
+        int length = deflater.deflate(outputBuffer, 0, outputBuffer.length);
+        if (length > 0) {
+            writeOut(outputBuffer, 0, length);
+        }
+    }
+
+    private void writeLocalHeader(byte[] nameBytes, int method, int dosTime, long entryCrc, long compressedSize,
+                                  long size, boolean zip64) throws IOException {
+        ByteBuffer header = header(30 + nameBytes.length + (zip64 ? 20 : 0));
+        header.putInt(LOCAL_HEADER_SIGNATURE);
+        header.putShort(zip64 ? ZIP64_VERSION : VERSION);
+        header.putShort(UTF8_FLAG);
+        header.putShort((short) method);
+        header.putInt(dosTime);
+        header.putInt((int) entryCrc);
+        header.putInt(zip64 ? (int) ZIP64_MAGIC : (int) compressedSize);
+        header.putInt(zip64 ? (int) ZIP64_MAGIC : (int) size);
+        header.putShort((short) nameBytes.length);
+        header.putShort((short) (zip64 ? 20 : 0));
+        header.put(nameBytes);
+        if (zip64) {
+            header.putShort(ZIP64_EXTRA_ID);
+            header.putShort((short) 16);
+            header.putLong(size);
+            header.putLong(compressedSize);
+        }
+        writeOut(header.flip());
+    }
+
+    private void patchLocalHeader(OpenEntry entry, long entryCrc, long compressedSize) throws IOException {
+        if (!entry.zip64 && (entry.size >= zip64Limit || compressedSize >= zip64Limit)) {
+            throw new ZipException("Entry " + entry.name + " outgrew the size announced for it");
+        }
+
+        ByteBuffer crcField = header(4);
+        crcField.putInt((int) entryCrc);
+        writeAt(crcField.flip(), entry.offset + 14);
+
+        if (entry.zip64) {
+            ByteBuffer sizes = header(16);
+            sizes.putLong(entry.size);
+            sizes.putLong(compressedSize);
+            writeAt(sizes.flip(), entry.offset + 30 + entry.nameBytes.length + 4);
+        } else {
+            ByteBuffer sizes = header(8);
+            sizes.putInt((int) compressedSize);
+            sizes.putInt((int) entry.size);
+            writeAt(sizes.flip(), entry.offset + 18);
+        }
+    }
+
+    private void writeCentralHeader(CentralEntry entry) throws IOException {
+        boolean zip64Size = entry.size >= zip64Limit;
+        boolean zip64CompressedSize = entry.compressedSize >= zip64Limit;
+        boolean zip64Offset = entry.offset >= zip64Limit;
+        int extraData = (zip64Size ? 8 : 0) + (zip64CompressedSize ? 8 : 0) + (zip64Offset ? 8 : 0);
+        int extraLength = extraData == 0 ? 0 : 4 + extraData;
+        short version = extraLength == 0 ? VERSION : ZIP64_VERSION;
+
+        ByteBuffer header = header(46 + entry.nameBytes.length + extraLength);
+        header.putInt(CENTRAL_HEADER_SIGNATURE);
+        header.putShort(version);
+        header.putShort(version);
+        header.putShort(UTF8_FLAG);
+        header.putShort((short) entry.method);
+        header.putInt(entry.dosTime);
+        header.putInt((int) entry.crc);
+        header.putInt(field32(entry.compressedSize));
+        header.putInt(field32(entry.size));
+        header.putShort((short) entry.nameBytes.length);
+        header.putShort((short) extraLength);
+        header.putShort((short) 0);
+        header.putShort((short) 0);
+        header.putShort((short) 0);
+        header.putInt(0);
+        header.putInt(field32(entry.offset));
+        header.put(entry.nameBytes);
+        if (extraLength > 0) {
+            header.putShort(ZIP64_EXTRA_ID);
+            header.putShort((short) extraData);
+            if (zip64Size) {
+                header.putLong(entry.size);
+            }
+            if (zip64CompressedSize) {
+                header.putLong(entry.compressedSize);
+            }
+            if (zip64Offset) {
+                header.putLong(entry.offset);
+            }
+        }
+        writeOut(header.flip());
+    }
+
+    private void writeZip64End(long centralOffset, long centralSize) throws IOException {
+        long endOffset = position;
+
+        ByteBuffer end = header(56 + 20);
+        end.putInt(ZIP64_END_SIGNATURE);
+        end.putLong(44);
+        end.putShort(ZIP64_VERSION);
+        end.putShort(ZIP64_VERSION);
+        end.putInt(0);
+        end.putInt(0);
+        end.putLong(entries.size());
+        end.putLong(entries.size());
+        end.putLong(centralSize);
+        end.putLong(centralOffset);
+
+        end.putInt(ZIP64_LOCATOR_SIGNATURE);
+        end.putInt(0);
+        end.putLong(endOffset);
+        end.putInt(1);
+        writeOut(end.flip());
+    }
+
+    /**
+     * Value of a 32-bit size or offset field, or the ZIP64 marker when the value is in a ZIP64 extra field.
+     */
+    private int field32(long value) {
+        return (int) (value >= zip64Limit ? ZIP64_MAGIC : value);
+    }
+
+    private static ByteBuffer header(int length) {
+        return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void writeOut(byte[] b, int off, int len) throws IOException {
+        writeOut(ByteBuffer.wrap(b, off, len));
+    }
+
+    private void writeOut(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    private void writeAt(ByteBuffer buffer, long offset) throws IOException {
+        long at = offset;
+        while (buffer.hasRemaining()) {
+            at += channel.write(buffer, at);
+        }
+    }
+
+    /**
+     * Converts epoch milliseconds to an MS-DOS date and time, with the date in the high half.
+     * Times before 1980 are clamped to the DOS epoch.
+     */
+    private static int dosTime(long time) {
+        LocalDateTime dateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        if (dateTime.isBefore(DOS_EPOCH)) {
+            dateTime = DOS_EPOCH;
+        }
+        return (dateTime.getYear() - 1980) << 25 | dateTime.getMonthValue() << 21 | dateTime.getDayOfMonth() << 16
+                | dateTime.getHour() << 11 | dateTime.getMinute() << 5 | dateTime.getSecond() >> 1;
+    }
+
+    private static final class OpenEntry {
+
+        private final String name;
+        private final byte[] nameBytes;
+        private final int method;
+        private final int dosTime;
+        private final long offset;
+        private final long dataOffset;
+        private final boolean zip64;
+        private long size;
+
+        private OpenEntry(String name, byte[] nameBytes, int method, int dosTime, long offset, long dataOffset,
+                          boolean zip64) {
+            this.name = name;
+            this.nameBytes = nameBytes;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.offset = offset;
+            this.dataOffset = dataOffset;
+            this.zip64 = zip64;
+        }
+    }
+
+    private record CentralEntry(String name, byte[] nameBytes, int method, int dosTime, long crc, long compressedSize,
+                                long size, long offset) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks how many bytes of a compression have been processed. The compression loop only adds to it; {@link
+ * ProgressNotifier} turns it into updates on its flush tick.
+ */
+public final class ProgressCounter {
+
+    /**
+     * Compression covers the first 90% of a task; the rest is registration and delivery.
+     */
+    static final int COMPRESSION_SHARE = 90;
+
+    private final AtomicLong bytesProcessed = new AtomicLong();
+    private volatile long totalBytes;
+    private volatile String currentEntry;
+    private int lastReportedPercent;
+
+    public void start(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public void enterEntry(String entryName) {
+        currentEntry = entryName;
+    }
+
+    public void add(long bytes) {
+        bytesProcessed.addAndGet(bytes);
+    }
+
+    public long getBytesProcessed() {
+        return bytesProcessed.get();
+    }
+
+    public String getCurrentEntry() {
+        return currentEntry;
+    }
+
+    public int percent() {
+        long total = totalBytes;
+        if (total <= 0) {
+            return 0;
+        }
+        return (int) Math.min(COMPRESSION_SHARE, bytesProcessed.get() * COMPRESSION_SHARE / total);
+    }
+
+    /**
+     * Returns the current percentage if it grew since the last call, or -1 otherwise.
+     * Only called from the flush tick, so the last reported value needs no synchronization.
+     */
+    int takeNewPercent() {
+        int percent = percent();
+        if (percent <= lastReportedPercent) {
+            return -1;
+        }
+        lastReportedPercent = percent;
+        return percent;
+    }
+}
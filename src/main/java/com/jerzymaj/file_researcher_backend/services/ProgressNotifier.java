@@ -0,0 +1,97 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.jerzymaj.file_researcher_backend.DTOs.ProgressUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+public class ProgressNotifier {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TaskRegistry taskRegistry;
+    private final ProgressStreamRegistry progressStreams;
+
+    @Value("${app.progress.max-batch:1000}")
+    private int maxBatch;
+
+    private final Map<String, ProgressUpdate> pending = new ConcurrentHashMap<>();
+    private final Map<String, ProgressCounter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Queues a progress update for the task topic. A negative percentage marks the task as failed. The update is
+     * recorded in the {@link TaskRegistry} right away, and only the latest update of each task is sent on the next
+     * flush tick.
+     *
+     * @param taskId  The unique ID of the task used as the destination variable.
+     * @param percent The current progress percentage.
+     * @param message A descriptive status message for the user.
+     */
+
+    public void publish(String taskId, int percent, String message) {
+        taskRegistry.recordProgress(taskId, percent, message);
+        pending.put(taskId, new ProgressUpdate(percent, message));
+    }
+
+    /**
+     * Registers a byte counter for the compression of a task. The flush tick turns its value into
+     * "Processing ..." updates, so the compression loop itself never builds or sends a message.
+     *
+     * @param taskId The unique ID of the task.
+     * @return The counter to pass to {@link ZipArchiveCreator}.
+     */
+
+    public ProgressCounter track(String taskId) {
+        ProgressCounter counter = new ProgressCounter();
+        counters.put(taskId, counter);
+        return counter;
+    }
+
+    /**
+     * Stops sampling the compression of a task. Call it before publishing the next stage,
+     * so a late "Processing ..." update cannot overtake it.
+     *
+     * @param taskId The unique ID of the task.
+     */
+
+    public void untrack(String taskId) {
+        counters.remove(taskId);
+    }
+
+    /**
+     * Samples the tracked compressions and sends the latest pending update of each task to its STOMP topic
+     * and its SSE streams, at most {@code app.progress.max-batch} per tick; the rest stays queued for the next tick.
+     */
+    @Scheduled(fixedDelayString = "${app.progress.flush-interval:100ms}")
+    public void flush() {
+        for (String taskId : counters.keySet()) {
+            // sampled under the map's lock, so no update can follow once untrack() returned
+            counters.computeIfPresent(taskId, (id, counter) -> {
+                int percent = counter.takeNewPercent();
+                if (percent > 0) {
+                    publish(id, percent, "Processing " + counter.getCurrentEntry());
+                }
+                return counter;
+            });
+        }
+
+        int sent = 0;
+        Iterator<String> taskIds = pending.keySet().iterator();
+        while (taskIds.hasNext() && sent < maxBatch) {
+            String taskId = taskIds.next();
+            ProgressUpdate update = pending.remove(taskId);
+            if (update != null) {
+                messagingTemplate.convertAndSend("/topic/progress/" + taskId, update);
+                progressStreams.broadcast(taskId, update);
+                sent++;
+            }
+        }
+    }
+}
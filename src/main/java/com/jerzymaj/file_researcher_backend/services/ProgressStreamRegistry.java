@@ -0,0 +1,225 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jerzymaj.file_researcher_backend.DTOs.ProgressUpdate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProgressStreamRegistry {
+
+    private final TaskRegistry taskRegistry;
+
+    @Value("${app.progress.sse.timeout:1h}")
+    private Duration timeout;
+
+    @Value("${app.tasks.max-tasks:10000}")
+    private long maxTasks;
+
+    @Value("${app.tasks.retention:24h}")
+    private Duration retention;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Source of event ids. Seeded from the clock at startup, so ids keep growing across restarts and a client
+     * resuming a persisted task after one does not mistake new events for ones it has seen.
+     */
+    private final AtomicLong eventIds = new AtomicLong();
+
+    private Cache<String, StreamEvent> latestEvents;
+    private ExecutorService writer;
+
+    @PostConstruct
+    public void init() {
+        eventIds.set(System.currentTimeMillis() * 1000);
+        latestEvents = Caffeine.newBuilder()
+                .maximumSize(maxTasks)
+                .expireAfterWrite(retention)
+                .build();
+        writer = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-writer-", 0).factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(taskSubscribers -> taskSubscribers.forEach(s -> s.emitter.complete()));
+        writer.shutdownNow();
+    }
+
+    /**
+     * Opens a Server-Sent Events stream of the progress of a task owned by the given user. A client reconnecting with
+     * {@code Last-Event-ID} gets the latest state only if it is newer than what it has already seen.
+     *
+     * @param taskId      The unique ID of the task.
+     * @param userId      ID of the requesting user.
+     * @param lastEventId The {@code Last-Event-ID} sent by a reconnecting client, or {@code null}.
+     * @return The emitter to return from the controller.
+     * @throws AccessDeniedException If the task belongs to another user.
+     */
+
+    public SseEmitter subscribe(String taskId, Long userId, Long lastEventId) throws AccessDeniedException {
+        taskRegistry.getTask(taskId, userId);
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        // an id this instance has not handed out yet comes from before a restart with the clock set back
+        long lastSeenId = lastEventId == null || lastEventId > eventIds.get() ? 0 : lastEventId;
+        Subscriber subscriber = new Subscriber(taskId, emitter, lastSeenId);
+
+        subscribers.computeIfAbsent(taskId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        StreamEvent latest = latestEvents.getIfPresent(taskId);
+        if (latest != null) {
+            subscriber.offer(latest);
+        }
+        return emitter;
+    }
+
+    /**
+     * Hands a progress update to every stream of the task. Called from the {@link ProgressNotifier} flush tick,
+     * so SSE clients see the same conflated updates as STOMP subscribers. Never blocks on a client.
+     *
+     * @param taskId The unique ID of the task.
+     * @param update The update to send.
+     */
+
+    public void broadcast(String taskId, ProgressUpdate update) {
+        StreamEvent event = new StreamEvent(eventIds.incrementAndGet(), update);
+        latestEvents.put(taskId, event);
+
+        Set<Subscriber> taskSubscribers = subscribers.get(taskId);
+        if (taskSubscribers != null) {
+            taskSubscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    /**
+     * Sends a comment line to every open stream, so proxies and load balancers do not close idle connections
+     * and dead clients are detected and removed.
+     */
+    @Scheduled(fixedDelayString = "${app.progress.sse.heartbeat-interval:15s}")
+    public void heartbeat() {
+        subscribers.values().forEach(taskSubscribers -> taskSubscribers.forEach(Subscriber::heartbeat));
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.taskId, (id, taskSubscribers) -> {
+            taskSubscribers.remove(subscriber);
+            return taskSubscribers.isEmpty() ? null : taskSubscribers;
+        });
+    }
+
+    private record StreamEvent(long id, ProgressUpdate update) {
+
+        private boolean isTerminal() {
+            return update.percent() >= 100 || update.percent() < 0;
+        }
+    }
+
+    /**
+     * One open stream. Producers only swap the next event in and schedule a drain; a single drain runs per
+     * subscriber at a time, so writes stay ordered and a newer update replaces one the client has not received yet.
+     */
+    private final class Subscriber {
+
+        private final String taskId;
+        private final SseEmitter emitter;
+        private final AtomicReference<StreamEvent> next = new AtomicReference<>();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private long lastSentId;
+
+        private Subscriber(String taskId, SseEmitter emitter, long lastSentId) {
+            this.taskId = taskId;
+            this.emitter = emitter;
+            this.lastSentId = lastSentId;
+        }
+
+        private void offer(StreamEvent event) {
+            next.accumulateAndGet(event, (current, offered) ->
+                    current == null || offered.id() > current.id() ? offered : current);
+            schedule();
+        }
+
+        private void heartbeat() {
+            heartbeatDue.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                writer.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                if (!write()) {
+                    return;
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Closing progress stream of task {}: {}", taskId, e.getMessage());
+                remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+
+            // an offer may have arrived after the last check but before the flag was cleared
+            if (next.get() != null || heartbeatDue.get()) {
+                schedule();
+            }
+        }
+
+        /**
+         * @return {@code false} once the stream is completed.
+         */
+        private boolean write() throws IOException {
+            StreamEvent event;
+            while ((event = next.getAndSet(null)) != null) {
+                heartbeatDue.set(false);
+
+                if (event.id() > lastSentId) {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(event.id()))
+                            .name("progress")
+                            .data(event.update()));
+                    lastSentId = event.id();
+                }
+                if (event.isTerminal()) {
+                    emitter.complete();
+                    remove(this);
+                    return false;
+                }
+            }
+
+            if (heartbeatDue.getAndSet(false)) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            return true;
+        }
+    }
+}
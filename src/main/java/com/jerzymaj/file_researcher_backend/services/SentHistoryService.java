@@ -26,16 +26,42 @@ public class SentHistoryService {
     public SentHistory saveSentHistory(ZipArchive zipArchive, String sentToEmail,
                                        boolean success, String errorMessage) {
 
+        return saveSentHistory(zipArchive, sentToEmail, success, errorMessage, null);
+    }
+
+    /**
+     * Records a send attempt of a single part of a split archive.
+     * Each part is sent as its own email, so each part gets its own history entry.
+     *
+     * @param partNumber number of the delivered part, or {@code null} for unsplit archives
+     * @return the saved {@link SentHistory}
+     */
+
+    public SentHistory saveSentHistory(ZipArchive zipArchive, String sentToEmail,
+                                       boolean success, String errorMessage, Integer partNumber) {
+
         SentHistory sentHistory = SentHistory.builder()
                 .zipArchive(zipArchive)
                 .sentToEmail(sentToEmail)
                 .status(success ? SendStatus.SUCCESS : SendStatus.FAILURE)
                 .errorMessage(errorMessage)
+                .partNumber(partNumber)
                 .build();
 
         return sentHistoryRepository.save(sentHistory);
     }
 
+    /**
+     * Records the outcome of several send attempts in one go, e.g. one per recipient of a batch send.
+     *
+     * @param sentHistories the entries to save
+     * @return the saved entries
+     */
+
+    public List<SentHistory> saveAllSentHistory(List<SentHistory> sentHistories) {
+        return sentHistoryRepository.saveAll(sentHistories);
+    }
+
     public List<SentHistory> getAllSentHistory() {
 
         Long currentUserId = authFacade.getCurrentUserId();
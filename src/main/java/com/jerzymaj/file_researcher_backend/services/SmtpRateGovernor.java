@@ -0,0 +1,145 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+@Service
+@RequiredArgsConstructor
+public class SmtpRateGovernor {
+
+    private static final long MESSAGE_OVERHEAD_BYTES = 4096;
+
+    private final JavaMailSender mailSender;
+
+    @Value("${app.mail.rate.messages-per-minute:0}")
+    private int messagesPerMinute;
+
+    @Value("${app.mail.rate.bytes-per-minute:0}")
+    private long bytesPerMinute;
+
+    @Value("${app.mail.rate.max-parallel:4}")
+    private int maxParallel;
+
+    @Value("${app.mail.rate.burst:10s}")
+    private Duration burst;
+
+    private final Map<String, ProviderLimits> providerLimits = new ConcurrentHashMap<>();
+
+    /**
+     * Waits until a message may be sent without exceeding the provider's limits, and holds one of the parallel send
+     * slots until the returned permit is closed. Limits are token buckets per SMTP host and account, reserved in
+     * arrival order.
+     *
+     * @param attachmentBytes Size of the attachment in bytes, 0 for plain messages.
+     * @param onQueued        Called with the expected delay before waiting, if the sender has to wait.
+     * @return A permit that must be closed once the message has been sent.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+
+    public SendPermit acquire(long attachmentBytes, Consumer<Duration> onQueued) throws InterruptedException {
+        ProviderLimits limits = limitsForCurrentProvider();
+        limits.parallelSends.acquire();
+
+        try {
+            Duration delay = reserve(limits, attachmentBytes);
+
+            if (!delay.isZero()) {
+                onQueued.accept(delay);
+                Thread.sleep(delay.toMillis(), delay.toNanosPart() % 1_000_000);
+            }
+        } catch (InterruptedException | RuntimeException ex) {
+            limits.parallelSends.release();
+            throw ex;
+        }
+
+        return limits.parallelSends::release;
+    }
+
+    /**
+     * Reserves capacity for one message and returns how long the caller has to wait before sending it.
+     * The reservation is taken immediately, so callers queue up behind each other.
+     *
+     * @param attachmentBytes Size of the attachment in bytes, 0 for plain messages.
+     * @return The delay before the message may be sent, {@link Duration#ZERO} if it can be sent right away.
+     */
+
+    public Duration reserve(long attachmentBytes) {
+        return reserve(limitsForCurrentProvider(), attachmentBytes);
+    }
+
+    private Duration reserve(ProviderLimits limits, long attachmentBytes) {
+        long now = System.nanoTime();
+        long messageWait = limits.messages != null ? limits.messages.reserve(1, now) : 0;
+        long bytesWait = limits.bytes != null ? limits.bytes.reserve(encodedSize(attachmentBytes), now) : 0;
+
+        return Duration.ofNanos(Math.max(messageWait, bytesWait));
+    }
+
+    /**
+     * Attachments travel base64-encoded, which is what providers count against byte limits.
+     */
+    private long encodedSize(long attachmentBytes) {
+        return (attachmentBytes + 2) / 3 * 4 + MESSAGE_OVERHEAD_BYTES;
+    }
+
+    private ProviderLimits limitsForCurrentProvider() {
+        return providerLimits.computeIfAbsent(providerKey(), key -> new ProviderLimits(
+                messagesPerMinute > 0 ? new TokenBucket(messagesPerMinute, burst) : null,
+                bytesPerMinute > 0 ? new TokenBucket(bytesPerMinute, burst) : null,
+                new Semaphore(Math.max(1, maxParallel), true)));
+    }
+
+    private String providerKey() {
+        if (mailSender instanceof JavaMailSenderImpl senderImpl) {
+            return senderImpl.getHost() + ":" + senderImpl.getUsername();
+        }
+        return "default";
+    }
+
+    @FunctionalInterface
+    public interface SendPermit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private record ProviderLimits(TokenBucket messages, TokenBucket bytes, Semaphore parallelSends) {
+    }
+
+    /**
+     * A token bucket that allows its balance to go negative: a caller that finds too few tokens
+     * reserves them anyway and waits until the debt has been refilled.
+     */
+    private static final class TokenBucket {
+
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        private TokenBucket(long perMinute, Duration burst) {
+            this.tokensPerNano = perMinute / (double) Duration.ofMinutes(1).toNanos();
+            this.capacity = Math.max(1, tokensPerNano * burst.toNanos());
+            this.tokens = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        private synchronized long reserve(long cost, long nowNanos) {
+            tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = nowNanos;
+
+            long waitNanos = tokens >= cost ? 0 : (long) Math.ceil((cost - tokens) / tokensPerNano);
+            tokens -= cost;
+
+            return waitNanos;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SmtpTransportPool {
+
+    private final JavaMailSender mailSender;
+
+    @Value("${app.mail.pool.enabled:true}")
+    private boolean poolEnabled;
+
+    @Value("${app.mail.pool.max-connections:4}")
+    private int maxConnections;
+
+    @Value("${app.mail.pool.idle-timeout:60s}")
+    private Duration idleTimeout;
+
+    @Value("${app.mail.pool.validate-after:5s}")
+    private Duration validateAfter;
+
+    @Value("${app.mail.pool.borrow-timeout:30s}")
+    private Duration borrowTimeout;
+
+    private final Map<String, HostPool> hostPools = new ConcurrentHashMap<>();
+
+    private final AtomicInteger openedConnections = new AtomicInteger();
+
+    /**
+     * Sends a message over a pooled, already authenticated SMTP connection. Without a {@link JavaMailSenderImpl} there
+     * is no session to pool, and the message is handed to the sender as is.
+     *
+     * @param message The fully prepared message.
+     * @throws MessagingException If no connection can be obtained or the server rejects the message.
+     */
+
+    public void send(MimeMessage message) throws MessagingException {
+        if (!poolEnabled || !(mailSender instanceof JavaMailSenderImpl senderImpl)) {
+            mailSender.send(message);
+            return;
+        }
+
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        String messageId = message.getMessageID();
+        message.saveChanges();
+        if (messageId != null) {
+            message.setHeader("Message-ID", messageId);
+        }
+
+        HostPool hostPool = hostPools.computeIfAbsent(poolKey(senderImpl), key -> new HostPool(maxConnections));
+        PooledTransport pooled = borrow(hostPool, senderImpl);
+
+        try {
+            pooled.transport().sendMessage(message, message.getAllRecipients());
+            hostPool.idle.push(new PooledTransport(pooled.transport(), System.nanoTime()));
+        } catch (MessagingException | RuntimeException ex) {
+            close(pooled.transport());
+            throw ex;
+        } finally {
+            hostPool.permits.release();
+        }
+    }
+
+    /**
+     * Closes connections that have been idle for longer than {@code idle-timeout},
+     * so the pool does not hold sockets the mail server is about to drop anyway.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.pool.eviction-interval:30s}")
+    public void evictIdleConnections() {
+        long now = System.nanoTime();
+
+        for (HostPool hostPool : hostPools.values()) {
+            Iterator<PooledTransport> iterator = hostPool.idle.descendingIterator();
+
+            while (iterator.hasNext()) {
+                PooledTransport pooled = iterator.next();
+
+                if (now - pooled.lastUsedNanos() >= idleTimeout.toNanos() && hostPool.idle.remove(pooled)) {
+                    close(pooled.transport());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of connections currently kept open and waiting for reuse.
+     */
+    public int getIdleConnectionCount() {
+        return hostPools.values().stream().mapToInt(hostPool -> hostPool.idle.size()).sum();
+    }
+
+    /**
+     * @return The number of SMTP connections opened since startup.
+     */
+    public int getOpenedConnectionCount() {
+        return openedConnections.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (HostPool hostPool : hostPools.values()) {
+            PooledTransport pooled;
+            while ((pooled = hostPool.idle.poll()) != null) {
+                close(pooled.transport());
+            }
+        }
+    }
+
+    private PooledTransport borrow(HostPool hostPool, JavaMailSenderImpl senderImpl) throws MessagingException {
+        try {
+            if (!hostPool.permits.tryAcquire(borrowTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new MessagingException("Timed out waiting for a free SMTP connection to " + senderImpl.getHost());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", ex);
+        }
+
+        try {
+            PooledTransport pooled;
+            while ((pooled = hostPool.idle.poll()) != null) {
+                if (isHealthy(pooled)) {
+                    return pooled;
+                }
+                close(pooled.transport());
+            }
+
+            return new PooledTransport(connect(senderImpl), System.nanoTime());
+        } catch (MessagingException | RuntimeException ex) {
+            hostPool.permits.release();
+            throw ex;
+        }
+    }
+
+    private boolean isHealthy(PooledTransport pooled) {
+        long idleNanos = System.nanoTime() - pooled.lastUsedNanos();
+
+        if (idleNanos >= idleTimeout.toNanos()) {
+            return false;
+        }
+
+        return idleNanos < validateAfter.toNanos() || pooled.transport().isConnected();
+    }
+
+    private Transport connect(JavaMailSenderImpl senderImpl) throws MessagingException {
+        String protocol = senderImpl.getProtocol() != null ? senderImpl.getProtocol() : "smtp";
+        Transport transport = senderImpl.getSession().getTransport(protocol);
+
+        String username = senderImpl.getUsername();
+        String password = senderImpl.getPassword();
+        transport.connect(senderImpl.getHost(), senderImpl.getPort(),
+                username == null || username.isEmpty() ? null : username,
+                password == null || password.isEmpty() ? null : password);
+
+        openedConnections.incrementAndGet();
+        log.debug("Opened pooled SMTP connection to {}:{}", senderImpl.getHost(), senderImpl.getPort());
+
+        return transport;
+    }
+
+    private void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException ex) {
+            log.debug("Error while closing SMTP connection: {}", ex.getMessage());
+        }
+    }
+
+    private String poolKey(JavaMailSenderImpl senderImpl) {
+        return senderImpl.getHost() + ":" + senderImpl.getPort() + ":" + senderImpl.getUsername();
+    }
+
+    private record PooledTransport(Transport transport, long lastUsedNanos) {
+    }
+
+    private static final class HostPool {
+
+        private final Semaphore permits;
+        private final Deque<PooledTransport> idle = new ConcurrentLinkedDeque<>();
+
+        private HostPool(int maxConnections) {
+            this.permits = new Semaphore(maxConnections, true);
+        }
+    }
+}
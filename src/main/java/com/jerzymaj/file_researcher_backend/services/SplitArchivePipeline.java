@@ -0,0 +1,102 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.jerzymaj.file_researcher_backend.DTOs.CompressedPart;
+import com.jerzymaj.file_researcher_backend.DTOs.ZipPart;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SplitArchivePipeline {
+
+    private final ZipArchiveCreator zipArchiveCreator;
+    private final ArchiveStorage archiveStorage;
+
+    @Value("${app.delivery.split-parallelism:2}")
+    private int parallelism;
+
+    private ExecutorService compressionExecutor;
+
+    @PostConstruct
+    public void init() {
+        compressionExecutor = Executors.newFixedThreadPool(parallelism, Thread.ofPlatform().name("zip-part-compress-", 0).factory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compressionExecutor.shutdownNow();
+    }
+
+    /**
+     * Compresses the planned parts of a split archive in parallel and returns once every part has an outcome.
+     * Parts fail independently; a failed part does not cancel the others.
+     *
+     * @param parts            The planned parts, see {@link ZipArchiveCreator#planParts}.
+     * @param zipPath          Path of the logical archive; part files are created next to it.
+     * @param sourceDir        The base directory used to calculate relative paths inside the ZIPs.
+     * @param progressCallback Callback receiving overall compression progress (0-90%).
+     * @return The outcome of every part, in part order.
+     */
+
+    public List<CompressedPart> compressParts(List<ZipPart> parts, Path zipPath, Path sourceDir,
+                                              ProgressCallback progressCallback) {
+        int partCount = parts.size();
+        AtomicInteger partsDone = new AtomicInteger();
+        String archiveName = zipPath.getFileName().toString();
+
+        List<CompletableFuture<CompressedPart>> compressions = parts.stream()
+                .map(part -> {
+                    Path partPath = archiveStorage.partPath(zipPath, part.partNumber());
+
+                    return CompletableFuture
+                            .supplyAsync(() -> compressPart(part, partCount, archiveName, partPath, sourceDir), compressionExecutor)
+                            .exceptionally(ex -> new CompressedPart(part.partNumber(), partPath, 0, unwrap(ex)))
+                            .thenApply(compressed -> {
+                                progressCallback.onUpdate(90 * partsDone.incrementAndGet() / partCount,
+                                        "Compressed part " + part.partNumber() + " of " + partCount);
+                                return compressed;
+                            });
+                })
+                .toList();
+
+        return compressions.stream()
+                .map(CompletableFuture::join)
+                .toList();
+    }
+
+    private CompressedPart compressPart(ZipPart part, int partCount, String archiveName, Path partPath, Path sourceDir) {
+        try {
+            zipArchiveCreator.createZipArchivePart(part, partCount, archiveName, partPath, sourceDir, new ProgressCounter());
+
+            return new CompressedPart(part.partNumber(), partPath, Files.size(partPath), null);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Exception unwrap(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+
+        if (cause instanceof UncheckedIOException uncheckedIOException) {
+            return uncheckedIOException.getCause();
+        }
+
+        return cause instanceof Exception exception ? exception : new RuntimeException(cause);
+    }
+}
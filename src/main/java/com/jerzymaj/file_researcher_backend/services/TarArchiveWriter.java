@@ -0,0 +1,62 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.SequencedMap;
+
+/**
+ * Streams entries into a tar archive wrapped in the compressor of a subclass.
+ * Like the ZIP output, the tar stream is deterministic: fixed timestamp, owner and mode on every entry.
+ */
+public abstract class TarArchiveWriter implements ArchiveWriter {
+
+    private static final FileTime ENTRY_TIME = FileTime.fromMillis(315532800000L);
+    private static final int FILE_MODE = 0100644;
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * Wraps the archive file's stream in the compressor of the format.
+     */
+    protected abstract OutputStream compress(OutputStream out) throws IOException;
+
+    @Override
+    public void write(SequencedMap<String, Path> entries, Path archivePath, ProgressCounter progressCounter) throws IOException {
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(
+                compress(new BufferedOutputStream(Files.newOutputStream(archivePath), BUFFER_SIZE)))) {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            tar.setAddPaxHeadersForNonAsciiNames(true);
+
+            byte[] buffer = new byte[BUFFER_SIZE];
+
+            for (Map.Entry<String, Path> source : entries.entrySet()) {
+                progressCounter.enterEntry(source.getKey());
+
+                TarArchiveEntry entry = new TarArchiveEntry(source.getKey());
+                entry.setSize(Files.size(source.getValue()));
+                entry.setLastModifiedTime(ENTRY_TIME);
+                entry.setMode(FILE_MODE);
+                tar.putArchiveEntry(entry);
+
+                try (InputStream inputStream = Files.newInputStream(source.getValue())) {
+                    int length;
+                    while ((length = inputStream.read(buffer)) != -1) {
+                        tar.write(buffer, 0, length);
+                        progressCounter.add(length);
+                    }
+                }
+                tar.closeArchiveEntry();
+            }
+            tar.finish();
+        }
+    }
+}
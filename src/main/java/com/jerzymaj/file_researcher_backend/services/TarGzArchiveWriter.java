@@ -0,0 +1,30 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ArchiveFormat;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipParameters;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@Component
+public class TarGzArchiveWriter extends TarArchiveWriter {
+
+    @Value("${app.archives.gzip.level:6}")
+    private int level;
+
+    @Override
+    public ArchiveFormat format() {
+        return ArchiveFormat.TAR_GZ;
+    }
+
+    @Override
+    protected OutputStream compress(OutputStream out) throws IOException {
+        GzipParameters parameters = new GzipParameters();
+        parameters.setCompressionLevel(level);
+        parameters.setModificationTime(0);
+        return new GzipCompressorOutputStream(out, parameters);
+    }
+}
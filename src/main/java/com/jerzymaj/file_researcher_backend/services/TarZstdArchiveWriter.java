@@ -0,0 +1,40 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ArchiveFormat;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@Component
+public class TarZstdArchiveWriter extends TarArchiveWriter {
+
+    @Value("${app.archives.zstd.level:3}")
+    private int level;
+
+    /**
+     * Number of zstd compression threads; {@code 0} compresses on the calling thread, a negative value
+     * uses one thread per available processor.
+     */
+    @Value("${app.archives.zstd.workers:-1}")
+    private int workers;
+
+    @Override
+    public ArchiveFormat format() {
+        return ArchiveFormat.TAR_ZST;
+    }
+
+    /**
+     * Wraps the archive in a zstd frame compressed by {@code app.archives.zstd.workers} threads.
+     */
+
+    @Override
+    protected OutputStream compress(OutputStream out) throws IOException {
+        return new ZstdOutputStream(out)
+                .setLevel(level)
+                .setWorkers(workers < 0 ? Runtime.getRuntime().availableProcessors() : workers)
+                .setChecksum(true);
+    }
+}
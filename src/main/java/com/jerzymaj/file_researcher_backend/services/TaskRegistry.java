@@ -0,0 +1,245 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jerzymaj.file_researcher_backend.DTOs.TaskEventDTO;
+import com.jerzymaj.file_researcher_backend.DTOs.TaskStatusDTO;
+import com.jerzymaj.file_researcher_backend.exceptions.TaskNotFoundException;
+import com.jerzymaj.file_researcher_backend.models.TaskEvent;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.TaskStage;
+import com.jerzymaj.file_researcher_backend.repositories.TaskEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.AccessDeniedException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaskRegistry {
+
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    private final TaskEventRepository taskEventRepository;
+
+    @Value("${app.tasks.max-tasks:10000}")
+    private long maxTasks;
+
+    @Value("${app.tasks.max-events:200}")
+    private int maxEvents;
+
+    @Value("${app.tasks.retention:24h}")
+    private Duration retention;
+
+    @Value("${app.tasks.persist:false}")
+    private boolean persist;
+
+    private Cache<String, TaskTimeline> tasks;
+
+    @PostConstruct
+    public void init() {
+        tasks = Caffeine.newBuilder()
+                .maximumSize(maxTasks)
+                .expireAfterAccess(retention)
+                .build();
+    }
+
+    /**
+     * Starts tracking a task once its files are staged. The timeline is kept in a bounded in-memory cache and, with
+     * {@code app.tasks.persist}, in the {@code task_event} table.
+     *
+     * @param taskId The unique ID of the task.
+     * @param userId ID of the user who owns the task.
+     */
+
+    public void start(String taskId, Long userId) {
+        TaskTimeline timeline = new TaskTimeline(taskId, userId);
+        tasks.put(taskId, timeline);
+        transition(taskId, TaskStage.STAGED, "Files staged");
+    }
+
+    /**
+     * Records a stage transition with the current progress of the task.
+     * Updates for tasks the registry does not know (e.g. started before a restart without persistence) are ignored.
+     *
+     * @param taskId  The unique ID of the task.
+     * @param stage   The stage the task has entered.
+     * @param message A descriptive status message.
+     */
+
+    public void transition(String taskId, TaskStage stage, String message) {
+        TaskTimeline timeline = findTimeline(taskId);
+        if (timeline == null) {
+            return;
+        }
+
+        TaskEventDTO event = timeline.append(stage, truncate(message), maxEvents);
+
+        if (persist) {
+            taskEventRepository.save(TaskEvent.builder()
+                    .taskId(taskId)
+                    .userId(timeline.userId)
+                    .stage(event.stage())
+                    .percent(event.percent())
+                    .message(event.message())
+                    .occurredAt(event.occurredAt())
+                    .build());
+        }
+    }
+
+    /**
+     * Updates the current progress of a task. Progress updates do not extend the timeline,
+     * except for the terminal ones: 100% marks the task as done, a negative percentage as failed.
+     *
+     * @param taskId  The unique ID of the task.
+     * @param percent The current progress percentage.
+     * @param message A descriptive status message.
+     */
+
+    public void recordProgress(String taskId, int percent, String message) {
+        if (percent >= 100) {
+            TaskTimeline timeline = findTimeline(taskId);
+            if (timeline != null) {
+                timeline.updateProgress(100, message);
+                transition(taskId, TaskStage.DONE, message);
+            }
+        } else if (percent < 0) {
+            transition(taskId, TaskStage.FAILED, message);
+        } else {
+            TaskTimeline timeline = tasks.getIfPresent(taskId);
+            if (timeline != null) {
+                timeline.updateProgress(percent, message);
+            }
+        }
+    }
+
+    /**
+     * Returns the current state and full timeline of a task owned by the given user.
+     *
+     * @param taskId The unique ID of the task.
+     * @param userId ID of the requesting user.
+     * @return The task's status.
+     * @throws TaskNotFoundException If the task is unknown or no longer retained.
+     * @throws AccessDeniedException If the task belongs to another user.
+     */
+
+    public TaskStatusDTO getTask(String taskId, Long userId) throws AccessDeniedException {
+        TaskTimeline timeline = findTimeline(taskId);
+        if (timeline == null) {
+            throw new TaskNotFoundException("Task not found: " + taskId);
+        }
+        if (!Objects.equals(timeline.userId, userId)) {
+            throw new AccessDeniedException("You do not have permission to access this task.");
+        }
+        return timeline.toDTO();
+    }
+
+    /**
+     * Deletes persisted timelines older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${app.tasks.purge-interval:1h}")
+    @Transactional
+    public void purgeExpiredEvents() {
+        if (!persist) {
+            return;
+        }
+
+        int deleted = taskEventRepository.deleteAllOccurredBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} expired task events", deleted);
+        }
+    }
+
+    private TaskTimeline findTimeline(String taskId) {
+        TaskTimeline timeline = tasks.getIfPresent(taskId);
+        if (timeline != null || !persist) {
+            return timeline;
+        }
+
+        List<TaskEvent> events = taskEventRepository.findAllByTaskIdOrderByIdAsc(taskId);
+        if (events.isEmpty()) {
+            return null;
+        }
+
+        return tasks.get(taskId, id -> TaskTimeline.restore(id, events));
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= MAX_MESSAGE_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_MESSAGE_LENGTH);
+    }
+
+    /**
+     * State of one task. Updates come from the compression thread and the dispatch pool,
+     * so all access is synchronized on the timeline.
+     */
+    private static final class TaskTimeline {
+
+        private final String taskId;
+        private final Long userId;
+        private final List<TaskEventDTO> events = new ArrayList<>();
+        private TaskStage stage;
+        private int percent;
+        private String message;
+        private LocalDateTime startedAt;
+        private LocalDateTime updatedAt;
+
+        private TaskTimeline(String taskId, Long userId) {
+            this.taskId = taskId;
+            this.userId = userId;
+        }
+
+        private static TaskTimeline restore(String taskId, List<TaskEvent> persistedEvents) {
+            TaskTimeline timeline = new TaskTimeline(taskId, persistedEvents.getFirst().getUserId());
+
+            for (TaskEvent event : persistedEvents) {
+                timeline.percent = event.getPercent();
+                timeline.add(new TaskEventDTO(event.getStage(), event.getPercent(), event.getMessage(),
+                        event.getOccurredAt()));
+            }
+            return timeline;
+        }
+
+        private synchronized TaskEventDTO append(TaskStage newStage, String newMessage, int maxEvents) {
+            TaskEventDTO event = new TaskEventDTO(newStage, percent, newMessage, LocalDateTime.now());
+
+            if (events.size() >= maxEvents) {
+                events.remove(events.size() > 1 ? 1 : 0);
+            }
+            add(event);
+            return event;
+        }
+
+        private void add(TaskEventDTO event) {
+            events.add(event);
+            stage = event.stage();
+            message = event.message();
+            updatedAt = event.occurredAt();
+            if (startedAt == null) {
+                startedAt = event.occurredAt();
+            }
+        }
+
+        private synchronized void updateProgress(int newPercent, String newMessage) {
+            percent = newPercent;
+            message = newMessage;
+            updatedAt = LocalDateTime.now();
+        }
+
+        private synchronized TaskStatusDTO toDTO() {
+            return new TaskStatusDTO(taskId, stage, percent, message, startedAt, updatedAt, List.copyOf(events));
+        }
+    }
+}
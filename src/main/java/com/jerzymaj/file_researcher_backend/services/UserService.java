@@ -20,6 +20,8 @@ public class UserService {
     private final UserRepository userRepository;
     private final AuthFacade authFacade;
     private final PasswordEncoder passwordEncoder;
+    private final CascadeDeletionService cascadeDeletionService;
+    private final ArchiveStorage archiveStorage;
 
     public List<User> findAllUsers() {
         return userRepository.findAll();
@@ -59,13 +61,14 @@ public class UserService {
     }
 
     /**
-     * Deletes the currently authenticated user.
+     * Deletes the currently authenticated user with all of their file sets, archives and history,
+     * see {@link CascadeDeletionService}.
      *
      * @throws UserNotFoundException if the current user cannot be found in the database
      */
 
     public void deleteCurrentUser() {
         User currentUser = authFacade.getCurrentUser();
-        userRepository.delete(currentUser);
+        cascadeDeletionService.deleteUser(currentUser.getId()).forEach(archiveStorage::delete);
     }
 }
@@ -1,115 +1,546 @@
 package com.jerzymaj.file_researcher_backend.services;
 
+import com.jerzymaj.file_researcher_backend.DTOs.ZipPart;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ArchiveFormat;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.SequencedMap;
 import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.ZipException;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class ZipArchiveCreator {
 
     /**
-     * Compresses files from given Paths into a single ZIP archive.
+     * Timestamp of every entry: the DOS epoch, the earliest time a ZIP header can hold.
+     */
+    private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(1980, 1, 1, 0, 0);
+    private static final long ENTRY_TIME_MILLIS = ENTRY_TIME.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    /**
+     * Part of every content digest. Bump it whenever a change to this class alters the bytes written
+     * for the same input, so archives cached by an older version are no longer matched.
+     */
+    private static final String LAYOUT_VERSION = "zip-v2";
+    private static final String TAR_LAYOUT_VERSION = "tar-v1";
+
+    private final ZipPipelineMetrics metrics;
+    private final List<ArchiveWriter> archiveWriters;
+    private final CompressionGovernor compressionGovernor;
+    private final DeflaterPool deflaterPool;
+
+    @Value("${app.archives.merge-zip-uploads:false}")
+    private boolean mergeZipUploads;
+
+    /**
+     * Compresses files from given Paths into a single ZIP archive. Entries are sorted by relative path and carry a
+     * fixed timestamp, so the same files always produce the same bytes.
      *
      * @param filesToZip       List of staged file paths.
      * @param zipPath          Target path for the .zip file.
      * @param sourceDir        The base directory used to calculate relative paths inside the ZIP.
-     * @param progressCallback Callback for real-time progress updates.
+     * @param progressCounter  Counter of processed bytes, sampled for progress updates.
      */
 
     public void createZipArchiveFromPaths(List<Path> filesToZip, Path zipPath, Path sourceDir,
-                                          ProgressCallback progressCallback) throws IOException {
+                                          ProgressCounter progressCounter) throws IOException {
 
-        long totalFileSizeBytes = 0;
+        long totalFileSizeBytes = totalSize(filesToZip);
+        long startNanos = System.nanoTime();
+        Timer.Sample sample = metrics.startTimer();
+        String outcome = ZipPipelineMetrics.OUTCOME_FAILURE;
 
-        for (Path file : filesToZip) {
-            totalFileSizeBytes += Files.size(file);
+        try (CompressionGovernor.Lease lease = compressionGovernor.acquire();
+             DeflaterPool.Lease deflater = deflaterPool.borrow(lease.level());
+             PooledZipOutputStream zos = new PooledZipOutputStream(zipPath, deflater)) {
+            writeEntries(zos, entryMethod(lease.level()), null, mergeZipUploads, filesToZip, totalFileSizeBytes,
+                    sourceDir, progressCounter, deflater.buffer());
+            zos.finish();
+            outcome = ZipPipelineMetrics.OUTCOME_SUCCESS;
+        } finally {
+            metrics.stopTimer(sample, ZipPipelineMetrics.Stage.COMPRESSION, outcome);
         }
 
-        final long[] totalBytesProcessed = {0};
-        final int[] lastPercent = {0};
-        final long totalSizeFinal = totalFileSizeBytes > 0 ? totalFileSizeBytes : 1;
+        metrics.recordCompression(totalFileSizeBytes, Files.size(zipPath), Duration.ofNanos(System.nanoTime() - startNanos));
+    }
 
-        Set<String> addedEntries = new HashSet<>();
+    /**
+     * Compresses files from given Paths into a single archive of the given format. Formats other than ZIP are encoded
+     * by the matching {@link ArchiveWriter}.
+     *
+     * @param format          The archive format.
+     * @param filesToArchive  List of staged file paths.
+     * @param archivePath     Target path for the archive.
+     * @param sourceDir       The base directory used to calculate relative paths inside the archive.
+     * @param progressCounter Counter of processed bytes, sampled for progress updates.
+     * @throws IOException If a read/write error occurs.
+     */
+
+    public void createArchiveFromPaths(ArchiveFormat format, List<Path> filesToArchive, Path archivePath, Path sourceDir,
+                                       ProgressCounter progressCounter) throws IOException {
+        if (format == ArchiveFormat.ZIP) {
+            createZipArchiveFromPaths(filesToArchive, archivePath, sourceDir, progressCounter);
+            return;
+        }
+
+        ArchiveWriter writer = archiveWriters.stream()
+                .filter(candidate -> candidate.format() == format)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported archive format: " + format));
+
+        long totalFileSizeBytes = totalSize(filesToArchive);
+        long startNanos = System.nanoTime();
+        Timer.Sample sample = metrics.startTimer();
+        String outcome = ZipPipelineMetrics.OUTCOME_FAILURE;
+
+        try {
+            SequencedMap<String, Path> entries = new LinkedHashMap<>();
+            for (Path file : sortByEntryName(filesToArchive, sourceDir)) {
+                String relativePath = toEntryName(sourceDir, file);
+                if (entries.putIfAbsent(relativePath, file) != null) {
+                    log.warn("Skipping duplicate entry in archive: {}", relativePath);
+                }
+            }
+
+            progressCounter.start(totalFileSizeBytes);
+            writer.write(entries, archivePath, progressCounter);
+            outcome = ZipPipelineMetrics.OUTCOME_SUCCESS;
+        } finally {
+            metrics.stopTimer(sample, ZipPipelineMetrics.Stage.COMPRESSION, outcome);
+        }
+
+        metrics.recordCompression(totalFileSizeBytes, Files.size(archivePath), Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Builds a new archive of the given files from a previous archive of the same file set. Entries whose path,
+     * size and CRC-32 are unchanged are copied over as raw compressed bytes; only new or changed files are compressed.
+     * The result has the same entries as {@link #createZipArchiveFromPaths} would write.
+     *
+     * @param previousZip     A previous archive of the same file set; it is only read.
+     * @param filesToZip      List of staged file paths.
+     * @param zipPath         Target path for the .zip file.
+     * @param sourceDir       The base directory used to calculate relative paths inside the ZIP.
+     * @param progressCounter Counter of processed bytes, sampled for progress updates.
+     * @return The number of entries copied from the previous archive.
+     * @throws IOException If either archive cannot be read or written.
+     */
+
+    public int updateZipArchive(Path previousZip, List<Path> filesToZip, Path zipPath, Path sourceDir,
+                                ProgressCounter progressCounter) throws IOException {
+
+        long totalFileSizeBytes = totalSize(filesToZip);
+        long startNanos = System.nanoTime();
+        Timer.Sample sample = metrics.startTimer();
+        String outcome = ZipPipelineMetrics.OUTCOME_FAILURE;
+        int reusedEntries = 0;
+
+        try (CompressionGovernor.Lease lease = compressionGovernor.acquire();
+             ZipFile previous = ZipFile.builder().setPath(previousZip).get();
+             DeflaterPool.Lease deflater = deflaterPool.borrow(lease.level());
+             PooledZipOutputStream zos = new PooledZipOutputStream(zipPath, deflater)) {
+            reusedEntries = writeEntries(zos, entryMethod(lease.level()), previous, mergeZipUploads, filesToZip,
+                    totalFileSizeBytes, sourceDir, progressCounter, deflater.buffer());
+            zos.finish();
+            outcome = ZipPipelineMetrics.OUTCOME_SUCCESS;
+        } finally {
+            metrics.stopTimer(sample, ZipPipelineMetrics.Stage.COMPRESSION, outcome);
+        }
+
+        metrics.recordCompression(totalFileSizeBytes, Files.size(zipPath), Duration.ofNanos(System.nanoTime() - startNanos));
+        return reusedEntries;
+    }
+
+    /**
+     * Computes the key under which the archive of the given files is cached: a SHA-256 over the layout version
+     * and the (relative path, SHA-256 of content) pair of every entry, in entry order. Since the archive is
+     * deterministic, two file sets with the same digest produce archives with identical entries, byte-identical
+     * when built at the same compression level.
+     *
+     * @param files     List of staged file paths.
+     * @param sourceDir The base directory used to calculate relative paths inside the ZIP.
+     * @return The digest as a lowercase hex string.
+     * @throws IOException If a file cannot be read.
+     */
+
+    public String contentDigest(List<Path> files, Path sourceDir) throws IOException {
+        return contentDigest(ArchiveFormat.ZIP, files, sourceDir);
+    }
 
-        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(zipPath))) {
+    /**
+     * Computes the cache key of the archive of the given files in the given format, see
+     * {@link #contentDigest(List, Path)}. The format is part of the layout, so each format is cached separately.
+     */
+
+    public String contentDigest(ArchiveFormat format, List<Path> files, Path sourceDir) throws IOException {
+        String layout = format == ArchiveFormat.ZIP
+                ? (mergeZipUploads ? LAYOUT_VERSION + "+merge" : LAYOUT_VERSION)
+                : TAR_LAYOUT_VERSION + "+" + format.name();
+
+        MessageDigest archiveDigest = sha256();
+        archiveDigest.update(layout.getBytes(StandardCharsets.UTF_8));
+
+        Set<String> addedEntries = new HashSet<>();
 
-            for (Path file : filesToZip) {
-                String relativePath = sourceDir.relativize(file).toString().replace("\\", "/");
+        // only the copy buffer of the lease is used
+        try (DeflaterPool.Lease lease = deflaterPool.borrow(Deflater.DEFAULT_COMPRESSION)) {
+            byte[] buffer = lease.buffer();
 
+            for (Path file : sortByEntryName(files, sourceDir)) {
+                String relativePath = toEntryName(sourceDir, file);
                 if (!addedEntries.add(relativePath)) {
-                    log.warn("Skipping duplicate entry in ZIP: {}", relativePath);
                     continue;
                 }
 
-                ZipEntry entry = new ZipEntry(relativePath);
-                zos.putNextEntry(entry);
-
+                MessageDigest fileDigest = sha256();
                 try (InputStream inputStream = Files.newInputStream(file)) {
-                    copyInputStreamWithProgress(inputStream, zos, totalSizeFinal, totalBytesProcessed, lastPercent,
-                            progressCallback, relativePath);
+                    int length;
+                    while ((length = inputStream.read(buffer)) != -1) {
+                        fileDigest.update(buffer, 0, length);
+                    }
                 }
 
-                zos.closeEntry();
+                archiveDigest.update((byte) '\n');
+                archiveDigest.update(relativePath.getBytes(StandardCharsets.UTF_8));
+                archiveDigest.update((byte) 0);
+                archiveDigest.update(fileDigest.digest());
             }
         }
+
+        return HexFormat.of().formatHex(archiveDigest.digest());
     }
 
     /**
-     * Copies data from an input stream to the ZIP output stream while calculating
-     * and reporting real-time progress.
-     * <p>
-     * <b>Progress Logic:</b>
-     * The method scales the raw copy progress to 90% of the total task,
-     * leaving the remaining 10% for finalization and email dispatch.
-     * Updates are throttled to every 150ms or every percentage increase
-     * to prevent flooding the WebSocket broker.
-     * </p>
+     * Splits staged files into size-bounded groups, each of which becomes an independent ZIP part. A file larger than
+     * the limit gets a part of its own, above the limit, which callers have to send some other way.
      *
-     * @param inputStream      The source stream of the file being compressed.
-     * @param zos              The target ZIP output stream.
-     * @param totalSize        Total size of all files in the batch (for percentage calculation).
-     * @param bytesProcessed   A single-element array tracking cumulative bytes across multiple files.
-     * @param lastPercent      A single-element array tracking the last reported percentage to avoid redundant updates.
-     * @param progressCallback The functional interface used to push updates to the frontend.
-     * @param currFinalName    The name of the file currently being processed (for status messages).
-     * @throws IOException     If a read/write error occurs during the copy process.
-     */
-
-    private void copyInputStreamWithProgress(InputStream inputStream, ZipOutputStream zos, long totalSize,
-                                             long[] bytesProcessed, int[] lastPercent, ProgressCallback progressCallback,
-                                             String currFinalName) throws IOException {
-        byte[] buffer = new byte[8192];
-        int length;
-        long lastMessageTime = 0;
+     * @param filesToZip   List of staged file paths.
+     * @param sourceDir    The base directory used to calculate relative paths inside the ZIP.
+     * @param maxPartBytes Upper bound for the uncompressed content of a single part.
+     * @return List of {@link ZipPart} in part order; a single element if no split is needed.
+     * @throws IOException If file sizes cannot be read.
+     */
 
-        while ((length = inputStream.read(buffer)) != -1) {
-            zos.write(buffer, 0, length);
-            bytesProcessed[0] += length;
+    public List<ZipPart> planParts(List<Path> filesToZip, Path sourceDir, long maxPartBytes) throws IOException {
+        List<ZipPart> parts = new ArrayList<>();
+        Set<String> addedEntries = new HashSet<>();
+
+        List<Path> currentFiles = new ArrayList<>();
+        long currentBytes = 0;
+
+        for (Path file : sortByEntryName(filesToZip, sourceDir)) {
+            if (!addedEntries.add(toEntryName(sourceDir, file))) {
+                continue;
+            }
+
+            long fileSize = Files.size(file);
+
+            if (!currentFiles.isEmpty() && currentBytes + fileSize > maxPartBytes) {
+                parts.add(new ZipPart(parts.size() + 1, currentFiles, currentBytes));
+                currentFiles = new ArrayList<>();
+                currentBytes = 0;
+            }
+
+            currentFiles.add(file);
+            currentBytes += fileSize;
+        }
+
+        parts.add(new ZipPart(parts.size() + 1, currentFiles, currentBytes));
+
+        return parts;
+    }
+
+    /**
+     * Compresses a single planned part into its own ZIP file. Every part is a complete archive
+     * and contains a manifest entry telling the recipient which part of how many it is.
+     *
+     * @param zipPart          The planned part.
+     * @param partCount        Total number of parts of the archive.
+     * @param archiveName      Name of the logical (unsplit) archive, quoted in the manifest.
+     * @param partPath         Target path for the part's .zip file.
+     * @param sourceDir        The base directory used to calculate relative paths inside the ZIP.
+     * @param progressCounter  Counter of processed bytes within the part.
+     * @throws IOException If a read/write error occurs.
+     */
+
+    public void createZipArchivePart(ZipPart zipPart, int partCount, String archiveName, Path partPath, Path sourceDir,
+                                     ProgressCounter progressCounter) throws IOException {
+
+        long totalFileSizeBytes = totalSize(zipPart.files());
+        long startNanos = System.nanoTime();
+        Timer.Sample sample = metrics.startTimer();
+        String outcome = ZipPipelineMetrics.OUTCOME_FAILURE;
+
+        try (CompressionGovernor.Lease lease = compressionGovernor.acquire();
+             DeflaterPool.Lease deflater = deflaterPool.borrow(lease.level());
+             PooledZipOutputStream zos = new PooledZipOutputStream(partPath, deflater)) {
+            writeEntries(zos, entryMethod(lease.level()), null, false, zipPart.files(), totalFileSizeBytes, sourceDir,
+                    progressCounter, deflater.buffer());
+            List<String> entryNames = zos.entryNames();
+
+            StringBuilder manifest = new StringBuilder()
+                    .append("Archive: ").append(archiveName).append('\n')
+                    .append("Part: ").append(zipPart.partNumber()).append(" of ").append(partCount).append('\n')
+                    .append("Entries:").append('\n');
+            entryNames.forEach(name -> manifest.append(name).append('\n'));
+
+            byte[] manifestBytes = manifest.toString().getBytes(StandardCharsets.UTF_8);
+            zos.putNextEntry("MANIFEST-part" + zipPart.partNumber() + "-of-" + partCount + ".txt",
+                    entryMethod(lease.level()), ENTRY_TIME_MILLIS, manifestBytes.length);
+            zos.write(manifestBytes);
+            zos.finish();
+            outcome = ZipPipelineMetrics.OUTCOME_SUCCESS;
+        } finally {
+            metrics.stopTimer(sample, ZipPipelineMetrics.Stage.COMPRESSION, outcome);
+        }
+
+        metrics.recordCompression(totalFileSizeBytes, Files.size(partPath), Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Writes the given files as entries of an open ZIP stream in order of their relative paths, skipping duplicate
+     * relative paths. Unchanged entries of {@code previous} and, with {@code mergeUploads}, the entries of uploaded
+     * ZIP files are copied as raw compressed bytes; everything else is written with the given method.
+     *
+     * @param method   {@link ZipEntry#DEFLATED}, or {@link ZipEntry#STORED} when compression is off.
+     * @param previous A previous archive of the same file set, or {@code null}.
+     * @param buffer   Copy buffer reused for every entry.
+     * @return The number of entries copied from the previous archive.
+     */
+    private int writeEntries(PooledZipOutputStream zos, int method, ZipFile previous, boolean mergeUploads,
+                             List<Path> filesToZip, long totalFileSizeBytes, Path sourceDir,
+                             ProgressCounter progressCounter, byte[] buffer) throws IOException {
+        progressCounter.start(totalFileSizeBytes);
+
+        Set<String> addedEntries = new HashSet<>();
+        int reusedEntries = 0;
+
+        for (Path file : sortByEntryName(filesToZip, sourceDir)) {
+            String relativePath = toEntryName(sourceDir, file);
+
+            if (!addedEntries.add(relativePath)) {
+                log.warn("Skipping duplicate entry in ZIP: {}", relativePath);
+                continue;
+            }
+            progressCounter.enterEntry(relativePath);
+
+            if (mergeUploads && isZipFile(file) && mergeZipUpload(zos, file, relativePath, addedEntries, progressCounter)) {
+                continue;
+            }
+
+            ZipArchiveEntry previousEntry = previous == null ? null : previous.getEntry(relativePath);
+            long fileSize = Files.size(file);
+
+            if (previousEntry != null && isReusable(previousEntry.getMethod())
+                    && previousEntry.getSize() == fileSize && previousEntry.getCrc() == crc32(file, buffer)) {
+                try (InputStream rawData = previous.getRawInputStream(previousEntry)) {
+                    zos.addRawEntry(relativePath, previousEntry.getMethod(), ENTRY_TIME_MILLIS, previousEntry.getCrc(),
+                            previousEntry.getCompressedSize(), fileSize, rawData);
+                }
+                progressCounter.add(fileSize);
+                reusedEntries++;
+                continue;
+            }
+
+            zos.putNextEntry(relativePath, method, ENTRY_TIME_MILLIS, fileSize);
+
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                copyInputStreamWithProgress(inputStream, zos, progressCounter, buffer);
+            }
+            zos.closeEntry();
+        }
+
+        return reusedEntries;
+    }
 
-            int rawPercent = (int) ((bytesProcessed[0] * 100) / totalSize);
-            int currPercent = (int) (rawPercent * 0.9);
+    /**
+     * Unpacks an uploaded ZIP file into the archive under a folder named after it, e.g. the entries of
+     * {@code docs/bundle.zip} become {@code docs/bundle/...}. The compressed data and CRC of every entry are
+     * copied as they are, located through the upload's central directory, with no inflating or deflating.
+     *
+     * @param zos             The target ZIP output stream.
+     * @param zipUpload       The uploaded ZIP file.
+     * @param relativePath    The upload's entry name inside the archive.
+     * @param addedEntries    Entry names written so far; merged entries that collide with them are skipped.
+     * @param progressCounter Counter of processed bytes.
+     * @return {@code false} if the upload has to be added as a plain file; decided before anything is written.
+     * @throws IOException If a read/write error occurs after the output was touched, including a corrupt entry.
+     */
+
+    private boolean mergeZipUpload(PooledZipOutputStream zos, Path zipUpload, String relativePath,
+                                   Set<String> addedEntries, ProgressCounter progressCounter) throws IOException {
+        String folder = relativePath.substring(0, relativePath.length() - ".zip".length()) + "/";
+
+        ZipFile upload;
+        try {
+            upload = ZipFile.builder().setPath(zipUpload).get();
+        } catch (ZipException ex) {
+            log.info("Adding {} as a plain file: {}", relativePath, ex.getMessage());
+            return false;
+        }
+
+        try (upload) {
+            List<ZipArchiveEntry> entries = Collections.list(upload.getEntriesInPhysicalOrder());
+
+            for (ZipArchiveEntry entry : entries) {
+                if (entry.getGeneralPurposeBit().usesEncryption() || !upload.canReadEntryData(entry)
+                        || !isSafeEntryName(entry.getName())) {
+                    log.info("Adding {} as a plain file: entry {} cannot be merged", relativePath, entry.getName());
+                    return false;
+                }
+            }
 
-            long currTime = System.currentTimeMillis();
+            for (ZipArchiveEntry entry : entries) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+
+                String name = folder + entry.getName();
+                if (!addedEntries.add(name)) {
+                    log.warn("Skipping duplicate entry in ZIP: {}", name);
+                    continue;
+                }
 
-            if (currTime - lastMessageTime > 150 || currPercent > lastPercent[0]) {
-                if (currPercent > lastPercent[0]) {
-                    progressCallback.onUpdate(currPercent, "Processing " + currFinalName);
-                    lastPercent[0] = currPercent;
-                    lastMessageTime = currTime;
+                try (InputStream rawData = upload.getRawInputStream(entry)) {
+                    zos.addRawEntry(name, entry.getMethod(), entry.getTime(), entry.getCrc(), entry.getCompressedSize(),
+                            entry.getSize(), rawData);
                 }
+                progressCounter.add(entry.getCompressedSize());
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Sums the sizes of the source files up front; the total drives the progress percentage
+     * and the compression metrics.
+     */
+    private long totalSize(List<Path> files) throws IOException {
+        Timer.Sample sample = metrics.startTimer();
+        String outcome = ZipPipelineMetrics.OUTCOME_FAILURE;
+
+        try {
+            long totalFileSizeBytes = 0;
+            for (Path file : files) {
+                totalFileSizeBytes += Files.size(file);
+            }
+            outcome = ZipPipelineMetrics.OUTCOME_SUCCESS;
+            return totalFileSizeBytes;
+        } finally {
+            metrics.stopTimer(sample, ZipPipelineMetrics.Stage.SIZING, outcome);
+        }
+    }
+
+    /**
+     * Orders files by their entry name. The sort is stable, so of several files with the same
+     * relative path the first one given still wins.
+     */
+    private List<Path> sortByEntryName(List<Path> files, Path sourceDir) {
+        return files.stream()
+                .sorted(Comparator.comparing(file -> toEntryName(sourceDir, file)))
+                .toList();
+    }
+
+    /**
+     * Level 0 deflates nothing but still wraps every block in DEFLATE framing, so such entries are stored instead.
+     */
+    private static int entryMethod(int level) {
+        return level == Deflater.NO_COMPRESSION ? ZipEntry.STORED : ZipEntry.DEFLATED;
+    }
+
+    private static boolean isReusable(int method) {
+        return method == ZipEntry.DEFLATED || method == ZipEntry.STORED;
+    }
+
+    private static boolean isZipFile(Path file) {
+        return file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".zip");
+    }
+
+    /**
+     * Rejects absolute names and {@code ..} segments, which would place a merged entry outside its folder
+     * once the recipient extracts the archive.
+     */
+    private static boolean isSafeEntryName(String name) {
+        String normalized = name.replace('\\', '/');
+        return !normalized.startsWith("/") && !List.of(normalized.split("/")).contains("..");
+    }
+
+    private static long crc32(Path file, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                crc.update(buffer, 0, length);
             }
         }
+        return crc.getValue();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private String toEntryName(Path sourceDir, Path file) {
+        return sourceDir.relativize(file).toString().replace("\\", "/");
+    }
+
+    /**
+     * Copies data from an input stream to the ZIP output stream, counting the processed bytes.
+     * <p>
+     * The loop only adds to the {@link ProgressCounter}; percentages and messages are derived from it on
+     * the flush tick of {@link ProgressNotifier}, so no clock reads or string building happen per chunk.
+     * </p>
+     *
+     * @param inputStream     The source stream of the file being compressed.
+     * @param zos             The target ZIP output stream.
+     * @param progressCounter Counter of processed bytes across all files of the archive.
+     * @param buffer          Copy buffer, reused across entries.
+     * @throws IOException    If a read/write error occurs during the copy process.
+     */
 
+    private void copyInputStreamWithProgress(InputStream inputStream, OutputStream zos,
+                                             ProgressCounter progressCounter, byte[] buffer) throws IOException {
+        int length;
+
+        while ((length = inputStream.read(buffer)) != -1) {
+            zos.write(buffer, 0, length);
+            progressCounter.add(length);
+        }
     }
 
     public Path prepareTempPath(Long fileSetId, int sendCounter) {
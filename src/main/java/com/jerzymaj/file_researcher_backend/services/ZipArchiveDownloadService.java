@@ -0,0 +1,178 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import com.jerzymaj.file_researcher_backend.exceptions.PathNotFoundException;
+import com.jerzymaj.file_researcher_backend.models.ZipArchive;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ArchiveFormat;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@Slf4j
+@Service
+public class ZipArchiveDownloadService {
+
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Streams a retained archive to the client, honouring conditional and ranged requests. The body is handed to
+     * sendfile where the container supports it and to {@link FileChannel#transferTo} otherwise, so it never passes
+     * through heap buffers.
+     *
+     * @param zipArchive The archive whose file should be served.
+     * @param request    The current HTTP request (Range, If-None-Match, If-Range headers).
+     * @param response   The HTTP response the file is written to.
+     * @throws PathNotFoundException If the archive file is no longer stored on disk.
+     * @throws IOException           If the file cannot be read or the client connection fails.
+     */
+
+    public void serveArchive(ZipArchive zipArchive, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path archiveFile = Path.of(zipArchive.getArchivePath());
+
+        if (!Files.isRegularFile(archiveFile)) {
+            throw new PathNotFoundException("Archive file is no longer available: " + zipArchive.getArchiveName());
+        }
+
+        long fileLength = Files.size(archiveFile);
+        long lastModified = Files.getLastModifiedTime(archiveFile).toMillis();
+        String eTag = buildETag(zipArchive, fileLength, lastModified);
+
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(zipArchive.getFormat() == null
+                ? ArchiveFormat.ZIP.getContentType()
+                : zipArchive.getFormat().getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(zipArchive.getArchiveName())
+                .build()
+                .toString());
+
+        long start = 0;
+        long end = fileLength - 1;
+
+        HttpRange range = resolveRange(request, eTag);
+
+        if (range != null) {
+            try {
+                start = range.getRangeStart(fileLength);
+                end = range.getRangeEnd(fileLength);
+            } catch (IllegalArgumentException ex) {
+                start = fileLength;
+            }
+
+            if (start >= fileLength || start > end) {
+                rejectRange(response, fileLength);
+                return;
+            }
+
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileLength);
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        transferFile(archiveFile, start, count, request, response);
+    }
+
+    /**
+     * Builds a strong validator from the archive identity and the file state on disk,
+     * so a re-created file under the same name never matches an old cached copy.
+     */
+    private String buildETag(ZipArchive zipArchive, long fileLength, long lastModified) {
+        return "\"" + zipArchive.getId() + "-" + Long.toHexString(fileLength) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * Reads the {@code Range} header. Only a single range is served; multi-range requests and
+     * ranges guarded by a stale {@code If-Range} validator fall back to the full body, as RFC 9110 allows.
+     *
+     * @return The requested range, or {@code null} if the whole file should be sent.
+     */
+    private HttpRange resolveRange(HttpServletRequest request, String eTag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+
+        if (rangeHeader == null || rangeHeader.isBlank()) {
+            return null;
+        }
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+
+        if (ifRange != null && !ifRange.equals(eTag)) {
+            return null;
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException ex) {
+            log.debug("Ignoring malformed Range header: {}", rangeHeader);
+            return null;
+        }
+
+        return ranges.size() == 1 ? ranges.getFirst() : null;
+    }
+
+    private void rejectRange(HttpServletResponse response, long fileLength) {
+        response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileLength);
+        response.setContentLengthLong(0);
+    }
+
+    /**
+     * Sends {@code count} bytes of the file starting at {@code start}.
+     * Tomcat's sendfile is preferred; the container then performs the copy after the handler completes.
+     */
+    private void transferFile(Path archiveFile, long start, long count,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, archiveFile.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, start + count);
+            return;
+        }
+
+        try (FileChannel fileChannel = FileChannel.open(archiveFile, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+
+            long position = start;
+            long remaining = count;
+
+            while (remaining > 0) {
+                long transferred = fileChannel.transferTo(position, remaining, target);
+
+                if (transferred <= 0) {
+                    break;
+                }
+
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+}
@@ -1,17 +1,21 @@
 package com.jerzymaj.file_researcher_backend.services;
 
-import com.jerzymaj.file_researcher_backend.DTOs.ProgressUpdate;
+import com.jerzymaj.file_researcher_backend.DTOs.CompressedPart;
 import com.jerzymaj.file_researcher_backend.DTOs.StagedUpload;
+import com.jerzymaj.file_researcher_backend.DTOs.ZipPart;
 import com.jerzymaj.file_researcher_backend.DTOs.ZipStatsResponse;
 import com.jerzymaj.file_researcher_backend.exceptions.FileSetNotFoundException;
 import com.jerzymaj.file_researcher_backend.exceptions.ZipArchiveNotFoundException;
 import com.jerzymaj.file_researcher_backend.models.*;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ArchiveFormat;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.DeliveryMode;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.TaskStage;
 import com.jerzymaj.file_researcher_backend.models.enum_classes.ZipArchiveStatus;
 import com.jerzymaj.file_researcher_backend.repositories.FileSetRepository;
 import com.jerzymaj.file_researcher_backend.repositories.ZipArchiveRepository;
 import com.jerzymaj.file_researcher_backend.security.AuthFacade;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Async;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -29,14 +33,20 @@ import java.util.*;
 public class ZipArchiveService {
 
     private final ZipArchiveCreator zipArchiveCreator;
-    private final ZipEmailSender zipEmailSender;
     private final FileStager fileStager;
     private final FileSetRepository fileSetRepository;
     private final AuthFacade authFacade;
     private final ZipArchiveRepository zipArchiveRepository;
     private final ZipArchiveStatusService zipArchiveStatusService;
-    private final SentHistoryService sentHistoryService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ProgressNotifier progressNotifier;
+    private final ArchiveStorage archiveStorage;
+    private final DeliveryPolicy deliveryPolicy;
+    private final DownloadLinkService downloadLinkService;
+    private final SplitArchivePipeline splitArchivePipeline;
+    private final ZipPipelineMetrics metrics;
+    private final TaskRegistry taskRegistry;
+    private final ArchiveCache archiveCache;
+    private final CascadeDeletionService cascadeDeletionService;
 
     /**
      * Entry point for the upload-to-zip process. Orchestrates synchronous file staging.
@@ -53,9 +63,50 @@ public class ZipArchiveService {
      * @throws IOException If file staging fails.
      */
     public String startZipProcessFromUploaded(Long fileSetId, String recipientEmail, MultipartFile[] files) throws IOException {
-        StagedUpload staged = fileStager.stageUpload(files);
+        return startZipProcessFromUploaded(fileSetId, List.of(recipientEmail), files);
+    }
 
-        createAndSendZipAsync(fileSetId, recipientEmail, staged);
+    /**
+     * Entry point for sending one set of uploaded files to several recipients. The files are compressed once, and each
+     * recipient gets an outbox entry of its own.
+     *
+     * @param fileSetId       The ID of the associated FileSet.
+     * @param recipientEmails Target email addresses; duplicates are sent to once.
+     * @param files           Array of MultipartFiles from the controller.
+     * @return {@link String} The unique taskId for WebSocket tracking.
+     * @throws IOException If file staging fails.
+     */
+    public String startZipProcessFromUploaded(Long fileSetId, List<String> recipientEmails, MultipartFile[] files) throws IOException {
+        return startZipProcessFromUploaded(fileSetId, recipientEmails, ArchiveFormat.ZIP, files);
+    }
+
+    /**
+     * Same as {@link #startZipProcessFromUploaded(Long, List, MultipartFile[])}, with the archive format chosen
+     * by the sender.
+     *
+     * @param fileSetId       The ID of the associated FileSet.
+     * @param recipientEmails Target email addresses; duplicates are sent to once.
+     * @param format          The archive format, {@code null} for ZIP.
+     * @param files           Array of MultipartFiles from the controller.
+     * @return {@link String} The unique taskId for WebSocket tracking.
+     * @throws IOException If file staging fails.
+     */
+    public String startZipProcessFromUploaded(Long fileSetId, List<String> recipientEmails, ArchiveFormat format,
+                                              MultipartFile[] files) throws IOException {
+        Timer.Sample stagingSample = metrics.startTimer();
+        StagedUpload staged;
+        try {
+            staged = fileStager.stageUpload(files);
+        } catch (IOException | RuntimeException ex) {
+            metrics.stopTimer(stagingSample, ZipPipelineMetrics.Stage.STAGING, ZipPipelineMetrics.OUTCOME_FAILURE);
+            throw ex;
+        }
+        metrics.stopTimer(stagingSample, ZipPipelineMetrics.Stage.STAGING, ZipPipelineMetrics.OUTCOME_SUCCESS);
+
+        taskRegistry.start(staged.taskId(), authFacade.getCurrentUserId());
+        taskRegistry.transition(staged.taskId(), TaskStage.QUEUED, "Queued for compression");
+        createAndSendZipAsync(fileSetId, distinctRecipients(recipientEmails),
+                format == null ? ArchiveFormat.ZIP : format, staged);
 
         return staged.taskId();
     }
@@ -66,10 +117,16 @@ public class ZipArchiveService {
      * <b>Workflow:</b>
      * <ol>
      * <li>Fetches FileSet metadata from the database.</li>
-     * <li>Creates a ZIP archive from staged files with progress reporting (0-90%).</li>
-     * <li>Registers the archive in PENDING status.</li>
-     * <li>Sends email (95%) and finalizes status to SUCCESS or FAILED.</li>
-     * <li>Purges all temporary resources (ZIP and staging folder) in the finally block.</li>
+     * <li>Creates a ZIP archive from staged files with progress reporting (0-90%), or reuses the cached archive
+     * of identical files. A retained previous archive of the FileSet is updated incrementally.</li>
+     * <li>If split delivery is enabled and the files exceed one part, hands over to {@link #splitAndQueue} instead.
+     * A file larger than a part on its own cannot be split: the archive is then built whole and sent as a download
+     * link, or the send fails before compressing if links are disabled.</li>
+     * <li>Chooses the delivery mode: archives above the link threshold are retained and sent as a download link.</li>
+     * <li>Registers the archive in PENDING status and queues its email in the outbox (95%), in one transaction.
+     * Sending and the final SUCCESS or FAILED status are handled by {@link EmailOutboxDispatcher}.</li>
+     * <li>Purges the staging folder in the finally block. The ZIP is kept until the dispatcher is done with it,
+     * or purged right away if it never got queued.</li>
      * </ol>
      * </p>
      *
@@ -79,27 +136,122 @@ public class ZipArchiveService {
      */
     @Async
     public void createAndSendZipAsync(Long fileSetId, String recipientEmail, StagedUpload stagedUpload) {
+        createAndSendZipAsync(fileSetId, List.of(recipientEmail), stagedUpload);
+    }
+
+    /**
+     * Same as {@link #createAndSendZipAsync(Long, String, StagedUpload)}, for one or more recipients.
+     * With several recipients the archive is never split, as every recipient would need every part;
+     * archives above the link threshold are sent as a download link instead.
+     *
+     * @param fileSetId       The ID of the associated FileSet.
+     * @param recipientEmails Distinct target email addresses, the first one is stored on the archive.
+     * @param stagedUpload    The staged upload containing taskId, file paths, and upload directory.
+     */
+    @Async
+    public void createAndSendZipAsync(Long fileSetId, List<String> recipientEmails, StagedUpload stagedUpload) {
+        createAndSendZipAsync(fileSetId, recipientEmails, ArchiveFormat.ZIP, stagedUpload);
+    }
+
+    /**
+     * Same as {@link #createAndSendZipAsync(Long, List, StagedUpload)}, building the archive in the given format.
+     * Split delivery and incremental updates work on ZIP archives only; other formats are always built whole
+     * and sent as an attachment or a download link.
+     *
+     * @param fileSetId       The ID of the associated FileSet.
+     * @param recipientEmails Distinct target email addresses, the first one is stored on the archive.
+     * @param format          The archive format.
+     * @param stagedUpload    The staged upload containing taskId, file paths, and upload directory.
+     */
+    @Async
+    public void createAndSendZipAsync(Long fileSetId, List<String> recipientEmails, ArchiveFormat format,
+                                      StagedUpload stagedUpload) {
+        String recipientEmail = recipientEmails.getFirst();
         Path zipPath = null;
+        boolean queued = false;
+        List<ZipPart> parts = List.of();
+        boolean unsplittable = false;
         try {
             FileSet fileSet = fetchFileSet(fileSetId);
 
             int sendCounter = zipArchiveRepository
                     .findMaxSendNumberByFileSetId(fileSetId) + 1;
 
-            zipPath = zipArchiveCreator.prepareTempPath(fileSetId, sendCounter);
+            zipPath = format.applyTo(archiveStorage.isRetainEnabled()
+                    ? archiveStorage.prepareRetainedPath(fileSetId, sendCounter)
+                    : zipArchiveCreator.prepareTempPath(fileSetId, sendCounter));
+
+            taskRegistry.transition(stagedUpload.taskId(), TaskStage.COMPRESSING, "Compressing files");
+
+            if (format == ArchiveFormat.ZIP && deliveryPolicy.isSplitEnabled() && recipientEmails.size() == 1) {
+                parts = zipArchiveCreator.planParts(stagedUpload.files(), stagedUpload.uploadDir(),
+                        deliveryPolicy.getSplitPartBytes());
+
+                Optional<ZipPart> oversized = parts.stream()
+                        .filter(part -> part.rawBytes() > deliveryPolicy.getSplitPartBytes())
+                        .findFirst();
+
+                if (oversized.isPresent()) {
+                    if (!deliveryPolicy.isLinksEnabled()) {
+                        throw new IllegalArgumentException("File " + oversized.get().files().getFirst().getFileName()
+                                + " is larger than the split part limit of " + deliveryPolicy.getSplitPartBytes()
+                                + " bytes and download links are disabled");
+                    }
+                    parts = List.of();
+                    unsplittable = true;
+                } else if (parts.size() > 1) {
+                    splitAndQueue(fileSet, parts, zipPath, recipientEmail, sendCounter, stagedUpload);
+                    queued = true;
+                    return;
+                }
+            }
+
+            createOrReuseZipArchive(fileSetId, stagedUpload, format, zipPath);
 
-            zipArchiveCreator.createZipArchiveFromPaths(stagedUpload.files(), zipPath, stagedUpload.uploadDir(),
-                    (percent, msg) -> notifyProgress(stagedUpload.taskId(), percent, msg));
+            DeliveryMode deliveryMode = unsplittable
+                    ? deliveryPolicy.resolveUnsplittableMode(Files.size(zipPath))
+                    : deliveryPolicy.resolveMode(Files.size(zipPath));
 
-            ZipArchive archive = registerZipArchive(fileSet, zipPath, recipientEmail, sendCounter);
+            if (archiveStorage.isRetainEnabled() || deliveryMode == DeliveryMode.DOWNLOAD_LINK) {
+                zipPath = archiveStorage.retain(zipPath, fileSetId, sendCounter);
+            }
 
-            sendAndFinalize(archive, fileSet, zipPath, stagedUpload.taskId());
+            notifyProgress(stagedUpload.taskId(), 95, "Queued for sending...");
+            ZipArchive zipArchive = buildZipArchive(fileSet, zipPath, recipientEmail, sendCounter, deliveryMode,
+                    Files.size(zipPath), null);
+            zipArchive.setRecipientCount(recipientEmails.size());
+            zipArchive.setFormat(format);
+            Path attachmentPath = deliveryMode == DeliveryMode.DOWNLOAD_LINK ? null : zipPath;
+
+            Timer.Sample registrationSample = metrics.startTimer();
+            String registrationOutcome = ZipPipelineMetrics.OUTCOME_FAILURE;
+            try {
+                if (recipientEmails.size() == 1) {
+                    zipArchiveStatusService.registerForDelivery(zipArchive, attachmentPath, stagedUpload.taskId());
+                } else {
+                    zipArchiveStatusService.registerForBatchDelivery(zipArchive, recipientEmails, attachmentPath,
+                            stagedUpload.taskId());
+                }
+                registrationOutcome = ZipPipelineMetrics.OUTCOME_SUCCESS;
+            } finally {
+                metrics.stopTimer(registrationSample, ZipPipelineMetrics.Stage.REGISTRATION, registrationOutcome);
+            }
+            queued = true;
+            taskRegistry.transition(stagedUpload.taskId(), TaskStage.REGISTERED, "Queued for sending");
 
         } catch (Exception ex) {
             handleError(stagedUpload.taskId(), ex);
         } finally {
-            cleanUp(zipPath);
+            Timer.Sample cleanupSample = metrics.startTimer();
+            if (!queued) {
+                cleanUp(zipPath);
+                for (ZipPart part : parts) {
+                    cleanUp(archiveStorage.partPath(zipPath, part.partNumber()));
+                }
+            }
             recursiveDelete(stagedUpload.uploadDir());
+            metrics.stopTimer(cleanupSample, ZipPipelineMetrics.Stage.CLEANUP,
+                    queued ? ZipPipelineMetrics.OUTCOME_SUCCESS : ZipPipelineMetrics.OUTCOME_FAILURE);
         }
     }
 
@@ -126,9 +278,27 @@ public class ZipArchiveService {
         return getZipArchiveForCurrentUser(fileSetId, zipArchiveId);
     }
 
+    /**
+     * Resolves the archive behind a public download link after verifying its signature and expiry.
+     *
+     * @param zipArchiveId ID of the ZipArchive taken from the link.
+     * @param expires      Expiry time in epoch seconds taken from the link.
+     * @param signature    Signature taken from the link.
+     * @return the linked {@link ZipArchive}
+     * @throws AccessDeniedException       if the link is forged or expired
+     * @throws ZipArchiveNotFoundException if the archive has been deleted in the meantime
+     */
+
+    public ZipArchive getZipArchiveByDownloadLink(Long zipArchiveId, long expires, String signature) throws AccessDeniedException {
+        downloadLinkService.verifyLink(zipArchiveId, expires, signature);
+
+        return zipArchiveRepository.findById(zipArchiveId)
+                .orElseThrow(() -> new ZipArchiveNotFoundException("ZipArchive not found: " + zipArchiveId));
+    }
+
     public void deleteZipArchive(Long fileSetId, Long zipArchiveId) throws AccessDeniedException {
         ZipArchive zipArchive = getZipArchiveForCurrentUser(fileSetId, zipArchiveId);
-        zipArchiveRepository.deleteById(zipArchive.getId());
+        archiveStorage.delete(cascadeDeletionService.deleteZipArchive(zipArchive));
     }
 
     /**
@@ -190,6 +360,90 @@ public class ZipArchiveService {
         return zipArchive;
     }
 
+    /**
+     * Builds the archive of the staged files at {@code zipPath}, unless {@link ArchiveCache} holds the archive
+     * of the same files already, in which case the send continues without compressing anything.
+     * If an earlier ZIP archive of the FileSet is still on disk, only new or changed files are compressed.
+     *
+     * @param fileSetId    The ID of the associated FileSet.
+     * @param stagedUpload The staged upload containing taskId, file paths, and upload directory.
+     * @param format       The archive format.
+     * @param zipPath      Target path for the archive.
+     * @throws IOException If the archive cannot be created.
+     */
+    private void createOrReuseZipArchive(Long fileSetId, StagedUpload stagedUpload, ArchiveFormat format,
+                                         Path zipPath) throws IOException {
+        String digest = null;
+
+        if (archiveCache.isEnabled()) {
+            digest = zipArchiveCreator.contentDigest(format, stagedUpload.files(), stagedUpload.uploadDir());
+            boolean hit = archiveCache.restore(digest, zipPath);
+            metrics.recordCacheLookup(hit);
+
+            if (hit) {
+                notifyProgress(stagedUpload.taskId(), 90, "Reused cached archive");
+                return;
+            }
+            // a stale file at this path may be a link to a cached archive, which must not be overwritten in place
+            Files.deleteIfExists(zipPath);
+        }
+
+        ProgressCounter progressCounter = progressNotifier.track(stagedUpload.taskId());
+        try {
+            if (format != ArchiveFormat.ZIP) {
+                zipArchiveCreator.createArchiveFromPaths(format, stagedUpload.files(), zipPath, stagedUpload.uploadDir(),
+                        progressCounter);
+            } else {
+                Path previousArchive = findPreviousArchive(fileSetId, zipPath);
+
+                if (previousArchive == null || !tryUpdateZipArchive(previousArchive, stagedUpload, zipPath, progressCounter)) {
+                    zipArchiveCreator.createZipArchiveFromPaths(stagedUpload.files(), zipPath, stagedUpload.uploadDir(),
+                            progressCounter);
+                }
+            }
+        } finally {
+            progressNotifier.untrack(stagedUpload.taskId());
+        }
+
+        if (digest != null) {
+            archiveCache.store(digest, zipPath);
+        }
+    }
+
+    /**
+     * Finds the latest single-file archive of the FileSet that is still on disk, i.e. one that was retained
+     * or is still waiting to be sent.
+     *
+     * @return The path of the archive, or {@code null} if there is none.
+     */
+    private Path findPreviousArchive(Long fileSetId, Path zipPath) {
+        return zipArchiveRepository.findSingleArchivesByFileSetIdLatestFirst(fileSetId).stream()
+                .map(archive -> Path.of(archive.getArchivePath()))
+                .filter(path -> !path.equals(zipPath.toAbsolutePath()) && Files.isRegularFile(path))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Updates the previous archive into {@code zipPath}. The previous archive may be deleted by the dispatcher
+     * in the meantime, so any failure falls back to a full build.
+     *
+     * @return {@code true} if the archive was built, {@code false} if it has to be built from scratch.
+     */
+    private boolean tryUpdateZipArchive(Path previousArchive, StagedUpload stagedUpload, Path zipPath,
+                                        ProgressCounter progressCounter) {
+        try {
+            int reusedEntries = zipArchiveCreator.updateZipArchive(previousArchive, stagedUpload.files(), zipPath,
+                    stagedUpload.uploadDir(), progressCounter);
+            log.info("Updated {} from {}, reused {} of {} entries", zipPath.getFileName(), previousArchive.getFileName(),
+                    reusedEntries, stagedUpload.files().size());
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Incremental update from {} failed, rebuilding the archive", previousArchive, ex);
+            return false;
+        }
+    }
+
     /**
      * Retrieves the FileSet entity from the database, including its associated files.
      * * @param fileSetId The unique identifier of the FileSet.
@@ -202,74 +456,90 @@ public class ZipArchiveService {
                 .orElseThrow(() -> new FileSetNotFoundException("FileSet not found"));
     }
 
-    /**
-     * Sends a STOMP message to a specific task topic via the WebSocket message broker.
-     * * @param taskId   The unique ID of the task used as the destination variable.
-     *
-     * @param percent The current progress percentage.
-     * @param message A descriptive status message for the user.
-     */
+    private List<String> distinctRecipients(List<String> recipientEmails) {
+        return recipientEmails.stream()
+                .map(String::trim)
+                .filter(email -> !email.isEmpty())
+                .distinct()
+                .toList();
+    }
+
     private void notifyProgress(String taskId, int percent, String message) {
-        messagingTemplate.convertAndSend("/topic/progress/" + taskId, new ProgressUpdate(percent, message));
+        progressNotifier.publish(taskId, percent, message);
     }
 
     /**
-     * Persists the initial record of the ZIP archive in the database.
-     * The archive is saved with a PENDING status before the email attempt begins.
-     * * @param fileSet        The source FileSet.
+     * Builds the initial record of the ZIP archive in PENDING status.
+     * The record is persisted before the email attempt begins.
      *
+     * @param fileSet        The source FileSet.
      * @param zipPath        Path where the archive was created.
      * @param recipientEmail The target recipient's address.
-     * @return The saved ZipArchive entity.
-     * @throws IOException If file size metadata cannot be read from the disk.
+     * @param deliveryMode   Whether the archive is attached, sent as a download link or split into parts.
+     * @param size           Size of the archive in bytes.
+     * @param partCount      Number of parts of a split archive, {@code null} otherwise.
+     * @return The unsaved ZipArchive entity.
      */
-    private ZipArchive registerZipArchive(FileSet fileSet, Path zipPath, String recipientEmail, int sendCounter) throws IOException {
+    private ZipArchive buildZipArchive(FileSet fileSet, Path zipPath, String recipientEmail, int sendCounter,
+                                       DeliveryMode deliveryMode, long size, Integer partCount) {
 
-        return zipArchiveRepository.save(ZipArchive.builder()
+        return ZipArchive.builder()
                 .archiveName(zipPath.getFileName().toString())
                 .archivePath(zipPath.toAbsolutePath().toString())
-                .size(Files.size(zipPath))
+                .size(size)
                 .status(ZipArchiveStatus.PENDING)
+                .deliveryMode(deliveryMode)
+                .partCount(partCount)
                 .recipientEmail(recipientEmail)
                 .fileSet(fileSet)
                 .user(fileSet.getUser())
                 .sendNumber(sendCounter)
-                .build()
-        );
+                .build();
     }
 
     /**
-     * Handles the final stage of the workflow: email delivery and status finalization.
-     * If the email is sent successfully, it updates the archive and fileset statuses to SUCCESS/SENT.
-     * In case of failure, it logs the error and records a failure entry in the sent history.
-     * * @param zipArchive The registered archive entity.
+     * Delivers an oversized file set as several independent ZIP parts, one email per part. Once every part was
+     * compressed, the archive is registered together with all of its outbox entries in one transaction; a failed part
+     * fails the whole send before anything is registered for mailing.
      *
-     * @param fileSet The source file set.
-     * @param zipPath The physical path to the ZIP file.
-     * @param taskId  The task ID for progress updates.
+     * @param fileSet        The source FileSet.
+     * @param parts          The planned parts.
+     * @param zipPath        Path of the logical archive; part files are stored next to it.
+     * @param recipientEmail Target email address.
+     * @param sendCounter    The send number of the archive within the FileSet.
+     * @param stagedUpload   The staged upload containing taskId, file paths, and upload directory.
+     * @throws IOException If the size of a part cannot be read while registering it.
      */
-    private void sendAndFinalize(ZipArchive zipArchive, FileSet fileSet, Path zipPath, String taskId) {
-        try {
-            notifyProgress(taskId, 95, "Sending email...");
-            zipEmailSender.sendZipArchiveByEmail(zipArchive.getRecipientEmail(), zipPath, "Files", "Please find attached the ZIP archive of requested files");
-
-            zipArchiveStatusService.updateDatabaseAfterSuccess(zipArchive.getId(), fileSet.getId());
-            sentHistoryService.saveSentHistory(zipArchive, zipArchive.getRecipientEmail(), true, null);
-            notifyProgress(taskId, 100, "Completed!");
-
-        } catch (Exception ex) {
-            if (ex.getMessage() != null && ex.getMessage().contains("552-5.7.0")) {
-                log.warn("Detected Gmail 552-5.7.0 security warning. Message likely delivered. Finalizing as SUCCESS.");
+    private void splitAndQueue(FileSet fileSet, List<ZipPart> parts, Path zipPath, String recipientEmail,
+                               int sendCounter, StagedUpload stagedUpload) throws IOException {
+
+        List<CompressedPart> compressedParts = splitArchivePipeline.compressParts(parts, zipPath, stagedUpload.uploadDir(),
+                (percent, msg) -> notifyProgress(stagedUpload.taskId(), percent, msg));
+
+        List<CompressedPart> failed = compressedParts.stream()
+                .filter(part -> part.failure() != null)
+                .toList();
+        long totalSize = compressedParts.stream().mapToLong(CompressedPart::size).sum();
+        ZipArchive zipArchive = buildZipArchive(fileSet, zipPath, recipientEmail, sendCounter, DeliveryMode.SPLIT,
+                totalSize, parts.size());
+
+        if (!failed.isEmpty()) {
+            compressedParts.forEach(part -> cleanUp(part.partPath()));
+            zipArchiveStatusService.registerFailedSplitDelivery(zipArchive, failed);
+            notifyProgress(stagedUpload.taskId(), -1, "Error: " + failed.size() + " of " + parts.size()
+                    + " parts could not be created, no part was sent");
+            return;
+        }
 
-                zipArchiveStatusService.updateDatabaseAfterSuccess(zipArchive.getId(), fileSet.getId());
-                sentHistoryService.saveSentHistory(zipArchive, zipArchive.getRecipientEmail(), true, "Sent with Gmail security warning");
-                notifyProgress(taskId, 100, "Completed with warnings");
-            } else {
-                log.error("CRITICAL DELIVERY FAILURE: {}", ex.getMessage());
-                zipArchiveStatusService.updateDatabaseAfterFailure(zipArchive.getId(), ex.getMessage());
-                notifyProgress(taskId, -1, "Error: " + ex.getMessage());
-            }
+        Timer.Sample registrationSample = metrics.startTimer();
+        String registrationOutcome = ZipPipelineMetrics.OUTCOME_FAILURE;
+        try {
+            zipArchiveStatusService.registerForSplitDelivery(zipArchive, compressedParts, stagedUpload.taskId());
+            registrationOutcome = ZipPipelineMetrics.OUTCOME_SUCCESS;
+        } finally {
+            metrics.stopTimer(registrationSample, ZipPipelineMetrics.Stage.REGISTRATION, registrationOutcome);
         }
+        taskRegistry.transition(stagedUpload.taskId(), TaskStage.REGISTERED, "Queued " + parts.size() + " parts for sending");
     }
 
     /**
@@ -282,9 +552,7 @@ public class ZipArchiveService {
      */
     private void handleError(String taskId, Exception ex) {
         log.error("Error", ex);
-        messagingTemplate.convertAndSend("/topic/progress/" + taskId,
-                new ProgressUpdate(-1, "Error: " + ex.getMessage())
-        );
+        notifyProgress(taskId, -1, "Error: " + ex.getMessage());
     }
 
     /**
@@ -1,10 +1,13 @@
 package com.jerzymaj.file_researcher_backend.services;
 
+import com.jerzymaj.file_researcher_backend.DTOs.CompressedPart;
 import com.jerzymaj.file_researcher_backend.exceptions.FileSetNotFoundException;
 import com.jerzymaj.file_researcher_backend.exceptions.ZipArchiveNotFoundException;
 import com.jerzymaj.file_researcher_backend.models.FileSet;
+import com.jerzymaj.file_researcher_backend.models.SentHistory;
 import com.jerzymaj.file_researcher_backend.models.ZipArchive;
 import com.jerzymaj.file_researcher_backend.models.enum_classes.FileSetStatus;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.SendStatus;
 import com.jerzymaj.file_researcher_backend.models.enum_classes.ZipArchiveStatus;
 import com.jerzymaj.file_researcher_backend.repositories.FileSetRepository;
 import com.jerzymaj.file_researcher_backend.repositories.ZipArchiveRepository;
@@ -13,6 +16,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -21,6 +28,86 @@ public class ZipArchiveStatusService {
     private final ZipArchiveRepository zipArchiveRepository;
     private final FileSetRepository fileSetRepository;
     private final SentHistoryService sentHistoryService;
+    private final EmailOutboxService emailOutboxService;
+
+    /**
+     * Persists a new archive in PENDING status together with the outbox entry of its email, in one transaction.
+     *
+     * @param zipArchive     The archive to register.
+     * @param attachmentPath File to attach, or {@code null} when only a download link is sent.
+     * @param taskId         Task ID used for progress updates.
+     * @return The saved archive.
+     * @throws IOException If the size of the attachment cannot be read.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    public ZipArchive registerForDelivery(ZipArchive zipArchive, Path attachmentPath, String taskId) throws IOException {
+        ZipArchive savedArchive = zipArchiveRepository.save(zipArchive);
+        emailOutboxService.enqueue(savedArchive, null, attachmentPath, taskId);
+
+        return savedArchive;
+    }
+
+    /**
+     * Persists a new archive in PENDING status together with one outbox entry per recipient.
+     * Like {@link #registerForDelivery}, everything is written in a single transaction.
+     *
+     * @param zipArchive     The archive to register.
+     * @param recipients     Distinct recipient addresses.
+     * @param attachmentPath File to attach, or {@code null} when only a download link is sent.
+     * @param taskId         Task ID used for progress updates.
+     * @return The saved archive.
+     * @throws IOException If the size of the attachment cannot be read.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    public ZipArchive registerForBatchDelivery(ZipArchive zipArchive, List<String> recipients, Path attachmentPath,
+                                               String taskId) throws IOException {
+        ZipArchive savedArchive = zipArchiveRepository.save(zipArchive);
+        emailOutboxService.enqueueForRecipients(savedArchive, recipients, attachmentPath, taskId);
+
+        return savedArchive;
+    }
+
+    /**
+     * Persists a new split archive in PENDING status together with the outbox entries of all of its parts.
+     * Like {@link #registerForDelivery}, everything is written in a single transaction.
+     *
+     * @param zipArchive The archive to register.
+     * @param parts      The compressed parts, each attached to its own email.
+     * @param taskId     Task ID used for progress updates.
+     * @return The saved archive.
+     * @throws IOException If the size of a part cannot be read.
+     */
+    @Transactional(rollbackOn = Exception.class)
+    public ZipArchive registerForSplitDelivery(ZipArchive zipArchive, List<CompressedPart> parts, String taskId)
+            throws IOException {
+        ZipArchive savedArchive = zipArchiveRepository.save(zipArchive);
+        for (CompressedPart part : parts) {
+            emailOutboxService.enqueue(savedArchive, part.partNumber(), part.partPath(), taskId);
+        }
+
+        return savedArchive;
+    }
+
+    /**
+     * Persists a split archive whose parts could not all be compressed, in FAILED status and with one sent history
+     * entry per failed part. Nothing is queued for sending.
+     *
+     * @param zipArchive  The archive to register.
+     * @param failedParts The parts that could not be compressed.
+     * @return The saved archive.
+     */
+    @Transactional
+    public ZipArchive registerFailedSplitDelivery(ZipArchive zipArchive, List<CompressedPart> failedParts) {
+        zipArchive.setStatus(ZipArchiveStatus.FAILED);
+        ZipArchive savedArchive = zipArchiveRepository.save(zipArchive);
+
+        for (CompressedPart part : failedParts) {
+            sentHistoryService.saveSentHistory(savedArchive, savedArchive.getRecipientEmail(), false,
+                    part.failure().getMessage(), part.partNumber());
+        }
+
+        return savedArchive;
+    }
 
     @Transactional
     public void updateDatabaseAfterSuccess(Long archiveId, Long fileSetId) {
@@ -39,6 +126,76 @@ public class ZipArchiveStatusService {
         log.info("Successfully updated database after sending Zip and ZipArchive creation");
     }
 
+    /**
+     * Finalizes a split archive once every part has been processed. Failures of single parts
+     * are already recorded in the sent history, so only the archive and FileSet statuses are updated here.
+     * Like {@link #updateDatabaseAfterBatchDelivery}, only the caller that wins the conditional status switch does so.
+     *
+     * @param archiveId     ID of the split ZipArchive.
+     * @param fileSetId     ID of the associated FileSet.
+     * @param totalSize     Sum of the sizes of all created parts.
+     * @param allPartsSent  Whether every part was delivered.
+     * @return {@code true} if this call finalized the archive, {@code false} if it was already finalized.
+     */
+    @Transactional
+    public boolean updateDatabaseAfterSplitDelivery(Long archiveId, Long fileSetId, long totalSize, boolean allPartsSent) {
+        int updated = zipArchiveRepository.updateStatusIfCurrent(archiveId, ZipArchiveStatus.PENDING,
+                allPartsSent ? ZipArchiveStatus.SUCCESS : ZipArchiveStatus.FAILED);
+        if (updated == 0) {
+            return false;
+        }
+
+        ZipArchive zipArchive = zipArchiveRepository.findById(archiveId)
+                .orElseThrow(() -> new ZipArchiveNotFoundException("Archive not found"));
+
+        zipArchive.setSize(totalSize);
+        zipArchiveRepository.saveAndFlush(zipArchive);
+
+        if (allPartsSent) {
+            FileSet fileSet = fileSetRepository.findById(fileSetId)
+                    .orElseThrow(() -> new FileSetNotFoundException("FileSet not found"));
+
+            fileSet.setStatus(FileSetStatus.SENT);
+            fileSetRepository.saveAndFlush(fileSet);
+        }
+        log.info("Updated database after split delivery of ZipArchive {}", archiveId);
+        return true;
+    }
+
+    /**
+     * Finalizes an archive sent to several recipients once every email has reached a terminal state, writing the sent
+     * history of all recipients in one batch. Only the caller that wins the conditional status switch writes it, so no
+     * recipient is recorded twice.
+     *
+     * @param archiveId     ID of the ZipArchive.
+     * @param fileSetId     ID of the associated FileSet.
+     * @param sentHistories One history entry per recipient.
+     * @return {@code true} if this call finalized the archive, {@code false} if it was already finalized.
+     */
+    @Transactional
+    public boolean updateDatabaseAfterBatchDelivery(Long archiveId, Long fileSetId, List<SentHistory> sentHistories) {
+        boolean allRecipientsReached = sentHistories.stream()
+                .allMatch(sentHistory -> sentHistory.getStatus() == SendStatus.SUCCESS);
+
+        int updated = zipArchiveRepository.updateStatusIfCurrent(archiveId, ZipArchiveStatus.PENDING,
+                allRecipientsReached ? ZipArchiveStatus.SUCCESS : ZipArchiveStatus.FAILED);
+        if (updated == 0) {
+            return false;
+        }
+
+        sentHistoryService.saveAllSentHistory(sentHistories);
+
+        if (allRecipientsReached) {
+            FileSet fileSet = fileSetRepository.findById(fileSetId)
+                    .orElseThrow(() -> new FileSetNotFoundException("FileSet not found"));
+
+            fileSet.setStatus(FileSetStatus.SENT);
+            fileSetRepository.saveAndFlush(fileSet);
+        }
+        log.info("Updated database after delivery of ZipArchive {} to {} recipients", archiveId, sentHistories.size());
+        return true;
+    }
+
     @Transactional
     public void updateDatabaseAfterFailure(Long archiveId, String errorMessage) {
         zipArchiveRepository.findById(archiveId).ifPresent(archive -> {
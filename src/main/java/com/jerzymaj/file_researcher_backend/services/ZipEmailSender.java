@@ -1,5 +1,6 @@
 package com.jerzymaj.file_researcher_backend.services;
 
+import com.jerzymaj.file_researcher_backend.DTOs.DownloadLink;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
@@ -15,9 +16,11 @@ import java.nio.file.Path;
 public class ZipEmailSender {
 
     private final JavaMailSender mailSender;
+    private final SmtpTransportPool smtpTransportPool;
 
     /**
      * Sends a ZIP archive as an email attachment to the specified recipient.
+     * The message goes out over a pooled SMTP connection, see {@link SmtpTransportPool}.
      *
      * @param recipientEmail the recipient's email address
      * @param zipFilePath    the path to the ZIP file to be sent
@@ -31,6 +34,23 @@ public class ZipEmailSender {
                                       String subject,
                                       String text) throws MessagingException {
 
+        sendZipArchiveByEmail(recipientEmail, zipFilePath, subject, text, null);
+    }
+
+    /**
+     * Sends a ZIP archive as an email attachment with a fixed Message-ID.
+     * Retries of the same delivery reuse the Message-ID, so receiving servers can recognise duplicates.
+     *
+     * @param messageId the Message-ID header value, or {@code null} to let the mail library generate one
+     * @throws MessagingException if an error occurs while sending the email
+     */
+
+    public void sendZipArchiveByEmail(String recipientEmail,
+                                      Path zipFilePath,
+                                      String subject,
+                                      String text,
+                                      String messageId) throws MessagingException {
+
         MimeMessage message = mailSender.createMimeMessage();
         MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
@@ -39,7 +59,44 @@ public class ZipEmailSender {
         helper.setText(text);
         helper.addAttachment(zipFilePath.getFileName().toString(),
                 new FileSystemResource(zipFilePath.toFile()));
+        setMessageId(message, messageId);
+
+        smtpTransportPool.send(message);
+    }
+
+    /**
+     * Sends a plain email containing a download link instead of attaching the archive.
+     * Used for archives that exceed the provider's attachment size limits.
+     *
+     * @param recipientEmail the recipient's email address
+     * @param downloadLink   the link under which the archive can be downloaded
+     * @param subject        the subject of the email
+     * @param text           the body text of the email, the link is appended below it
+     * @param messageId      the Message-ID header value, or {@code null} to let the mail library generate one
+     * @throws MessagingException if an error occurs while sending the email
+     */
+
+    public void sendDownloadLinkByEmail(String recipientEmail,
+                                        DownloadLink downloadLink,
+                                        String subject,
+                                        String text,
+                                        String messageId) throws MessagingException {
+
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+
+        helper.setTo(recipientEmail);
+        helper.setSubject(subject);
+        helper.setText(text + "\n\n" + downloadLink.uri()
+                + "\n\nThe link is valid until " + downloadLink.expiresAt() + ".");
+        setMessageId(message, messageId);
+
+        smtpTransportPool.send(message);
+    }
 
-        mailSender.send(message);
+    private void setMessageId(MimeMessage message, String messageId) throws MessagingException {
+        if (messageId != null) {
+            message.setHeader("Message-ID", messageId);
+        }
     }
 }
@@ -0,0 +1,150 @@
+package com.jerzymaj.file_researcher_backend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+@Component
+@RequiredArgsConstructor
+public class ZipPipelineMetrics {
+
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_FAILURE = "failure";
+
+    private static final double BYTES_PER_MEGABYTE = 1024 * 1024;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Stages of the upload-to-email pipeline, each recorded under the {@code stage} tag of {@code zip.pipeline.stage}.
+     */
+    public enum Stage {
+        STAGING,
+        SIZING,
+        COMPRESSION,
+        REGISTRATION,
+        SMTP_SEND,
+        CLEANUP;
+
+        private String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public Timer.Sample startTimer() {
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * Records the duration of one pipeline stage in the shared stage timer, tagged by stage and outcome.
+     *
+     * @param sample  Sample returned by {@link #startTimer()}.
+     * @param stage   The stage that was timed.
+     * @param outcome {@link #OUTCOME_SUCCESS}, {@link #OUTCOME_FAILURE} or another stage-specific outcome.
+     */
+
+    public void stopTimer(Timer.Sample sample, Stage stage, String outcome) {
+        sample.stop(Timer.builder("zip.pipeline.stage")
+                .description("Duration of a ZIP pipeline stage")
+                .tag("stage", stage.tag())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * Records the volume and speed of one finished compression.
+     *
+     * @param bytesIn  Total size of the source files.
+     * @param bytesOut Size of the written archive.
+     * @param elapsed  Time spent compressing.
+     */
+
+    public void recordCompression(long bytesIn, long bytesOut, Duration elapsed) {
+        summary("zip.compression.bytes.in", "Uncompressed bytes per archive", "bytes").record(bytesIn);
+        summary("zip.compression.bytes.out", "Compressed bytes per archive", "bytes").record(bytesOut);
+
+        if (bytesIn > 0) {
+            DistributionSummary.builder("zip.compression.ratio")
+                    .description("Compressed size divided by uncompressed size")
+                    .serviceLevelObjectives(0.1, 0.25, 0.5, 0.75, 0.9, 1.0)
+                    .register(meterRegistry)
+                    .record((double) bytesOut / bytesIn);
+        }
+
+        if (!elapsed.isZero() && !elapsed.isNegative()) {
+            double seconds = elapsed.toNanos() / 1_000_000_000.0;
+            summary("zip.compression.throughput", "Uncompressed megabytes processed per second", "megabytes.per.second")
+                    .record(bytesIn / BYTES_PER_MEGABYTE / seconds);
+        }
+    }
+
+    /**
+     * Counts lookups of the content-hash archive cache by result, {@code hit} or {@code miss}.
+     *
+     * @param hit Whether a cached archive was reused.
+     */
+
+    public void recordCacheLookup(boolean hit) {
+        Counter.builder("zip.archive.cache.lookups")
+                .description("Lookups of built archives by content digest")
+                .tag("result", hit ? "hit" : "miss")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts the deflate levels chosen by {@link CompressionGovernor}, one per compressed archive.
+     *
+     * @param level  The chosen level, {@code -1} for zlib's default and {@code 0} for stored entries.
+     * @param reason What drove the choice: {@code fixed}, {@code idle}, {@code queue} or {@code cpu}.
+     */
+
+    public void recordCompressionLevel(int level, String reason) {
+        Counter.builder("zip.compression.level")
+                .description("Deflate levels chosen for archives")
+                .tag("level", level < 0 ? "default" : String.valueOf(level))
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts Deflaters handed out by {@link DeflaterPool} by result, {@code reused} from the pool or {@code created}.
+     *
+     * @param reused Whether an idle pooled Deflater was available.
+     */
+
+    public void recordDeflaterBorrow(boolean reused) {
+        Counter.builder("zip.deflater.pool.borrows")
+                .description("Deflaters borrowed for compressing archives")
+                .tag("result", reused ? "reused" : "created")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts deliveries finalized as successful although Gmail answered with its 552-5.7.0 security warning.
+     */
+
+    public void recordGmailWarning() {
+        Counter.builder("zip.delivery.gmail.warnings")
+                .description("Deliveries accepted with a Gmail 552-5.7.0 security warning")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private DistributionSummary summary(String name, String description, String baseUnit) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit(baseUnit)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,35 @@
+package com.jerzymaj.file_researcher_backend.integration_tests;
+
+import com.jerzymaj.file_researcher_backend.configuration.TestMailConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestMailConfig.class)
+@ActiveProfiles("test")
+public class ActuatorSecurityIntegrationTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void shouldServeHealth_WithoutAuthentication() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void shouldRejectPrometheusScrape_WithoutAuthentication() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,190 @@
+package com.jerzymaj.file_researcher_backend.integration_tests;
+
+import com.jerzymaj.file_researcher_backend.DTOs.ProgressUpdate;
+import com.jerzymaj.file_researcher_backend.configuration.TestMailConfig;
+import com.jerzymaj.file_researcher_backend.services.ProgressNotifier;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.ReactorNettyTcpStompClient;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the application in broker-relay mode against an embedded Artemis STOMP broker. The direct broker
+ * connection stands in for another instance of the application sharing the same broker.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:relaydb;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "app.ws.broker.relay.enabled=true"
+})
+@Import(TestMailConfig.class)
+@ActiveProfiles("test")
+@DirtiesContext
+public class BrokerRelayIntegrationTests {
+
+    private static final int BROKER_PORT = freePort();
+
+    @TempDir
+    static Path brokerDir;
+
+    private static EmbeddedActiveMQ broker;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ProgressNotifier progressNotifier;
+
+    @Autowired
+    private StompBrokerRelayMessageHandler stompBrokerRelayMessageHandler;
+
+    private ReactorNettyTcpStompClient brokerClient;
+    private StompSession otherInstanceSession;
+
+    @DynamicPropertySource
+    static void relayProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.ws.broker.relay.port", () -> BROKER_PORT);
+    }
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        ConfigurationImpl configuration = new ConfigurationImpl();
+        configuration.setBrokerInstance(brokerDir.toFile());
+        configuration.setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setPagingDirectory(brokerDir.resolve("paging").toString())
+                .setBindingsDirectory(brokerDir.resolve("bindings").toString())
+                .setJournalDirectory(brokerDir.resolve("journal").toString())
+                .setLargeMessagesDirectory(brokerDir.resolve("large-messages").toString())
+                .addAcceptorConfiguration("stomp",
+                        "tcp://localhost:" + BROKER_PORT + "?protocols=STOMP;multicastPrefix=/topic/");
+
+        broker = new EmbeddedActiveMQ().setConfiguration(configuration);
+        broker.start();
+    }
+
+    @AfterAll
+    static void stopBroker() throws Exception {
+        broker.stop();
+    }
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Awaitility.await().atMost(Duration.ofSeconds(20))
+                .until(stompBrokerRelayMessageHandler::isBrokerAvailable);
+
+        brokerClient = new ReactorNettyTcpStompClient("localhost", BROKER_PORT);
+        brokerClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.setLogin("guest");
+        connectHeaders.setPasscode("guest");
+        otherInstanceSession = brokerClient.connectAsync(connectHeaders, new StompSessionHandlerAdapter() {
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        otherInstanceSession.disconnect();
+        brokerClient.shutdown();
+    }
+
+    @Test
+    public void shouldDeliverProgressFromAnotherInstance_ToWebSocketClientOfThisInstance() throws Exception {
+        WebSocketStompClient webSocketClient = new WebSocketStompClient(new SockJsClient(
+                List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        webSocketClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        StompSession browserSession = webSocketClient.connectAsync("ws://localhost:" + port + "/ws",
+                new StompSessionHandlerAdapter() {
+                }).get(10, TimeUnit.SECONDS);
+
+        try {
+            Queue<ProgressUpdate> received = new ConcurrentLinkedQueue<>();
+            browserSession.subscribe("/topic/progress/task-relay-1", collectInto(received));
+
+            // the subscription is relayed asynchronously, so publish until it is in place
+            Awaitility.await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(200))
+                    .untilAsserted(() -> {
+                        otherInstanceSession.send("/topic/progress/task-relay-1", new ProgressUpdate(42, "Compressing on node B"));
+                        assertFalse(received.isEmpty());
+                    });
+
+            assertEquals(new ProgressUpdate(42, "Compressing on node B"), received.peek());
+        } finally {
+            browserSession.disconnect();
+            webSocketClient.stop();
+        }
+    }
+
+    @Test
+    public void shouldPublishProgressThroughBroker_ToSubscribersOfOtherInstances() {
+        Queue<ProgressUpdate> received = new ConcurrentLinkedQueue<>();
+        otherInstanceSession.subscribe("/topic/progress/task-relay-2", collectInto(received));
+
+        Awaitility.await().atMost(Duration.ofSeconds(10)).pollInterval(Duration.ofMillis(200))
+                .untilAsserted(() -> {
+                    progressNotifier.publish("task-relay-2", 50, "Compressing on node A");
+                    assertFalse(received.isEmpty());
+                });
+
+        assertEquals(new ProgressUpdate(50, "Compressing on node A"), received.peek());
+    }
+
+    private StompFrameHandler collectInto(Queue<ProgressUpdate> received) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return ProgressUpdate.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((ProgressUpdate) payload);
+            }
+        };
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new IllegalStateException("No free port for the embedded broker", e);
+        }
+    }
+}
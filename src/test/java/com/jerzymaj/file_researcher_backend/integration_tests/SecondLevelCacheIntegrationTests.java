@@ -0,0 +1,86 @@
+package com.jerzymaj.file_researcher_backend.integration_tests;
+
+import com.jerzymaj.file_researcher_backend.models.FileEntry;
+import com.jerzymaj.file_researcher_backend.models.User;
+import com.jerzymaj.file_researcher_backend.repositories.FileEntryRepository;
+import com.jerzymaj.file_researcher_backend.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class SecondLevelCacheIntegrationTests {
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    FileEntryRepository fileEntryRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        userRepository.findByName("cached-user").ifPresent(userRepository::delete);
+        fileEntryRepository.findByPath("/cache/report.txt").ifPresent(fileEntryRepository::delete);
+    }
+
+    @Test
+    public void shouldServeRepeatedUserLookup_FromSecondLevelCache() {
+        User user = new User();
+        user.setName("cached-user");
+        user.setEmail("cached@mail.com");
+        user.setPassword("secret123");
+        Long userId = userRepository.save(user).getId();
+
+        // each lookup runs in a session of its own, so only the shared cache can spare the query
+        assertEquals(userId, userRepository.findByName("cached-user").map(User::getId).orElseThrow());
+        statistics.clear();
+
+        Optional<User> cached = userRepository.findByName("cached-user");
+
+        assertEquals(userId, cached.map(User::getId).orElseThrow());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getNaturalIdCacheHitCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    public void shouldServeRepeatedFileEntryLookup_FromSecondLevelCache_AndForgetDeletedEntry() {
+        FileEntry fileEntry = fileEntryRepository.save(FileEntry.builder()
+                .name("report.txt")
+                .path("/cache/report.txt")
+                .size(10L)
+                .extension("txt")
+                .build());
+
+        fileEntryRepository.findByPath("/cache/report.txt").orElseThrow();
+        statistics.clear();
+
+        assertEquals(fileEntry.getId(), fileEntryRepository.findByPath("/cache/report.txt").map(FileEntry::getId).orElseThrow());
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        fileEntryRepository.delete(fileEntry);
+
+        assertTrue(fileEntryRepository.findByPath("/cache/report.txt").isEmpty());
+    }
+}
@@ -0,0 +1,146 @@
+package com.jerzymaj.file_researcher_backend.integration_tests;
+
+import com.jerzymaj.file_researcher_backend.configuration.ApiRoutes;
+import com.jerzymaj.file_researcher_backend.configuration.TestMailConfig;
+import com.jerzymaj.file_researcher_backend.configuration.WithMockCustomUser;
+import com.jerzymaj.file_researcher_backend.models.User;
+import com.jerzymaj.file_researcher_backend.repositories.UserRepository;
+import com.jerzymaj.file_researcher_backend.services.ProgressNotifier;
+import com.jerzymaj.file_researcher_backend.services.TaskRegistry;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestMailConfig.class)
+@ActiveProfiles("test")
+public class TaskControllerIntegrationTests {
+
+    private static final Pattern EVENT_ID = Pattern.compile("id:(\\d+)");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TaskRegistry taskRegistry;
+
+    @Autowired
+    private ProgressNotifier progressNotifier;
+
+    private String taskId;
+
+    @BeforeEach
+    public void setUp() {
+        User user = userRepository.findByName("tester")
+                .orElseGet(() -> {
+                    User newUser = new User();
+                    newUser.setName("tester");
+                    newUser.setEmail("tester@mail.com");
+                    newUser.setPassword("secret123");
+                    return userRepository.save(newUser);
+                });
+
+        taskId = UUID.randomUUID().toString();
+        taskRegistry.start(taskId, user.getId());
+    }
+
+    @Test
+    @WithMockCustomUser
+    public void shouldStreamProgressUntilTaskIsDone() throws Exception {
+        MvcResult result = mockMvc.perform(get(ApiRoutes.TASKS + "/" + taskId + "/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        progressNotifier.publish(taskId, 40, "Processing a.txt");
+        progressNotifier.flush();
+        progressNotifier.publish(taskId, 100, "Completed!");
+        progressNotifier.flush();
+
+        MockHttpServletResponse response = result.getResponse();
+        Awaitility.await().atMost(Duration.ofSeconds(5))
+                .until(() -> response.getContentAsString().contains("\"percent\":100"));
+
+        String body = response.getContentAsString();
+        assertEquals(MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.parseMediaType(response.getContentType()).toString());
+        assertTrue(body.contains("event:progress"));
+        assertTrue(body.contains("data:{\"percent\":100,\"status\":\"Completed!\"}"));
+    }
+
+    @Test
+    @WithMockCustomUser
+    public void shouldReplayLatestState_OnlyWhenNewerThanLastEventId() throws Exception {
+        progressNotifier.publish(taskId, 100, "Completed!");
+        progressNotifier.flush();
+
+        MvcResult first = mockMvc.perform(get(ApiRoutes.TASKS + "/" + taskId + "/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Awaitility.await().atMost(Duration.ofSeconds(5))
+                .until(() -> first.getResponse().getContentAsString().contains("Completed!"));
+
+        Matcher matcher = EVENT_ID.matcher(first.getResponse().getContentAsString());
+        assertTrue(matcher.find());
+
+        MvcResult resumed = mockMvc.perform(get(ApiRoutes.TASKS + "/" + taskId + "/stream")
+                        .header("Last-Event-ID", matcher.group(1)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // the client has already seen the terminal event, so the stream completes without sending it again
+        resumed.getAsyncResult(5000);
+
+        assertFalse(resumed.getResponse().getContentAsString().contains("Completed!"));
+    }
+
+    @Test
+    @WithMockCustomUser
+    public void shouldSendLatestState_WhenLastEventIdIsFromBeforeRestart() throws Exception {
+        progressNotifier.publish(taskId, 100, "Completed!");
+        progressNotifier.flush();
+
+        // an id above anything this instance has handed out
+        MvcResult resumed = mockMvc.perform(get(ApiRoutes.TASKS + "/" + taskId + "/stream")
+                        .header("Last-Event-ID", Long.toString(Long.MAX_VALUE)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        resumed.getAsyncResult(5000);
+
+        assertTrue(resumed.getResponse().getContentAsString().contains("Completed!"));
+    }
+
+    @Test
+    @WithMockCustomUser(username = "intruder")
+    public void shouldRejectStreamOfAnotherUsersTask() throws Exception {
+        mockMvc.perform(get(ApiRoutes.TASKS + "/" + taskId + "/stream"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockCustomUser
+    public void shouldReturnNotFound_ForUnknownTaskStream() throws Exception {
+        mockMvc.perform(get(ApiRoutes.TASKS + "/unknown-task/stream"))
+                .andExpect(status().isNotFound());
+    }
+}
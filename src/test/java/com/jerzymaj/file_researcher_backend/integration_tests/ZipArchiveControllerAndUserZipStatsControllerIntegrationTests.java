@@ -6,6 +6,7 @@ import com.jerzymaj.file_researcher_backend.models.*;
 import com.jerzymaj.file_researcher_backend.models.enum_classes.FileSetStatus;
 import com.jerzymaj.file_researcher_backend.models.enum_classes.ZipArchiveStatus;
 import com.jerzymaj.file_researcher_backend.repositories.*;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.awaitility.Awaitility;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -56,6 +57,15 @@ public class ZipArchiveControllerAndUserZipStatsControllerIntegrationTests {
     @Autowired
     private SentHistoryRepository sentHistoryRepository;
 
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private TaskEventRepository taskEventRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private FileSet fileSet;
     MockMultipartFile file1;
     MockMultipartFile file2;
@@ -132,6 +142,66 @@ public class ZipArchiveControllerAndUserZipStatsControllerIntegrationTests {
                     assertFalse(archives.isEmpty());
                     assertEquals(ZipArchiveStatus.SUCCESS, archives.getFirst().getStatus());
                 });
+
+        for (String stage : List.of("staging", "sizing", "compression", "registration")) {
+            assertNotNull(meterRegistry.find("zip.pipeline.stage").tags("stage", stage, "outcome", "success").timer(),
+                    "No timer recorded for stage " + stage);
+        }
+    }
+
+    @Test
+    @WithMockCustomUser
+    public void shouldReturnTaskTimeline_ForUploadedFiles() throws Exception {
+        String taskId = mockMvc.perform(multipart("/file-researcher/file-sets/{fileSetId}/zip-archives/send-uploaded-files", fileSet.getId())
+                        .file(file1)
+                        .file(file2)
+                        .param("recipientEmail", "email@mail.com"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        waitTillArchivesFinished();
+
+        mockMvc.perform(get("/file-researcher/tasks/{taskId}", taskId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.taskId").value(taskId))
+                .andExpect(jsonPath("$.timeline[0].stage").value("STAGED"))
+                .andExpect(jsonPath("$.timeline[1].stage").value("QUEUED"))
+                .andExpect(jsonPath("$.timeline[2].stage").value("COMPRESSING"))
+                .andExpect(jsonPath("$.timeline[3].stage").value("REGISTERED"));
+
+        mockMvc.perform(get("/file-researcher/tasks/{taskId}", "unknown-task"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockCustomUser
+    public void shouldSendZipArchiveFromUploadedToSeveralRecipients() throws Exception {
+        mockMvc.perform(multipart("/file-researcher/file-sets/{fileSetId}/zip-archives/send-uploaded-files/batch", fileSet.getId())
+                        .file(file1)
+                        .file(file2)
+                        .param("recipientEmails", "first@mail.com", "second@mail.com", "first@mail.com"))
+                .andExpect(status().isOk());
+
+        Awaitility.await()
+                .atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> {
+                    List<ZipArchive> archives = zipArchiveRepository.findAllByFileSetId(fileSet.getId());
+                    assertEquals(1, archives.size());
+                    assertEquals(ZipArchiveStatus.SUCCESS, archives.getFirst().getStatus());
+                    assertEquals(2, archives.getFirst().getRecipientCount());
+                    assertEquals(2, sentHistoryRepository.findAllByZipArchiveId(archives.getFirst().getId()).size());
+                });
+    }
+
+    @Test
+    @WithMockCustomUser
+    public void shouldRejectBatchSend_IfRecipientEmailIsInvalid() throws Exception {
+        mockMvc.perform(multipart("/file-researcher/file-sets/{fileSetId}/zip-archives/send-uploaded-files/batch", fileSet.getId())
+                        .file(file1)
+                        .param("recipientEmails", "first@mail.com", "not-an-email"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -181,9 +251,7 @@ public class ZipArchiveControllerAndUserZipStatsControllerIntegrationTests {
                         .param("recipientEmail", "email@mail.com"))
                 .andExpect(status().isOk());
 
-        Awaitility.await()
-                .atMost(Duration.ofSeconds(5))
-                .until(() -> zipArchiveRepository.findByFileSetId(fileSet.getId()).isPresent());
+        waitTillArchivesFinished();
 
         ZipArchive zipArchive = zipArchiveRepository.findByFileSetId(fileSet.getId()).orElseThrow();
 
@@ -195,6 +263,58 @@ public class ZipArchiveControllerAndUserZipStatsControllerIntegrationTests {
         assertTrue(deleteZip.isEmpty(), "ZipArchive should be deleted from repository");
     }
 
+    @Test
+    @WithMockCustomUser
+    public void shouldDeleteFileSet_WithArchivesAndTheirHistory() throws Exception {
+        mockMvc.perform(multipart("/file-researcher/file-sets/{fileSetId}/zip-archives/send-uploaded-files", fileSet.getId())
+                        .file(file1)
+                        .file(file2)
+                        .param("recipientEmail", "email@mail.com"))
+                .andExpect(status().isOk());
+
+        waitTillArchivesFinished();
+
+        ZipArchive zipArchive = zipArchiveRepository.findByFileSetId(fileSet.getId()).orElseThrow();
+        assertFalse(sentHistoryRepository.findAllByZipArchiveId(zipArchive.getId()).isEmpty());
+
+        mockMvc.perform(delete("/file-researcher/file-sets/{fileSetId}", fileSet.getId()))
+                .andExpect(status().isOk());
+
+        assertTrue(fileSetRepository.findById(fileSet.getId()).isEmpty());
+        assertTrue(zipArchiveRepository.findById(zipArchive.getId()).isEmpty());
+        assertTrue(sentHistoryRepository.findAllByZipArchiveId(zipArchive.getId()).isEmpty());
+        assertTrue(emailOutboxRepository.findAllByZipArchiveId(zipArchive.getId()).isEmpty());
+        assertEquals(1, fileEntryRepository.count(), "File entries may be shared and should be kept");
+    }
+
+    @Test
+    @WithMockCustomUser
+    public void shouldDeleteCurrentUser_WithAllOfTheirData() throws Exception {
+        String taskId = mockMvc.perform(multipart("/file-researcher/file-sets/{fileSetId}/zip-archives/send-uploaded-files", fileSet.getId())
+                        .file(file1)
+                        .file(file2)
+                        .param("recipientEmail", "email@mail.com"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        waitTillArchivesFinished();
+
+        Long userId = fileSet.getUser().getId();
+
+        mockMvc.perform(delete("/file-researcher/users/delete-me"))
+                .andExpect(status().isNoContent());
+
+        assertTrue(userRepository.findById(userId).isEmpty());
+        assertTrue(userRepository.findByName("tester").isEmpty());
+        assertTrue(fileSetRepository.findAllByUserId(userId).isEmpty());
+        assertTrue(zipArchiveRepository.findAllByUserId(userId).isEmpty());
+        assertEquals(0, sentHistoryRepository.count());
+        assertEquals(0, emailOutboxRepository.count());
+        assertTrue(taskEventRepository.findAllByTaskIdOrderByIdAsc(taskId).isEmpty());
+    }
+
     @Test
     @WithMockCustomUser
     public void shouldRetrieveSentStatistics() throws Exception {
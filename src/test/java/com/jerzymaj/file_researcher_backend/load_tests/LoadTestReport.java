@@ -0,0 +1,107 @@
+package com.jerzymaj.file_researcher_backend.load_tests;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Collects latency, throughput and error counts per endpoint during a load run and formats them as a table.
+ * Latencies are recorded in a Micrometer timer with client-side percentiles, the same way the pipeline
+ * metrics are recorded in the application.
+ */
+public class LoadTestReport {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public <T> T measure(String endpoint, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            timer(endpoint).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            recordError(endpoint);
+            throw e;
+        }
+    }
+
+    public void record(String endpoint, Duration latency) {
+        timer(endpoint).record(latency);
+    }
+
+    public void recordError(String endpoint) {
+        timer(endpoint);
+        errors.computeIfAbsent(endpoint, key -> new AtomicLong()).incrementAndGet();
+    }
+
+    public void count(String name) {
+        Counter.builder("load." + name).register(registry).increment();
+    }
+
+    public long total(String endpoint) {
+        return timer(endpoint).count() + errorCount(endpoint);
+    }
+
+    public long errorCount(String endpoint) {
+        AtomicLong count = errors.get(endpoint);
+        return count != null ? count.get() : 0;
+    }
+
+    public double errorRate() {
+        long calls = timers.keySet().stream().mapToLong(this::total).sum();
+        long failed = errors.values().stream().mapToLong(AtomicLong::get).sum();
+        return calls == 0 ? 0 : (double) failed / calls;
+    }
+
+    public String format(Duration elapsed) {
+        double seconds = elapsed.toMillis() / 1000.0;
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT,
+                "%n%-22s %8s %8s %8s %9s %9s %9s %9s %9s%n",
+                "endpoint", "calls", "errors", "err %", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+
+        timers.keySet().stream().sorted().forEach(endpoint -> {
+            HistogramSnapshot snapshot = timers.get(endpoint).takeSnapshot();
+            long calls = total(endpoint);
+            long failed = errorCount(endpoint);
+
+            table.append(String.format(Locale.ROOT, "%-22s %8d %8d %8.2f %9.2f %9.1f %9.1f %9.1f %9.1f%n",
+                    endpoint, calls, failed, calls == 0 ? 0 : 100.0 * failed / calls, calls / seconds,
+                    percentile(snapshot, 0.5), percentile(snapshot, 0.9), percentile(snapshot, 0.99),
+                    snapshot.max(TimeUnit.MILLISECONDS)));
+        });
+
+        registry.find("load.progress.frames").counters().forEach(counter ->
+                table.append(String.format(Locale.ROOT, "STOMP progress frames received: %.0f%n", counter.count())));
+
+        return table.toString();
+    }
+
+    private Timer timer(String endpoint) {
+        return timers.computeIfAbsent(endpoint, name -> Timer.builder("load.latency")
+                .tag("endpoint", name)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(registry));
+    }
+
+    private double percentile(HistogramSnapshot snapshot, double percentile) {
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,325 @@
+package com.jerzymaj.file_researcher_backend.load_tests;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.jerzymaj.file_researcher_backend.DTOs.LoginRequest;
+import com.jerzymaj.file_researcher_backend.DTOs.ProgressUpdate;
+import com.jerzymaj.file_researcher_backend.DTOs.TaskStatusDTO;
+import com.jerzymaj.file_researcher_backend.configuration.ApiRoutes;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.TaskStage;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the full register, login, explore, create and send flow with concurrent virtual users against
+ * the running application, with H2 as the database and GreenMail as the SMTP server.
+ * Excluded from the default build; run it with {@code ./mvnw test -Pload-test}.
+ * <p>
+ * Tunable through system properties: {@code load.users} (concurrent virtual users), {@code load.duration},
+ * {@code load.rate} (send flows per second across all users), {@code load.files} and {@code load.file-size}
+ * (shape of each upload), {@code load.pipeline-timeout} and {@code load.max-error-rate}.
+ * </p>
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=INFO",
+        "logging.level.com.jerzymaj.file_researcher_backend=INFO",
+        "app.jwt.secret=bG9hZC10ZXN0LXNlY3JldC1rZXktdGhhdC1pcy1hdC1sZWFzdC02NC1ieXRlcy1sb25nLWZvci1oczUxMi1zaWduaW5n",
+        "app.mail.rate.messages-per-minute=1000000",
+        "app.mail.rate.max-parallel=16"
+})
+@ActiveProfiles("test")
+public class PipelineLoadTest {
+
+    private static final int USERS = Integer.getInteger("load.users", 10);
+    private static final Duration DURATION = DurationStyle.detectAndParse(System.getProperty("load.duration", "30s"));
+    private static final double RATE = Double.parseDouble(System.getProperty("load.rate", "5"));
+    private static final int FILES = Integer.getInteger("load.files", 20);
+    private static final int FILE_SIZE = Integer.getInteger("load.file-size", 16 * 1024);
+    private static final Duration PIPELINE_TIMEOUT =
+            DurationStyle.detectAndParse(System.getProperty("load.pipeline-timeout", "60s"));
+    private static final double MAX_ERROR_RATE = Double.parseDouble(System.getProperty("load.max-error-rate", "0.01"));
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withPerMethodLifecycle(false);
+
+    /**
+     * Sends through the in-process SMTP server instead of the no-op sender the integration tests use.
+     */
+    @TestConfiguration
+    static class GreenMailConfig {
+
+        @Bean
+        @Primary
+        public JavaMailSender greenMailSender() {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("localhost");
+            mailSender.setPort(ServerSetupTest.SMTP.getPort());
+            return mailSender;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    private final LoadTestReport report = new LoadTestReport();
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+    private RestClient restClient;
+    private WebSocketStompClient stompClient;
+
+    @Test
+    public void shouldSustainConfiguredLoad_WithinErrorBudget() throws Exception {
+        restClient = RestClient.create("http://localhost:" + port);
+        stompClient = new WebSocketStompClient(new SockJsClient(
+                List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        long pacingNanos = (long) (TimeUnit.SECONDS.toNanos(1) * USERS / RATE);
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> virtualUsers = new ArrayList<>();
+            for (int index = 0; index < USERS; index++) {
+                int userIndex = index;
+                virtualUsers.add(executor.submit(() -> runVirtualUser(userIndex, deadline, pacingNanos)));
+            }
+            for (Future<?> virtualUser : virtualUsers) {
+                virtualUser.get();
+            }
+        } finally {
+            stompClient.stop();
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        log.info("Load run: {} users, {} sends/s target, {}, {} files x {} bytes per upload",
+                USERS, RATE, elapsed, FILES, FILE_SIZE);
+        log.info("Load report:\n{}", report.format(elapsed));
+        log.info("Emails received by SMTP server: {}", greenMail.getReceivedMessages().length);
+
+        assertTrue(report.total("pipeline") > 0, "No send flow completed");
+        assertTrue(report.errorRate() <= MAX_ERROR_RATE,
+                "Error rate " + report.errorRate() + " exceeds " + MAX_ERROR_RATE);
+    }
+
+    private void runVirtualUser(int index, long deadline, long pacingNanos) {
+        String name = "load-" + runId + "-" + index;
+        String password = "password-" + index;
+        String token;
+        StompSession stompSession;
+
+        try {
+            report.measure("register", () -> restClient.post()
+                    .uri(ApiRoutes.USERS)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Map.of("name", name, "email", name + "@example.com", "password", password))
+                    .retrieve()
+                    .toBodilessEntity());
+
+            token = report.measure("login", () -> restClient.post()
+                    .uri(ApiRoutes.AUTHENTICATION + "/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(new LoginRequest(name, password))
+                    .retrieve()
+                    .body(String.class));
+
+            stompSession = stompClient.connectAsync("ws://localhost:" + port + "/ws", new StompSessionHandlerAdapter() {
+            }).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            report.recordError("session-setup");
+            return;
+        }
+
+        long nextStart = System.nanoTime();
+        try {
+            while (System.nanoTime() < deadline) {
+                try {
+                    runSendFlow(token, stompSession, name, index);
+                } catch (RuntimeException e) {
+                    // recorded in the report by the failing step
+                }
+
+                nextStart += pacingNanos;
+                long pause = nextStart - System.nanoTime();
+                if (pause > 0) {
+                    TimeUnit.NANOSECONDS.sleep(pause);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stompSession.disconnect();
+        }
+    }
+
+    private void runSendFlow(String token, StompSession stompSession, String name, int index) {
+        MultiValueMap<String, Object> scanParts = uploadParts(index);
+        scanParts.add("extension", ".txt");
+        report.measure("explorer-scan", () -> restClient.post()
+                .uri(ApiRoutes.FILE_EXPLORER + "/upload")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(scanParts)
+                .retrieve()
+                .toBodilessEntity());
+
+        MultiValueMap<String, Object> fileSetParts = uploadParts(index);
+        fileSetParts.add("name", name + "-" + System.nanoTime());
+        fileSetParts.add("description", "Load test file set");
+        fileSetParts.add("recipientEmail", name + "@example.com");
+        Map<?, ?> fileSet = report.measure("create-file-set", () -> restClient.post()
+                .uri(ApiRoutes.FILE_SETS + "/upload")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(fileSetParts)
+                .retrieve()
+                .body(Map.class));
+        long fileSetId = ((Number) fileSet.get("id")).longValue();
+
+        MultiValueMap<String, Object> sendParts = uploadParts(index);
+        sendParts.add("recipientEmail", name + "@example.com");
+        long sendStart = System.nanoTime();
+        String taskId = report.measure("send-uploaded-files", () -> restClient.post()
+                .uri(ApiRoutes.FILE_SETS + "/" + fileSetId + "/zip-archives/send-uploaded-files")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(sendParts)
+                .retrieve()
+                .body(String.class));
+
+        awaitPipeline(token, stompSession, taskId, sendStart);
+    }
+
+    /**
+     * Waits until the task reports 100% or a failure over STOMP. The subscription can only start once the
+     * task ID is known, so a task that finishes before it is caught by polling the task endpoint instead.
+     */
+    private void awaitPipeline(String token, StompSession stompSession, String taskId, long sendStart) {
+        CompletableFuture<Boolean> completion = new CompletableFuture<>();
+        StompSession.Subscription subscription = stompSession.subscribe("/topic/progress/" + taskId,
+                new StompFrameHandler() {
+                    @Override
+                    public Type getPayloadType(StompHeaders headers) {
+                        return ProgressUpdate.class;
+                    }
+
+                    @Override
+                    public void handleFrame(StompHeaders headers, Object payload) {
+                        report.count("progress.frames");
+                        ProgressUpdate update = (ProgressUpdate) payload;
+                        if (update.percent() >= 100) {
+                            completion.complete(true);
+                        } else if (update.percent() < 0) {
+                            completion.complete(false);
+                        }
+                    }
+                });
+
+        long timeout = sendStart + PIPELINE_TIMEOUT.toNanos();
+        try {
+            while (!completion.isDone()) {
+                if (System.nanoTime() > timeout) {
+                    throw new TimeoutException("Task " + taskId + " did not finish in " + PIPELINE_TIMEOUT);
+                }
+
+                try {
+                    completion.get(500, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    TaskStage stage = fetchStage(token, taskId);
+                    if (stage == TaskStage.DONE || stage == TaskStage.FAILED) {
+                        completion.complete(stage == TaskStage.DONE);
+                    }
+                }
+            }
+
+            if (completion.get()) {
+                report.record("pipeline", Duration.ofNanos(System.nanoTime() - sendStart));
+            } else {
+                report.recordError("pipeline");
+            }
+        } catch (Exception e) {
+            report.recordError("pipeline");
+        } finally {
+            subscription.unsubscribe();
+        }
+    }
+
+    private TaskStage fetchStage(String token, String taskId) {
+        TaskStatusDTO status = restClient.get()
+                .uri(ApiRoutes.TASKS + "/" + taskId)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .retrieve()
+                .body(TaskStatusDTO.class);
+        return status != null ? status.stage() : null;
+    }
+
+    private MultiValueMap<String, Object> uploadParts(int userIndex) {
+        MultiValueMap<String, Object> parts = new LinkedMultiValueMap<>();
+
+        for (int index = 0; index < FILES; index++) {
+            String filename = "upload-" + userIndex + "/dir-" + (index % 4) + "/file-" + index + ".txt";
+            parts.add("files", new ByteArrayResource(content(index)) {
+                @Override
+                public String getFilename() {
+                    return filename;
+                }
+            });
+        }
+
+        return parts;
+    }
+
+    private byte[] content(int seed) {
+        StringBuilder text = new StringBuilder(FILE_SIZE);
+        while (text.length() < FILE_SIZE) {
+            text.append("line ").append(seed).append(' ').append(text.length()).append('\n');
+        }
+        return text.substring(0, FILE_SIZE).getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,84 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.jerzymaj.file_researcher_backend.services.ArchiveCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchiveCacheUnitTests {
+
+    @TempDir
+    private Path tempDir;
+
+    private Path cacheDir;
+    private ArchiveCache archiveCache;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        cacheDir = tempDir.resolve("cache");
+        archiveCache = newCache(100);
+    }
+
+    @Test
+    public void shouldRestoreStoredArchive_AndKeepItAfterTargetIsDeleted() throws IOException {
+        Path built = Files.writeString(tempDir.resolve("built.zip"), "archive bytes");
+        archiveCache.store("digest-1", built);
+        Files.delete(built);
+
+        Path target = tempDir.resolve("target.zip");
+        assertTrue(archiveCache.restore("digest-1", target));
+        assertEquals("archive bytes", Files.readString(target));
+
+        Files.delete(target);
+        assertTrue(archiveCache.restore("digest-1", target));
+        assertFalse(archiveCache.restore("digest-2", tempDir.resolve("other.zip")));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedArchive_WhenOverMaxBytes() throws IOException {
+        archiveCache.store("first", Files.writeString(tempDir.resolve("first.zip"), "x".repeat(40)));
+        archiveCache.store("second", Files.writeString(tempDir.resolve("second.zip"), "x".repeat(40)));
+        assertTrue(archiveCache.restore("first", tempDir.resolve("restored.zip")));
+
+        archiveCache.store("third", Files.writeString(tempDir.resolve("third.zip"), "x".repeat(40)));
+
+        assertFalse(Files.exists(cacheDir.resolve("second.zip")));
+        assertFalse(archiveCache.restore("second", tempDir.resolve("second-restored.zip")));
+        assertTrue(archiveCache.restore("first", tempDir.resolve("first-restored.zip")));
+        assertTrue(archiveCache.restore("third", tempDir.resolve("third-restored.zip")));
+    }
+
+    @Test
+    public void shouldNotCacheArchiveLargerThanMaxBytes() throws IOException {
+        archiveCache.store("huge", Files.writeString(tempDir.resolve("huge.zip"), "x".repeat(101)));
+
+        assertFalse(archiveCache.restore("huge", tempDir.resolve("target.zip")));
+    }
+
+    @Test
+    public void shouldRebuildIndexFromDisk_AndDropLeftovers() throws IOException {
+        archiveCache.store("digest-1", Files.writeString(tempDir.resolve("built.zip"), "archive bytes"));
+        Files.writeString(cacheDir.resolve("digest-2.17.tmp"), "interrupted");
+
+        ArchiveCache restarted = newCache(100);
+
+        assertTrue(restarted.restore("digest-1", tempDir.resolve("target.zip")));
+        assertFalse(Files.exists(cacheDir.resolve("digest-2.17.tmp")));
+    }
+
+    private ArchiveCache newCache(long maxBytes) throws IOException {
+        ArchiveCache cache = new ArchiveCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "cacheBaseDir", cacheDir.toString());
+        ReflectionTestUtils.setField(cache, "maxBytes", maxBytes);
+        cache.init();
+        return cache;
+    }
+}
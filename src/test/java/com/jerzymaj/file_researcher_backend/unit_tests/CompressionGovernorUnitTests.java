@@ -0,0 +1,83 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.jerzymaj.file_researcher_backend.services.CompressionGovernor;
+import com.jerzymaj.file_researcher_backend.services.ZipPipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionGovernorUnitTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CompressionGovernor compressionGovernor;
+    private double cpuLoad;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        compressionGovernor = new CompressionGovernor(new ZipPipelineMetrics(meterRegistry));
+
+        ReflectionTestUtils.setField(compressionGovernor, "adaptive", true);
+        ReflectionTestUtils.setField(compressionGovernor, "maxLevel", 9);
+        ReflectionTestUtils.setField(compressionGovernor, "queueHigh", 4);
+        ReflectionTestUtils.setField(compressionGovernor, "cpuLow", 0.5);
+        ReflectionTestUtils.setField(compressionGovernor, "cpuHigh", 0.9);
+        ReflectionTestUtils.setField(compressionGovernor, "allowStored", true);
+        ReflectionTestUtils.setField(compressionGovernor, "cpuLoad", (DoubleSupplier) () -> cpuLoad);
+    }
+
+    @Test
+    public void shouldStepLevelDown_AsConcurrentCompressionsQueueUp() {
+        cpuLoad = 0.1;
+        List<CompressionGovernor.Lease> leases = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            leases.add(compressionGovernor.acquire());
+        }
+
+        assertEquals(List.of(9, 7, 5, 3, Deflater.NO_COMPRESSION),
+                leases.stream().map(CompressionGovernor.Lease::level).toList());
+
+        leases.forEach(CompressionGovernor.Lease::close);
+        try (CompressionGovernor.Lease lease = compressionGovernor.acquire()) {
+            assertEquals(9, lease.level());
+        }
+
+        assertEquals(2, meterRegistry.get("zip.compression.level").tags("level", "9", "reason", "idle").counter().count());
+        assertEquals(1, meterRegistry.get("zip.compression.level").tags("level", "0", "reason", "queue").counter().count());
+    }
+
+    @Test
+    public void shouldStepLevelDown_AsCpuUsageRises() {
+        cpuLoad = 0.7;
+        try (CompressionGovernor.Lease lease = compressionGovernor.acquire()) {
+            assertEquals(5, lease.level());
+        }
+
+        ReflectionTestUtils.setField(compressionGovernor, "allowStored", false);
+        cpuLoad = 0.95;
+        try (CompressionGovernor.Lease lease = compressionGovernor.acquire()) {
+            assertEquals(Deflater.BEST_SPEED, lease.level());
+        }
+
+        assertEquals(1, meterRegistry.get("zip.compression.level").tags("level", "1", "reason", "cpu").counter().count());
+    }
+
+    @Test
+    public void shouldUseDefaultLevel_WhenNotAdaptive() {
+        ReflectionTestUtils.setField(compressionGovernor, "adaptive", false);
+        cpuLoad = 1.0;
+
+        try (CompressionGovernor.Lease lease = compressionGovernor.acquire()) {
+            assertEquals(Deflater.DEFAULT_COMPRESSION, lease.level());
+        }
+        assertEquals(1, meterRegistry.get("zip.compression.level").tags("level", "default", "reason", "fixed").counter().count());
+    }
+}
@@ -0,0 +1,87 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.jerzymaj.file_researcher_backend.services.DeflaterPool;
+import com.jerzymaj.file_researcher_backend.services.ZipPipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeflaterPoolUnitTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DeflaterPool deflaterPool;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        deflaterPool = newPool(1);
+    }
+
+    @Test
+    public void shouldReuseDeflaterAndBuffer_AfterLeaseIsClosed() {
+        Deflater deflater;
+        byte[] buffer;
+
+        try (DeflaterPool.Lease lease = deflaterPool.borrow(Deflater.BEST_SPEED)) {
+            deflater = lease.deflater();
+            buffer = lease.buffer();
+            lease.deflater().setInput(new byte[100]);
+            lease.deflater().finish();
+            lease.deflater().deflate(new byte[200]);
+        }
+
+        try (DeflaterPool.Lease lease = deflaterPool.borrow(Deflater.DEFAULT_COMPRESSION)) {
+            assertSame(deflater, lease.deflater());
+            assertSame(buffer, lease.buffer());
+            assertEquals(0, lease.deflater().getTotalIn());
+            assertFalse(lease.deflater().finished());
+        }
+
+        assertEquals(1, meterRegistry.get("zip.deflater.pool.borrows").tag("result", "created").counter().count());
+        assertEquals(1, meterRegistry.get("zip.deflater.pool.borrows").tag("result", "reused").counter().count());
+    }
+
+    @Test
+    public void shouldHandOutExtraDeflaters_WhenPoolIsExhausted_AndKeepOnlyPoolSize() {
+        DeflaterPool.Lease first = deflaterPool.borrow(Deflater.DEFAULT_COMPRESSION);
+        DeflaterPool.Lease second = deflaterPool.borrow(Deflater.DEFAULT_COMPRESSION);
+        Deflater firstDeflater = first.deflater();
+        Deflater secondDeflater = second.deflater();
+
+        assertNotSame(firstDeflater, secondDeflater);
+        first.close();
+        second.close();
+
+        try (DeflaterPool.Lease lease = deflaterPool.borrow(Deflater.DEFAULT_COMPRESSION)) {
+            assertSame(firstDeflater, lease.deflater());
+        }
+        // the surplus Deflater was ended on return rather than kept
+        assertThrows(NullPointerException.class, () -> secondDeflater.deflate(new byte[10]));
+    }
+
+    @Test
+    public void shouldNotPool_WhenSizeIsZero() {
+        DeflaterPool unpooled = newPool(0);
+
+        Deflater deflater;
+        try (DeflaterPool.Lease lease = unpooled.borrow(Deflater.DEFAULT_COMPRESSION)) {
+            deflater = lease.deflater();
+        }
+        try (DeflaterPool.Lease lease = unpooled.borrow(Deflater.DEFAULT_COMPRESSION)) {
+            assertNotSame(deflater, lease.deflater());
+        }
+    }
+
+    private DeflaterPool newPool(int size) {
+        DeflaterPool pool = new DeflaterPool(new ZipPipelineMetrics(meterRegistry));
+        ReflectionTestUtils.setField(pool, "size", size);
+        ReflectionTestUtils.setField(pool, "bufferBytes", 1024);
+        pool.init();
+        return pool;
+    }
+}
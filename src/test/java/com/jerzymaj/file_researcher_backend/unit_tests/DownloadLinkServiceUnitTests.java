@@ -0,0 +1,98 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.jerzymaj.file_researcher_backend.DTOs.DownloadLink;
+import com.jerzymaj.file_researcher_backend.services.DownloadLinkService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.nio.file.AccessDeniedException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DownloadLinkServiceUnitTests {
+
+    private DownloadLinkService downloadLinkService;
+
+    @BeforeEach
+    public void setUp() {
+        downloadLinkService = new DownloadLinkService();
+
+        ReflectionTestUtils.setField(downloadLinkService, "linkSecret", "test-link-secret");
+        ReflectionTestUtils.setField(downloadLinkService, "linkTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(downloadLinkService, "publicBaseUrl", "https://files.example.com");
+        ReflectionTestUtils.setField(downloadLinkService, "linksEnabled", true);
+        ReflectionTestUtils.setField(downloadLinkService, "clock",
+                Clock.fixed(Instant.parse("2025-01-01T10:00:00Z"), ZoneOffset.UTC));
+
+        downloadLinkService.init();
+    }
+
+    @Test
+    public void shouldCreateLinkThatPassesVerification() throws AccessDeniedException {
+        DownloadLink link = downloadLinkService.createLink(7L);
+        UriComponents uri = UriComponentsBuilder.fromUri(link.uri()).build();
+
+        assertEquals("/file-researcher/downloads/7", uri.getPath());
+        assertEquals(Instant.parse("2025-01-01T11:00:00Z"), link.expiresAt());
+
+        downloadLinkService.verifyLink(7L,
+                Long.parseLong(uri.getQueryParams().getFirst("expires")),
+                uri.getQueryParams().getFirst("signature"));
+    }
+
+    @Test
+    public void shouldRejectLink_IfSignatureDoesNotMatchArchive() {
+        DownloadLink link = downloadLinkService.createLink(7L);
+        UriComponents uri = UriComponentsBuilder.fromUri(link.uri()).build();
+
+        assertThrows(AccessDeniedException.class, () -> downloadLinkService.verifyLink(8L,
+                Long.parseLong(uri.getQueryParams().getFirst("expires")),
+                uri.getQueryParams().getFirst("signature")));
+    }
+
+    @Test
+    public void shouldRejectLink_IfExpired() {
+        DownloadLink link = downloadLinkService.createLink(7L);
+        UriComponents uri = UriComponentsBuilder.fromUri(link.uri()).build();
+
+        ReflectionTestUtils.setField(downloadLinkService, "clock",
+                Clock.fixed(Instant.parse("2025-01-01T12:00:00Z"), ZoneOffset.UTC));
+
+        assertThrows(AccessDeniedException.class, () -> downloadLinkService.verifyLink(7L,
+                Long.parseLong(uri.getQueryParams().getFirst("expires")),
+                uri.getQueryParams().getFirst("signature")));
+    }
+
+    @Test
+    public void shouldFailAtStartup_IfPublicBaseUrlIsMissing() {
+        DownloadLinkService unconfigured = new DownloadLinkService();
+        ReflectionTestUtils.setField(unconfigured, "linkSecret", "test-link-secret");
+        ReflectionTestUtils.setField(unconfigured, "publicBaseUrl", "");
+        ReflectionTestUtils.setField(unconfigured, "linksEnabled", true);
+
+        assertThrows(IllegalStateException.class, unconfigured::init);
+
+        ReflectionTestUtils.setField(unconfigured, "linksEnabled", false);
+        assertDoesNotThrow(unconfigured::init);
+    }
+
+    @Test
+    public void shouldFailAtStartup_IfLinkSecretIsMissing() {
+        DownloadLinkService unconfigured = new DownloadLinkService();
+        ReflectionTestUtils.setField(unconfigured, "linkSecret", "");
+        ReflectionTestUtils.setField(unconfigured, "publicBaseUrl", "https://files.example.com");
+        ReflectionTestUtils.setField(unconfigured, "linksEnabled", true);
+
+        assertThrows(IllegalStateException.class, unconfigured::init);
+
+        ReflectionTestUtils.setField(unconfigured, "linksEnabled", false);
+        assertDoesNotThrow(unconfigured::init);
+    }
+}
@@ -0,0 +1,353 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.jerzymaj.file_researcher_backend.models.EmailOutbox;
+import com.jerzymaj.file_researcher_backend.models.FileSet;
+import com.jerzymaj.file_researcher_backend.models.ZipArchive;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.DeliveryMode;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.OutboxStatus;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.SendStatus;
+import com.jerzymaj.file_researcher_backend.services.*;
+import jakarta.mail.MessagingException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class EmailOutboxDispatcherUnitTests {
+
+    @Mock
+    private EmailOutboxService emailOutboxService;
+
+    @Mock
+    private ZipEmailSender zipEmailSender;
+
+    @Mock
+    private DownloadLinkService downloadLinkService;
+
+    @Mock
+    private ZipArchiveStatusService zipArchiveStatusService;
+
+    @Mock
+    private SentHistoryService sentHistoryService;
+
+    @Mock
+    private ArchiveStorage archiveStorage;
+
+    @Mock
+    private ProgressNotifier progressNotifier;
+
+    @Mock
+    private SmtpRateGovernor smtpRateGovernor;
+
+    @Mock
+    private ZipPipelineMetrics metrics;
+
+    @Mock
+    private TaskRegistry taskRegistry;
+
+    @InjectMocks
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    private ZipArchive zipArchive;
+    private EmailOutbox entry;
+    private Path attachment;
+
+    @BeforeEach
+    public void setUp(@TempDir Path tempDir) throws IOException, InterruptedException {
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "batchSize", 20);
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "parallelism", 2);
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "initialBackoff", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(emailOutboxDispatcher, "maxBackoff", Duration.ofMinutes(30));
+
+        FileSet fileSet = new FileSet();
+        fileSet.setId(1L);
+
+        zipArchive = ZipArchive.builder()
+                .id(10L)
+                .deliveryMode(DeliveryMode.ATTACHMENT)
+                .recipientEmail("someone@mail.com")
+                .fileSet(fileSet)
+                .build();
+
+        attachment = Files.writeString(tempDir.resolve("fileset-1-1.zip"), "zip");
+
+        entry = EmailOutbox.builder()
+                .id(100L)
+                .idempotencyKey("zip-10")
+                .zipArchive(zipArchive)
+                .attachmentPath(attachment.toString())
+                .recipientEmail("someone@mail.com")
+                .taskId("task-1")
+                .status(OutboxStatus.SENDING)
+                .attempts(0)
+                .build();
+
+        when(emailOutboxService.messageId(entry)).thenReturn("<zip-10@file-researcher>");
+        when(smtpRateGovernor.acquire(anyLong(), any())).thenReturn(() -> {});
+        when(emailOutboxService.renewLease(any(), any())).thenReturn(true);
+        when(emailOutboxService.markSent(any(), any())).thenReturn(true);
+        when(emailOutboxService.markFailed(any(), any())).thenReturn(true);
+        when(emailOutboxService.reschedule(any(), any(), any())).thenReturn(true);
+    }
+
+    @Test
+    public void shouldSendClaimedEntries_AndSkipEntriesClaimedElsewhere() throws MessagingException {
+        EmailOutbox takenEntry = EmailOutbox.builder().id(101L).zipArchive(zipArchive).build();
+
+        when(emailOutboxService.findDue(anyInt())).thenReturn(List.of(takenEntry, entry));
+        when(emailOutboxService.claim(takenEntry)).thenReturn(false);
+        when(emailOutboxService.claim(entry)).thenReturn(true);
+
+        emailOutboxDispatcher.init();
+        try {
+            emailOutboxDispatcher.dispatchDue();
+        } finally {
+            emailOutboxDispatcher.shutdown();
+        }
+
+        verify(emailOutboxService, timeout(2000)).markSent(entry, null);
+        verify(emailOutboxService, never()).markSent(same(takenEntry), any());
+        verify(zipEmailSender, times(1)).sendZipArchiveByEmail(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void shouldClaimOnlyAsManyEntriesAsThereAreIdleDispatchThreads() throws InterruptedException {
+        CountDownLatch rateLimit = new CountDownLatch(1);
+        when(smtpRateGovernor.acquire(anyLong(), any())).thenAnswer(i -> {
+            rateLimit.await();
+            return (SmtpRateGovernor.SendPermit) () -> {};
+        });
+        List<EmailOutbox> dueEntries = List.of(entry,
+                EmailOutbox.builder().id(101L).zipArchive(zipArchive).attempts(0).build(),
+                EmailOutbox.builder().id(102L).zipArchive(zipArchive).attempts(0).build());
+        when(emailOutboxService.findDue(anyInt())).thenAnswer(i -> dueEntries.subList(0, i.getArgument(0)));
+        when(emailOutboxService.claim(any())).thenReturn(true);
+
+        emailOutboxDispatcher.init();
+        try {
+            emailOutboxDispatcher.dispatchDue();
+            emailOutboxDispatcher.dispatchDue();
+        } finally {
+            rateLimit.countDown();
+            emailOutboxDispatcher.shutdown();
+        }
+
+        verify(emailOutboxService, times(1)).findDue(2);
+        verify(emailOutboxService, times(2)).claim(any());
+    }
+
+    @Test
+    public void shouldNotSend_IfLeaseExpiredWhileQueuedForRateLimit() throws MessagingException, InterruptedException {
+        when(smtpRateGovernor.acquire(anyLong(), any())).thenAnswer(i -> {
+            Consumer<Duration> onQueued = i.getArgument(1);
+            onQueued.accept(Duration.ofMinutes(15));
+            return (SmtpRateGovernor.SendPermit) () -> {};
+        });
+        // another instance re-claimed the entry after its lease ran out
+        when(emailOutboxService.renewLease(entry, Duration.ZERO)).thenReturn(false);
+
+        emailOutboxDispatcher.deliver(entry);
+
+        verify(emailOutboxService).renewLease(entry, Duration.ofMinutes(15));
+        verify(zipEmailSender, never()).sendZipArchiveByEmail(any(), any(), any(), any(), any());
+        verify(emailOutboxService, never()).markSent(any(), any());
+        verify(emailOutboxService, never()).reschedule(any(), any(), any());
+        verify(emailOutboxService, never()).markFailed(any(), any());
+        assertTrue(Files.exists(attachment));
+    }
+
+    @Test
+    public void shouldFinalizeArchive_AndDeleteAttachment_IfSent() throws MessagingException {
+        emailOutboxDispatcher.deliver(entry);
+
+        verify(zipEmailSender).sendZipArchiveByEmail(eq("someone@mail.com"), eq(attachment), any(), any(),
+                eq("<zip-10@file-researcher>"));
+        verify(emailOutboxService).markSent(entry, null);
+        verify(zipArchiveStatusService).updateDatabaseAfterSuccess(10L, 1L);
+        verify(sentHistoryService).saveSentHistory(zipArchive, "someone@mail.com", true, null, null);
+        verify(progressNotifier).publish("task-1", 100, "Completed!");
+        assertFalse(Files.exists(attachment));
+    }
+
+    @Test
+    public void shouldNotRetry_IfBookkeepingFailsAfterSend() throws MessagingException {
+        doThrow(new IllegalStateException("Database unavailable"))
+                .when(sentHistoryService).saveSentHistory(any(), any(), anyBoolean(), any(), any());
+
+        emailOutboxDispatcher.deliver(entry);
+
+        verify(zipEmailSender, times(1)).sendZipArchiveByEmail(any(), any(), any(), any(), any());
+        verify(emailOutboxService).markSent(entry, null);
+        verify(emailOutboxService, never()).reschedule(any(), any(), any());
+        verify(emailOutboxService, never()).markFailed(any(), any());
+    }
+
+    @Test
+    public void shouldReportQueueDelay_IfRateLimitDelaysSending() throws InterruptedException {
+        when(smtpRateGovernor.acquire(anyLong(), any())).thenAnswer(i -> {
+            Consumer<Duration> onQueued = i.getArgument(1);
+            onQueued.accept(Duration.ofSeconds(12));
+            return (SmtpRateGovernor.SendPermit) () -> {};
+        });
+
+        emailOutboxDispatcher.deliver(entry);
+
+        verify(progressNotifier).publish(eq("task-1"), eq(95), contains("12s"));
+        verify(emailOutboxService).markSent(entry, null);
+    }
+
+    @Test
+    public void shouldCountGmailWarning_AndFinalizeAsSent() throws MessagingException {
+        doThrow(new MessagingException("552-5.7.0 This message was blocked because its content presents a security issue"))
+                .when(zipEmailSender).sendZipArchiveByEmail(any(), any(), any(), any(), any());
+
+        emailOutboxDispatcher.deliver(entry);
+
+        verify(metrics).recordGmailWarning();
+        verify(metrics).stopTimer(any(), eq(ZipPipelineMetrics.Stage.SMTP_SEND), eq("gmail_warning"));
+        verify(emailOutboxService).markSent(entry, "Sent with Gmail security warning");
+    }
+
+    @Test
+    public void shouldRescheduleWithBackoff_IfFailureIsTransient() throws MessagingException {
+        doThrow(new MessagingException("Connection timed out"))
+                .when(zipEmailSender).sendZipArchiveByEmail(any(), any(), any(), any(), any());
+
+        LocalDateTime before = LocalDateTime.now();
+        emailOutboxDispatcher.deliver(entry);
+
+        verify(emailOutboxService).reschedule(eq(entry), argThat(next ->
+                !next.isBefore(before.plusSeconds(15)) && !next.isAfter(LocalDateTime.now().plusSeconds(30))),
+                eq("Connection timed out"));
+        verify(emailOutboxService, never()).markFailed(any(), any());
+        verify(zipArchiveStatusService, never()).updateDatabaseAfterFailure(anyLong(), any());
+        assertTrue(Files.exists(attachment));
+    }
+
+    @Test
+    public void shouldMarkArchiveFailed_IfRetriesAreExhausted() throws MessagingException {
+        entry.setAttempts(2);
+        doThrow(new MessagingException("Connection timed out"))
+                .when(zipEmailSender).sendZipArchiveByEmail(any(), any(), any(), any(), any());
+
+        emailOutboxDispatcher.deliver(entry);
+
+        verify(emailOutboxService).markFailed(entry, "Connection timed out");
+        verify(zipArchiveStatusService).updateDatabaseAfterFailure(10L, "Connection timed out");
+        verify(progressNotifier).publish(eq("task-1"), eq(-1), any());
+        assertFalse(Files.exists(attachment));
+    }
+
+    @Test
+    public void shouldNotRetry_IfServerRejectsPermanently() throws MessagingException {
+        doThrow(new SMTPSendFailedException("DATA", 554, "554 5.7.1 Message rejected", null, null, null, null))
+                .when(zipEmailSender).sendZipArchiveByEmail(any(), any(), any(), any(), any());
+
+        emailOutboxDispatcher.deliver(entry);
+
+        verify(emailOutboxService, never()).reschedule(any(), any(), any());
+        verify(emailOutboxService).markFailed(eq(entry), any());
+        verify(zipArchiveStatusService).updateDatabaseAfterFailure(eq(10L), any());
+    }
+
+    @Test
+    public void shouldFinalizeSplitArchive_WhenLastPartIsSent() throws MessagingException {
+        zipArchive.setDeliveryMode(DeliveryMode.SPLIT);
+        zipArchive.setPartCount(2);
+        entry.setPartNumber(2);
+        entry.setAttachmentSize(70L);
+
+        EmailOutbox firstPart = EmailOutbox.builder().partNumber(1).attachmentSize(60L).status(OutboxStatus.SENT).build();
+        EmailOutbox secondPart = EmailOutbox.builder().partNumber(2).attachmentSize(70L).status(OutboxStatus.SENT).build();
+        when(emailOutboxService.findAllForZipArchive(10L)).thenReturn(List.of(firstPart, secondPart));
+        when(zipArchiveStatusService.updateDatabaseAfterSplitDelivery(10L, 1L, 130L, true)).thenReturn(true);
+
+        emailOutboxDispatcher.deliver(entry);
+
+        verify(sentHistoryService).saveSentHistory(zipArchive, "someone@mail.com", true, null, 2);
+        verify(zipArchiveStatusService).updateDatabaseAfterSplitDelivery(10L, 1L, 130L, true);
+        verify(zipArchiveStatusService, never()).updateDatabaseAfterSuccess(anyLong(), anyLong());
+        verify(progressNotifier).publish("task-1", 100, "Completed!");
+    }
+
+    @Test
+    public void shouldNotReportSplitArchiveTwice_WhenAnotherPartFinalizedIt() throws MessagingException {
+        zipArchive.setDeliveryMode(DeliveryMode.SPLIT);
+        zipArchive.setPartCount(2);
+        entry.setPartNumber(2);
+        entry.setAttachmentSize(70L);
+
+        EmailOutbox firstPart = EmailOutbox.builder().partNumber(1).attachmentSize(60L).status(OutboxStatus.SENT).build();
+        EmailOutbox secondPart = EmailOutbox.builder().partNumber(2).attachmentSize(70L).status(OutboxStatus.SENT).build();
+        when(emailOutboxService.findAllForZipArchive(10L)).thenReturn(List.of(firstPart, secondPart));
+        when(zipArchiveStatusService.updateDatabaseAfterSplitDelivery(10L, 1L, 130L, true)).thenReturn(false);
+
+        emailOutboxDispatcher.deliver(entry);
+
+        verify(zipArchiveStatusService).updateDatabaseAfterSplitDelivery(10L, 1L, 130L, true);
+        verify(progressNotifier, never()).publish(eq("task-1"), eq(100), any());
+        verify(progressNotifier, never()).publish(eq("task-1"), eq(-1), any());
+    }
+
+    @Test
+    public void shouldKeepSharedAttachment_UntilLastRecipientIsDone() throws MessagingException {
+        zipArchive.setRecipientCount(2);
+
+        EmailOutbox otherRecipient = EmailOutbox.builder().recipientEmail("other@mail.com").status(OutboxStatus.SENDING).build();
+        EmailOutbox thisRecipient = EmailOutbox.builder().recipientEmail("someone@mail.com").status(OutboxStatus.SENT).build();
+        when(emailOutboxService.findAllForZipArchive(10L)).thenReturn(List.of(otherRecipient, thisRecipient));
+
+        emailOutboxDispatcher.deliver(entry);
+
+        verify(zipArchiveStatusService, never()).updateDatabaseAfterBatchDelivery(anyLong(), anyLong(), any());
+        verify(sentHistoryService, never()).saveSentHistory(any(), any(), anyBoolean(), any(), any());
+        verify(progressNotifier).publish("task-1", 97, "Sent to 1 of 2 recipients");
+        assertTrue(Files.exists(attachment));
+    }
+
+    @Test
+    public void shouldRecordEveryRecipientInOneBatch_WhenLastRecipientIsDone() throws MessagingException {
+        zipArchive.setRecipientCount(2);
+
+        EmailOutbox otherRecipient = EmailOutbox.builder().recipientEmail("other@mail.com")
+                .status(OutboxStatus.FAILED).lastError("550 Mailbox unavailable").build();
+        EmailOutbox thisRecipient = EmailOutbox.builder().recipientEmail("someone@mail.com").status(OutboxStatus.SENT).build();
+        when(emailOutboxService.findAllForZipArchive(10L)).thenReturn(List.of(otherRecipient, thisRecipient));
+        when(zipArchiveStatusService.updateDatabaseAfterBatchDelivery(eq(10L), eq(1L), any())).thenReturn(true);
+
+        emailOutboxDispatcher.deliver(entry);
+
+        verify(zipArchiveStatusService).updateDatabaseAfterBatchDelivery(eq(10L), eq(1L), argThat(histories ->
+                histories.size() == 2
+                        && histories.get(0).getSentToEmail().equals("other@mail.com")
+                        && histories.get(0).getStatus() == SendStatus.FAILURE
+                        && histories.get(0).getErrorMessage().equals("550 Mailbox unavailable")
+                        && histories.get(1).getStatus() == SendStatus.SUCCESS));
+        verify(sentHistoryService, never()).saveSentHistory(any(), any(), anyBoolean(), any(), any());
+        verify(progressNotifier).publish("task-1", -1, "Error: 1 of 2 recipients could not be reached");
+        assertFalse(Files.exists(attachment));
+    }
+}
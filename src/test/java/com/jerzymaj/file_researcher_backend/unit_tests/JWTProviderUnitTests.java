@@ -0,0 +1,70 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.jerzymaj.file_researcher_backend.configuration.JWTProvider;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JWTProviderUnitTests {
+
+    private static final String SECRET = "dW5pdC10ZXN0LXNpZ25pbmcta2V5LXRoYXQtaXMtYXQtbGVhc3Qtc2l4dHktZm91ci1ieXRlcy1sb25nLSEhIQ==";
+
+    private JWTProvider jwtProvider;
+
+    @BeforeEach
+    public void setUp() {
+        jwtProvider = createProvider(60_000);
+    }
+
+    @Test
+    public void shouldReturnVerifiedClaims_AndServeRepeatedTokenFromCache() {
+        String token = generateToken(jwtProvider, "user");
+
+        Optional<Claims> first = jwtProvider.getVerifiedClaims(token);
+        Optional<Claims> second = jwtProvider.getVerifiedClaims(token);
+
+        assertTrue(first.isPresent());
+        assertEquals("user", first.get().getSubject());
+        assertSame(first.get(), second.orElseThrow());
+    }
+
+    @Test
+    public void shouldRejectTamperedToken() {
+        String token = generateToken(jwtProvider, "user");
+        jwtProvider.getVerifiedClaims(token);
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertTrue(jwtProvider.getVerifiedClaims(tampered).isEmpty());
+        assertFalse(jwtProvider.validateToken(tampered));
+    }
+
+    @Test
+    public void shouldRejectExpiredToken() {
+        JWTProvider expiringProvider = createProvider(-1_000);
+
+        assertTrue(expiringProvider.getVerifiedClaims(generateToken(expiringProvider, "user")).isEmpty());
+    }
+
+    private JWTProvider createProvider(long expirationMs) {
+        JWTProvider provider = new JWTProvider();
+        ReflectionTestUtils.setField(provider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(provider, "jwtExpirationMs", expirationMs);
+        ReflectionTestUtils.setField(provider, "cacheMaxSize", 100L);
+        provider.init();
+        return provider;
+    }
+
+    private String generateToken(JWTProvider provider, String username) {
+        User principal = new User(username, "password", List.of());
+        return provider.generateToken(new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+}
@@ -0,0 +1,62 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.jerzymaj.file_researcher_backend.models.ZipArchive;
+import com.jerzymaj.file_researcher_backend.repositories.ZipArchiveRepository;
+import com.jerzymaj.file_researcher_backend.services.ArchiveStorage;
+import com.jerzymaj.file_researcher_backend.services.DownloadLinkService;
+import com.jerzymaj.file_researcher_backend.services.LinkArchivePurger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LinkArchivePurgerUnitTests {
+
+    @Mock
+    private ZipArchiveRepository zipArchiveRepository;
+
+    @Mock
+    private ArchiveStorage archiveStorage;
+
+    @Mock
+    private DownloadLinkService downloadLinkService;
+
+    @InjectMocks
+    private LinkArchivePurger linkArchivePurger;
+
+    @Test
+    public void shouldDeleteFilesOfArchivesWithExpiredLinks_AndMarkThemPurged() {
+        ZipArchive expired = ZipArchive.builder().id(7L).archivePath("/archives/fileset-1-1.zip").build();
+        when(downloadLinkService.getLinkTtl()).thenReturn(Duration.ofDays(7));
+        when(zipArchiveRepository.findLinkArchivesExpiredBefore(any())).thenReturn(List.of(expired));
+
+        LocalDateTime before = LocalDateTime.now();
+        linkArchivePurger.purgeExpiredLinkArchives();
+
+        verify(zipArchiveRepository).findLinkArchivesExpiredBefore(argThat(cutoff ->
+                !cutoff.isBefore(before.minusDays(7)) && !cutoff.isAfter(LocalDateTime.now().minusDays(7))));
+        verify(archiveStorage).delete(expired);
+        verify(zipArchiveRepository).markFilesPurged(eq(List.of(7L)), any());
+    }
+
+    @Test
+    public void shouldKeepArchives_IfArchivesAreRetained() {
+        when(archiveStorage.isRetainEnabled()).thenReturn(true);
+
+        linkArchivePurger.purgeExpiredLinkArchives();
+
+        verifyNoInteractions(zipArchiveRepository);
+        verify(archiveStorage, never()).delete(any(ZipArchive.class));
+    }
+}
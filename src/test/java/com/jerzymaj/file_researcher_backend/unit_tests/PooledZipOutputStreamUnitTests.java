@@ -0,0 +1,211 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.jerzymaj.file_researcher_backend.services.DeflaterPool;
+import com.jerzymaj.file_researcher_backend.services.PooledZipOutputStream;
+import com.jerzymaj.file_researcher_backend.services.ZipPipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PooledZipOutputStreamUnitTests {
+
+    private static final long TIME = 1_700_000_000_000L;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+
+    private DeflaterPool.Lease lease;
+
+    @BeforeEach
+    public void setUp() {
+        DeflaterPool pool = new DeflaterPool(new ZipPipelineMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(pool, "size", 1);
+        ReflectionTestUtils.setField(pool, "bufferBytes", 1024);
+        pool.init();
+        lease = pool.borrow(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        lease.close();
+    }
+
+    @Test
+    public void shouldWriteZip64LocalHeader_WhenSizeHintReachesLimit(@TempDir Path tempDir) throws IOException {
+        Path zipPath = tempDir.resolve("hinted.zip");
+        byte[] content = "announced as large, written small ".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+        try (PooledZipOutputStream zos = new PooledZipOutputStream(zipPath, lease)) {
+            zos.putNextEntry("big.txt", ZipEntry.DEFLATED, TIME, 0xFFFFFFFFL);
+            zos.write(content);
+            zos.finish();
+        }
+
+        ByteBuffer header = ByteBuffer.wrap(Files.readAllBytes(zipPath)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(LOCAL_HEADER_SIGNATURE, header.getInt(0));
+        assertEquals(45, header.getShort(4));
+        assertEquals(0xFFFFFFFF, header.getInt(18));
+        assertEquals(0xFFFFFFFF, header.getInt(22));
+        assertEquals(0x0001, header.getShort(30 + "big.txt".length()));
+        assertEquals(content.length, header.getLong(30 + "big.txt".length() + 4));
+
+        assertReadableByAllReaders(zipPath, Map.of("big.txt", content));
+    }
+
+    @Test
+    public void shouldWriteZip64SizesOffsetsAndEndRecord_WhenValuesPassLimit(@TempDir Path tempDir) throws IOException {
+        Path zipPath = tempDir.resolve("zip64.zip");
+        byte[] stored = "stored entry past the limit ".repeat(10).getBytes(StandardCharsets.UTF_8);
+        byte[] deflated = "deflated entry at an offset past the limit ".repeat(10).getBytes(StandardCharsets.UTF_8);
+        byte[] raw = "raw entry past the limit ".repeat(10).getBytes(StandardCharsets.UTF_8);
+        CRC32 rawCrc = new CRC32();
+        rawCrc.update(raw);
+
+        try (PooledZipOutputStream zos = new PooledZipOutputStream(zipPath, lease, 100)) {
+            zos.putNextEntry("a/stored.txt", ZipEntry.STORED, TIME, stored.length);
+            zos.write(stored);
+            zos.putNextEntry("b/deflated.txt", ZipEntry.DEFLATED, TIME, deflated.length);
+            zos.write(deflated);
+            zos.addRawEntry("c/raw.txt", ZipEntry.STORED, TIME, rawCrc.getValue(), raw.length, raw.length,
+                    new ByteArrayInputStream(raw));
+            zos.finish();
+        }
+
+        assertTrue(containsSignature(Files.readAllBytes(zipPath), ZIP64_END_SIGNATURE));
+
+        Map<String, byte[]> expected = new LinkedHashMap<>();
+        expected.put("a/stored.txt", stored);
+        expected.put("b/deflated.txt", deflated);
+        expected.put("c/raw.txt", raw);
+        assertReadableByAllReaders(zipPath, expected);
+
+        try (org.apache.commons.compress.archivers.zip.ZipFile zipFile =
+                     org.apache.commons.compress.archivers.zip.ZipFile.builder().setPath(zipPath).get()) {
+            List<ZipArchiveEntry> entries = Collections.list(zipFile.getEntriesInPhysicalOrder());
+            assertTrue(entries.get(1).getLocalHeaderOffset() > 100);
+            assertEquals(ZipEntry.STORED, entries.get(0).getMethod());
+            assertEquals(ZipEntry.DEFLATED, entries.get(1).getMethod());
+        }
+    }
+
+    @Test
+    public void shouldWriteZip64EndRecord_WhenEntryCountReachesLimit(@TempDir Path tempDir) throws IOException {
+        Path zipPath = tempDir.resolve("many.zip");
+        int entryCount = 0xFFFF;
+
+        try (PooledZipOutputStream zos = new PooledZipOutputStream(zipPath, lease)) {
+            for (int i = 0; i < entryCount; i++) {
+                zos.putNextEntry("e" + i, ZipEntry.STORED, TIME, 0);
+            }
+            zos.finish();
+        }
+
+        assertTrue(containsSignature(Files.readAllBytes(zipPath), ZIP64_END_SIGNATURE));
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            assertEquals(entryCount, zipFile.size());
+            assertNotNull(zipFile.getEntry("e" + (entryCount - 1)));
+        }
+        try (org.apache.commons.compress.archivers.zip.ZipFile zipFile =
+                     org.apache.commons.compress.archivers.zip.ZipFile.builder().setPath(zipPath).get()) {
+            assertEquals(entryCount, Collections.list(zipFile.getEntries()).size());
+        }
+    }
+
+    @Test
+    public void shouldNotWriteCentralDirectory_WhenClosedWithoutFinish(@TempDir Path tempDir) throws IOException {
+        Path zipPath = tempDir.resolve("failed.zip");
+
+        try (PooledZipOutputStream zos = new PooledZipOutputStream(zipPath, lease)) {
+            zos.putNextEntry("complete.txt", ZipEntry.DEFLATED, TIME, 5);
+            zos.write("hello".getBytes(StandardCharsets.UTF_8));
+            zos.putNextEntry("interrupted.txt", ZipEntry.DEFLATED, TIME, 5);
+            zos.write("hel".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThrows(ZipException.class, () -> new ZipFile(zipPath.toFile()).close());
+        assertThrows(IOException.class,
+                () -> org.apache.commons.compress.archivers.zip.ZipFile.builder().setPath(zipPath).get().close());
+    }
+
+    @Test
+    public void shouldRejectRawEntry_WhenDataLengthDiffersFromCompressedSize(@TempDir Path tempDir) throws IOException {
+        Path zipPath = tempDir.resolve("raw.zip");
+
+        try (PooledZipOutputStream zos = new PooledZipOutputStream(zipPath, lease)) {
+            assertThrows(ZipException.class, () -> zos.addRawEntry("short.txt", ZipEntry.STORED, TIME, 0, 10, 10,
+                    new ByteArrayInputStream(new byte[4])));
+        }
+    }
+
+    /**
+     * Reads the archive through both central-directory readers and the JDK's streaming reader, which relies on the
+     * local headers only.
+     */
+    private static void assertReadableByAllReaders(Path zipPath, Map<String, byte[]> expected) throws IOException {
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            assertEquals(expected.size(), zipFile.size());
+            for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+                ZipEntry zipEntry = zipFile.getEntry(entry.getKey());
+                assertEquals(entry.getValue().length, zipEntry.getSize());
+                try (InputStream in = zipFile.getInputStream(zipEntry)) {
+                    assertArrayEquals(entry.getValue(), in.readAllBytes());
+                }
+            }
+        }
+
+        try (org.apache.commons.compress.archivers.zip.ZipFile zipFile =
+                     org.apache.commons.compress.archivers.zip.ZipFile.builder().setPath(zipPath).get()) {
+            for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+                ZipArchiveEntry zipEntry = zipFile.getEntry(entry.getKey());
+                assertEquals(entry.getValue().length, zipEntry.getSize());
+                try (InputStream in = zipFile.getInputStream(zipEntry)) {
+                    assertArrayEquals(entry.getValue(), in.readAllBytes());
+                }
+            }
+        }
+
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(zipPath))) {
+            ZipEntry zipEntry;
+            int read = 0;
+            while ((zipEntry = zis.getNextEntry()) != null) {
+                assertArrayEquals(expected.get(zipEntry.getName()), zis.readAllBytes());
+                read++;
+            }
+            assertEquals(expected.size(), read);
+        }
+    }
+
+    private static boolean containsSignature(byte[] zip, int signature) {
+        ByteBuffer buffer = ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = zip.length - 4; i >= 0; i--) {
+            if (buffer.getInt(i) == signature) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,94 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.jerzymaj.file_researcher_backend.DTOs.ProgressUpdate;
+import com.jerzymaj.file_researcher_backend.services.ProgressCounter;
+import com.jerzymaj.file_researcher_backend.services.ProgressNotifier;
+import com.jerzymaj.file_researcher_backend.services.ProgressStreamRegistry;
+import com.jerzymaj.file_researcher_backend.services.TaskRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ProgressNotifierUnitTests {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private TaskRegistry taskRegistry;
+
+    @Mock
+    private ProgressStreamRegistry progressStreams;
+
+    @InjectMocks
+    private ProgressNotifier progressNotifier;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(progressNotifier, "maxBatch", 2);
+    }
+
+    @Test
+    public void shouldSendOnlyLatestUpdatePerTask_OnFlush() {
+        progressNotifier.publish("task-1", 10, "Processing a.txt");
+        progressNotifier.publish("task-1", 95, "Queued for sending...");
+        progressNotifier.publish("task-1", 100, "Completed!");
+
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+        verify(taskRegistry).recordProgress("task-1", 95, "Queued for sending...");
+
+        progressNotifier.flush();
+        progressNotifier.flush();
+
+        verify(messagingTemplate, times(1)).convertAndSend(anyString(), any(Object.class));
+        verify(messagingTemplate).convertAndSend("/topic/progress/task-1", new ProgressUpdate(100, "Completed!"));
+        verify(progressStreams, times(1)).broadcast(anyString(), any(ProgressUpdate.class));
+        verify(progressStreams).broadcast("task-1", new ProgressUpdate(100, "Completed!"));
+    }
+
+    @Test
+    public void shouldKeepUpdatesBeyondBatchSize_ForNextFlush() {
+        progressNotifier.publish("task-1", 10, "Processing");
+        progressNotifier.publish("task-2", 20, "Processing");
+        progressNotifier.publish("task-3", 30, "Processing");
+
+        progressNotifier.flush();
+        verify(messagingTemplate, times(2)).convertAndSend(anyString(), any(Object.class));
+
+        progressNotifier.flush();
+        verify(messagingTemplate, times(3)).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    public void shouldTurnCompressionCounterIntoUpdates_UntilUntracked() {
+        ProgressCounter counter = progressNotifier.track("task-1");
+        counter.start(1000);
+        counter.enterEntry("docs/a.txt");
+        counter.add(500);
+
+        progressNotifier.flush();
+        progressNotifier.flush();
+
+        verify(messagingTemplate, times(1)).convertAndSend("/topic/progress/task-1",
+                new ProgressUpdate(45, "Processing docs/a.txt"));
+
+        progressNotifier.untrack("task-1");
+        counter.add(500);
+        progressNotifier.flush();
+
+        verify(messagingTemplate, times(1)).convertAndSend(anyString(), any(Object.class));
+    }
+}
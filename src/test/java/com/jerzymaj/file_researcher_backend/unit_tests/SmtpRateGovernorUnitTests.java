@@ -0,0 +1,74 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.jerzymaj.file_researcher_backend.services.SmtpRateGovernor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SmtpRateGovernorUnitTests {
+
+    private SmtpRateGovernor smtpRateGovernor;
+
+    @BeforeEach
+    public void setUp() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("smtp.example.com");
+        mailSender.setUsername("sender@example.com");
+
+        smtpRateGovernor = new SmtpRateGovernor(mailSender);
+        ReflectionTestUtils.setField(smtpRateGovernor, "messagesPerMinute", 60);
+        ReflectionTestUtils.setField(smtpRateGovernor, "bytesPerMinute", 0L);
+        ReflectionTestUtils.setField(smtpRateGovernor, "maxParallel", 2);
+        ReflectionTestUtils.setField(smtpRateGovernor, "burst", Duration.ofSeconds(3));
+    }
+
+    @Test
+    public void shouldAllowBurst_ThenPaceMessagesAtConfiguredRate() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Duration.ZERO, smtpRateGovernor.reserve(0));
+        }
+
+        Duration fourth = smtpRateGovernor.reserve(0);
+        Duration fifth = smtpRateGovernor.reserve(0);
+
+        assertTrue(fourth.toMillis() > 900 && fourth.toMillis() <= 1000, "fourth waits ~1s but was " + fourth);
+        assertTrue(fifth.toMillis() > 1900 && fifth.toMillis() <= 2000, "fifth waits ~2s but was " + fifth);
+    }
+
+    @Test
+    public void shouldPaceLargeAttachments_ByBytesPerMinute() {
+        ReflectionTestUtils.setField(smtpRateGovernor, "messagesPerMinute", 0);
+        ReflectionTestUtils.setField(smtpRateGovernor, "bytesPerMinute", 6_000_000L);
+
+        assertEquals(Duration.ZERO, smtpRateGovernor.reserve(200_000));
+
+        Duration second = smtpRateGovernor.reserve(3_000_000);
+
+        assertTrue(second.toSeconds() >= 30 && second.toSeconds() <= 40, "second waits ~36s but was " + second);
+    }
+
+    @Test
+    public void shouldReportQueueDelay_AndWaitBeforeSending() throws InterruptedException {
+        ReflectionTestUtils.setField(smtpRateGovernor, "messagesPerMinute", 600);
+        ReflectionTestUtils.setField(smtpRateGovernor, "burst", Duration.ofMillis(100));
+        List<Duration> reportedDelays = new ArrayList<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            try (SmtpRateGovernor.SendPermit ignored = smtpRateGovernor.acquire(0, reportedDelays::add)) {
+                assertNotNull(ignored);
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertEquals(2, reportedDelays.size());
+        assertTrue(elapsed.toMillis() >= 180, "three messages at 10/s take ~200ms but took " + elapsed);
+    }
+}
@@ -0,0 +1,104 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.jerzymaj.file_researcher_backend.services.SmtpTransportPool;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SmtpTransportPoolUnitTests {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private JavaMailSenderImpl mailSender;
+    private SmtpTransportPool smtpTransportPool;
+
+    @BeforeEach
+    public void setUp() {
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+
+        smtpTransportPool = new SmtpTransportPool(mailSender);
+        ReflectionTestUtils.setField(smtpTransportPool, "poolEnabled", true);
+        ReflectionTestUtils.setField(smtpTransportPool, "maxConnections", 2);
+        ReflectionTestUtils.setField(smtpTransportPool, "idleTimeout", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(smtpTransportPool, "validateAfter", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(smtpTransportPool, "borrowTimeout", Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void shouldReuseConnection_ForConsecutiveMessages() throws MessagingException {
+        for (int i = 0; i < 5; i++) {
+            smtpTransportPool.send(createMessage("Files " + i));
+        }
+
+        assertEquals(5, greenMail.getReceivedMessages().length);
+        assertEquals(1, smtpTransportPool.getOpenedConnectionCount());
+        assertEquals(1, smtpTransportPool.getIdleConnectionCount());
+    }
+
+    @Test
+    public void shouldNotExceedMaxConnections_ForConcurrentSenders() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                String subject = "Files " + i;
+                futures.add(executor.submit(() -> {
+                    smtpTransportPool.send(createMessage(subject));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(12, greenMail.getReceivedMessages().length);
+        assertTrue(smtpTransportPool.getOpenedConnectionCount() <= 2);
+    }
+
+    @Test
+    public void shouldEvictIdleConnections_AndReconnectOnNextSend() throws MessagingException {
+        smtpTransportPool.send(createMessage("First"));
+
+        ReflectionTestUtils.setField(smtpTransportPool, "idleTimeout", Duration.ZERO);
+        smtpTransportPool.evictIdleConnections();
+
+        assertEquals(0, smtpTransportPool.getIdleConnectionCount());
+
+        smtpTransportPool.send(createMessage("Second"));
+
+        assertEquals(2, greenMail.getReceivedMessages().length);
+        assertEquals(2, smtpTransportPool.getOpenedConnectionCount());
+    }
+
+    private MimeMessage createMessage(String subject) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+        helper.setFrom("sender@localhost");
+        helper.setTo("someone@localhost");
+        helper.setSubject(subject);
+        helper.setText("Please find attached the ZIP archive of requested files");
+        return message;
+    }
+}
@@ -0,0 +1,111 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.jerzymaj.file_researcher_backend.DTOs.TaskEventDTO;
+import com.jerzymaj.file_researcher_backend.DTOs.TaskStatusDTO;
+import com.jerzymaj.file_researcher_backend.exceptions.TaskNotFoundException;
+import com.jerzymaj.file_researcher_backend.models.TaskEvent;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.TaskStage;
+import com.jerzymaj.file_researcher_backend.repositories.TaskEventRepository;
+import com.jerzymaj.file_researcher_backend.services.TaskRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.AccessDeniedException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class TaskRegistryUnitTests {
+
+    @Mock
+    private TaskEventRepository taskEventRepository;
+
+    @InjectMocks
+    private TaskRegistry taskRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(taskRegistry, "maxTasks", 100L);
+        ReflectionTestUtils.setField(taskRegistry, "maxEvents", 4);
+        ReflectionTestUtils.setField(taskRegistry, "retention", Duration.ofHours(1));
+        taskRegistry.init();
+    }
+
+    @Test
+    public void shouldRecordTimeline_AndFinishTask_WhenProgressReaches100() throws AccessDeniedException {
+        taskRegistry.start("task-1", 7L);
+        taskRegistry.transition("task-1", TaskStage.COMPRESSING, "Compressing files");
+        taskRegistry.recordProgress("task-1", 45, "Processing: a.txt");
+
+        TaskStatusDTO inProgress = taskRegistry.getTask("task-1", 7L);
+        assertEquals(TaskStage.COMPRESSING, inProgress.stage());
+        assertEquals(45, inProgress.percent());
+        assertEquals("Processing: a.txt", inProgress.message());
+        assertEquals(2, inProgress.timeline().size());
+
+        taskRegistry.recordProgress("task-1", 100, "Completed!");
+
+        TaskStatusDTO done = taskRegistry.getTask("task-1", 7L);
+        assertEquals(TaskStage.DONE, done.stage());
+        assertEquals(100, done.percent());
+        assertEquals(List.of(TaskStage.STAGED, TaskStage.COMPRESSING, TaskStage.DONE),
+                done.timeline().stream().map(TaskEventDTO::stage).toList());
+        verifyNoInteractions(taskEventRepository);
+    }
+
+    @Test
+    public void shouldKeepFirstAndLatestEvents_IfTimelineIsFull() throws AccessDeniedException {
+        taskRegistry.start("task-1", 7L);
+        for (int part = 1; part <= 5; part++) {
+            taskRegistry.transition("task-1", TaskStage.SENDING, "Sending part " + part);
+        }
+
+        List<TaskEventDTO> timeline = taskRegistry.getTask("task-1", 7L).timeline();
+
+        assertEquals(4, timeline.size());
+        assertEquals(TaskStage.STAGED, timeline.getFirst().stage());
+        assertEquals("Sending part 5", timeline.getLast().message());
+    }
+
+    @Test
+    public void shouldRejectOtherUsers_AndUnknownTasks() {
+        taskRegistry.start("task-1", 7L);
+
+        assertThrows(AccessDeniedException.class, () -> taskRegistry.getTask("task-1", 8L));
+        assertThrows(TaskNotFoundException.class, () -> taskRegistry.getTask("missing", 7L));
+    }
+
+    @Test
+    public void shouldPersistTransitions_AndRestoreUnknownTaskFromDatabase() throws AccessDeniedException {
+        ReflectionTestUtils.setField(taskRegistry, "persist", true);
+        taskRegistry.start("task-1", 7L);
+
+        verify(taskEventRepository).save(argThat((TaskEvent event) ->
+                event.getTaskId().equals("task-1") && event.getStage() == TaskStage.STAGED && event.getUserId() == 7L));
+
+        LocalDateTime now = LocalDateTime.now();
+        when(taskEventRepository.findAllByTaskIdOrderByIdAsc("task-2")).thenReturn(List.of(
+                TaskEvent.builder().taskId("task-2").userId(7L).stage(TaskStage.STAGED).occurredAt(now).build(),
+                TaskEvent.builder().taskId("task-2").userId(7L).stage(TaskStage.SENDING).percent(95).occurredAt(now).build()));
+
+        TaskStatusDTO restored = taskRegistry.getTask("task-2", 7L);
+
+        assertEquals(TaskStage.SENDING, restored.stage());
+        assertEquals(95, restored.percent());
+        assertEquals(2, restored.timeline().size());
+        verify(taskEventRepository, times(1)).save(any());
+    }
+}
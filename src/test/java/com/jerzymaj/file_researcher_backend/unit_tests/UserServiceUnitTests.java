@@ -1,20 +1,28 @@
 package com.jerzymaj.file_researcher_backend.unit_tests;
 
+import com.jerzymaj.file_researcher_backend.DTOs.ArchiveFiles;
 import com.jerzymaj.file_researcher_backend.DTOs.RegisterUserDTO;
 import com.jerzymaj.file_researcher_backend.exceptions.ExistingUserException;
 import com.jerzymaj.file_researcher_backend.models.User;
 import com.jerzymaj.file_researcher_backend.repositories.UserRepository;
+import com.jerzymaj.file_researcher_backend.security.AuthFacade;
+import com.jerzymaj.file_researcher_backend.services.ArchiveStorage;
+import com.jerzymaj.file_researcher_backend.services.CascadeDeletionService;
 import com.jerzymaj.file_researcher_backend.services.UserService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.List;
+
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -27,6 +35,15 @@ public class UserServiceUnitTests {
     @Mock
     PasswordEncoder passwordEncoder;
 
+    @Mock
+    AuthFacade authFacade;
+
+    @Mock
+    CascadeDeletionService cascadeDeletionService;
+
+    @Mock
+    ArchiveStorage archiveStorage;
+
     @InjectMocks
     UserService userService;
 
@@ -59,4 +76,18 @@ public class UserServiceUnitTests {
         assertThatThrownBy(() -> userService.registerUser(registerUserDTO))
                 .isInstanceOf(ExistingUserException.class);
     }
+
+    @Test
+    public void shouldDeleteArchiveFiles_IfCurrentUserIsDeleted() {
+        User user = User.builder().id(1L).name("jerzy").build();
+        ArchiveFiles archiveFiles = new ArchiveFiles("/archives/fileset-1-1.zip", null);
+        when(authFacade.getCurrentUser()).thenReturn(user);
+        when(cascadeDeletionService.deleteUser(1L)).thenReturn(List.of(archiveFiles));
+
+        userService.deleteCurrentUser();
+
+        InOrder inOrder = inOrder(cascadeDeletionService, archiveStorage);
+        inOrder.verify(cascadeDeletionService).deleteUser(1L);
+        inOrder.verify(archiveStorage).delete(archiveFiles);
+    }
 }
@@ -1,32 +1,73 @@
 package com.jerzymaj.file_researcher_backend.unit_tests;
 
-import com.jerzymaj.file_researcher_backend.services.ProgressCallback;
+import com.jerzymaj.file_researcher_backend.DTOs.ZipPart;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ArchiveFormat;
+import com.jerzymaj.file_researcher_backend.services.CompressionGovernor;
+import com.jerzymaj.file_researcher_backend.services.DeflaterPool;
+import com.jerzymaj.file_researcher_backend.services.ProgressCounter;
+import com.jerzymaj.file_researcher_backend.services.TarGzArchiveWriter;
+import com.jerzymaj.file_researcher_backend.services.TarZstdArchiveWriter;
 import com.jerzymaj.file_researcher_backend.services.ZipArchiveCreator;
+import com.jerzymaj.file_researcher_backend.services.ZipPipelineMetrics;
+import com.github.luben.zstd.ZstdInputStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.Deflater;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class ZipArchiveCreatorTest {
 
     private ZipArchiveCreator zipArchiveCreator ;
 
+    private SimpleMeterRegistry meterRegistry;
+
+    private CompressionGovernor compressionGovernor;
+
     @BeforeEach
     public void setUp() {
-        zipArchiveCreator = new ZipArchiveCreator();
+        meterRegistry = new SimpleMeterRegistry();
+        TarZstdArchiveWriter zstdWriter = new TarZstdArchiveWriter();
+        ReflectionTestUtils.setField(zstdWriter, "level", 3);
+        ReflectionTestUtils.setField(zstdWriter, "workers", 2);
+        TarGzArchiveWriter gzipWriter = new TarGzArchiveWriter();
+        ReflectionTestUtils.setField(gzipWriter, "level", 6);
+
+        ZipPipelineMetrics metrics = new ZipPipelineMetrics(meterRegistry);
+        compressionGovernor = new CompressionGovernor(metrics);
+        compressionGovernor.init();
+
+        DeflaterPool deflaterPool = new DeflaterPool(metrics);
+        ReflectionTestUtils.setField(deflaterPool, "size", 1);
+        ReflectionTestUtils.setField(deflaterPool, "bufferBytes", 8192);
+        deflaterPool.init();
+
+        zipArchiveCreator = new ZipArchiveCreator(metrics, List.of(zstdWriter, gzipWriter), compressionGovernor,
+                deflaterPool);
     }
 
     @Test
@@ -40,9 +81,9 @@ public class ZipArchiveCreatorTest {
         List<Path> filesToZip = List.of(file1, file2);
         Path zipPath = Files.createFile(tempDir.resolve("test.zip"));
 
-        ProgressCallback progressCallback = mock(ProgressCallback.class);
+        ProgressCounter progressCounter = new ProgressCounter();
 
-        zipArchiveCreator.createZipArchiveFromPaths(filesToZip,zipPath,sourceDir, progressCallback);
+        zipArchiveCreator.createZipArchiveFromPaths(filesToZip,zipPath,sourceDir, progressCounter);
 
         assertTrue(Files.exists(zipPath));
         assertTrue(Files.size(zipPath) > 0);
@@ -52,7 +93,15 @@ public class ZipArchiveCreatorTest {
             assertNotNull(zipFile.getEntry("test2.pdf"));
         }
 
-        verify(progressCallback, atLeastOnce()).onUpdate(anyInt(), anyString());
+        assertEquals(Files.size(file1) + Files.size(file2), progressCounter.getBytesProcessed());
+        assertEquals(90, progressCounter.percent());
+        assertEquals("test2.pdf", progressCounter.getCurrentEntry());
+
+        assertEquals(1, meterRegistry.get("zip.pipeline.stage")
+                .tags("stage", "compression", "outcome", "success").timer().count());
+        assertEquals(Files.size(file1) + Files.size(file2),
+                meterRegistry.get("zip.compression.bytes.in").summary().totalAmount());
+        assertEquals(Files.size(zipPath), meterRegistry.get("zip.compression.bytes.out").summary().totalAmount());
     }
 
     @Test
@@ -64,7 +113,7 @@ public class ZipArchiveCreatorTest {
         List<Path> filesToZip = List.of(file1, file1);
         Path zipPath = Files.createFile(tempDir.resolve("test.zip"));
 
-        zipArchiveCreator.createZipArchiveFromPaths(filesToZip,zipPath,sourceDir, (percent, message) -> {});
+        zipArchiveCreator.createZipArchiveFromPaths(filesToZip,zipPath,sourceDir, new ProgressCounter());
 
         assertTrue(Files.exists(zipPath));
         assertTrue(Files.size(zipPath) > 0);
@@ -73,4 +122,256 @@ public class ZipArchiveCreatorTest {
             assertEquals(1, zipFile.size());
         }
     }
+
+    @Test
+    public void shouldPlanPartsBySize_AndGiveOversizedFileItsOwnPart(@TempDir Path tempDir) throws IOException {
+
+        Path sourceDir = Files.createDirectories(tempDir.resolve("source"));
+        Path small1 = Files.writeString(sourceDir.resolve("a.txt"), "x".repeat(40));
+        Path small2 = Files.writeString(sourceDir.resolve("b.txt"), "x".repeat(40));
+        Path large = Files.writeString(sourceDir.resolve("c.txt"), "x".repeat(150));
+        Path small3 = Files.writeString(sourceDir.resolve("d.txt"), "x".repeat(40));
+
+        List<ZipPart> parts = zipArchiveCreator.planParts(List.of(small1, small2, large, small3, small1), sourceDir, 100);
+
+        assertEquals(3, parts.size());
+        assertEquals(List.of(small1, small2), parts.get(0).files());
+        assertEquals(List.of(large), parts.get(1).files());
+        assertEquals(List.of(small3), parts.get(2).files());
+        assertEquals(3, parts.get(2).partNumber());
+    }
+
+    @Test
+    public void shouldCreateZipArchivePart_WithManifest(@TempDir Path tempDir) throws IOException {
+
+        Path sourceDir = Files.createDirectories(tempDir.resolve("source"));
+        Path file1 = Files.writeString(sourceDir.resolve("test.txt"), "some txt content for testing");
+        Path partPath = tempDir.resolve("test.part2.zip");
+
+        zipArchiveCreator.createZipArchivePart(new ZipPart(2, List.of(file1), Files.size(file1)), 3,
+                "test.zip", partPath, sourceDir, new ProgressCounter());
+
+        try (ZipFile zipFile = new ZipFile(partPath.toFile())) {
+            assertNotNull(zipFile.getEntry("test.txt"));
+            assertNotNull(zipFile.getEntry("MANIFEST-part2-of-3.txt"));
+        }
+    }
+
+    @Test
+    public void shouldCreateIdenticalArchives_ForSameFilesInAnyOrder(@TempDir Path tempDir) throws IOException {
+
+        Path sourceDir = Files.createDirectories(tempDir.resolve("source"));
+        Path file1 = Files.writeString(sourceDir.resolve("b.txt"), "some txt content for testing");
+        Path file2 = Files.writeString(sourceDir.resolve("a.txt"), "other txt content for testing");
+        Path firstZip = tempDir.resolve("first.zip");
+        Path secondZip = tempDir.resolve("second.zip");
+
+        zipArchiveCreator.createZipArchiveFromPaths(List.of(file1, file2), firstZip, sourceDir, new ProgressCounter());
+        Files.setLastModifiedTime(file1, FileTime.fromMillis(0));
+        zipArchiveCreator.createZipArchiveFromPaths(List.of(file2, file1), secondZip, sourceDir, new ProgressCounter());
+
+        assertArrayEquals(Files.readAllBytes(firstZip), Files.readAllBytes(secondZip));
+
+        try (ZipFile zipFile = new ZipFile(firstZip.toFile())) {
+            assertEquals(List.of("a.txt", "b.txt"), zipFile.stream().map(ZipEntry::getName).toList());
+        }
+    }
+
+    @Test
+    public void shouldChangeContentDigest_OnlyWhenContentOrPathsChange(@TempDir Path tempDir) throws IOException {
+
+        Path sourceDir = Files.createDirectories(tempDir.resolve("source"));
+        Path file1 = Files.writeString(sourceDir.resolve("a.txt"), "some txt content for testing");
+        Path file2 = Files.writeString(sourceDir.resolve("b.txt"), "other txt content for testing");
+
+        String digest = zipArchiveCreator.contentDigest(List.of(file1, file2), sourceDir);
+
+        assertEquals(digest, zipArchiveCreator.contentDigest(List.of(file2, file1, file1), sourceDir));
+
+        Files.writeString(file2, "changed txt content for testing");
+        String changedContent = zipArchiveCreator.contentDigest(List.of(file1, file2), sourceDir);
+        assertNotEquals(digest, changedContent);
+
+        Path renamed = Files.move(file2, sourceDir.resolve("c.txt"));
+        assertNotEquals(changedContent, zipArchiveCreator.contentDigest(List.of(file1, renamed), sourceDir));
+    }
+
+    @Test
+    public void shouldUpdateArchive_CopyingUnchangedEntriesAndCompressingChangedOnes(@TempDir Path tempDir) throws IOException {
+
+        Path sourceDir = Files.createDirectories(tempDir.resolve("source"));
+        Path unchanged = Files.writeString(sourceDir.resolve("a.txt"), "unchanged content ".repeat(100));
+        Path changed = Files.writeString(sourceDir.resolve("b.txt"), "old content");
+        Path previousZip = tempDir.resolve("previous.zip");
+        zipArchiveCreator.createZipArchiveFromPaths(List.of(unchanged, changed), previousZip, sourceDir, new ProgressCounter());
+
+        Files.writeString(changed, "new content");
+        Path added = Files.writeString(sourceDir.resolve("c.txt"), "added content");
+        Path zipPath = tempDir.resolve("updated.zip");
+        ProgressCounter progressCounter = new ProgressCounter();
+
+        int reused = zipArchiveCreator.updateZipArchive(previousZip, List.of(added, changed, unchanged), zipPath,
+                sourceDir, progressCounter);
+
+        assertEquals(1, reused);
+        assertEquals(Files.size(unchanged) + Files.size(changed) + Files.size(added), progressCounter.getBytesProcessed());
+
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            assertEquals(List.of("a.txt", "b.txt", "c.txt"), zipFile.stream().map(ZipEntry::getName).toList());
+            assertEquals(Files.readString(unchanged), readEntry(zipFile, "a.txt"));
+            assertEquals("new content", readEntry(zipFile, "b.txt"));
+            assertEquals("added content", readEntry(zipFile, "c.txt"));
+        }
+    }
+
+    @Test
+    public void shouldBuildEveryZipWithOnePooledDeflater_AndUpdateToSameBytesAsFullBuild(@TempDir Path tempDir) throws IOException {
+
+        Path sourceDir = Files.createDirectories(tempDir.resolve("source"));
+        Path unchanged = Files.writeString(sourceDir.resolve("a.txt"), "unchanged content ".repeat(100));
+        Path changed = Files.writeString(sourceDir.resolve("b.txt"), "old content");
+        Path previousZip = tempDir.resolve("previous.zip");
+        zipArchiveCreator.createZipArchiveFromPaths(List.of(unchanged, changed), previousZip, sourceDir, new ProgressCounter());
+
+        Files.writeString(changed, "new content ".repeat(50));
+        Path updatedZip = tempDir.resolve("updated.zip");
+        Path fullZip = tempDir.resolve("full.zip");
+        zipArchiveCreator.updateZipArchive(previousZip, List.of(unchanged, changed), updatedZip, sourceDir,
+                new ProgressCounter());
+        zipArchiveCreator.createZipArchiveFromPaths(List.of(unchanged, changed), fullZip, sourceDir, new ProgressCounter());
+        zipArchiveCreator.contentDigest(List.of(unchanged, changed), sourceDir);
+
+        assertArrayEquals(Files.readAllBytes(fullZip), Files.readAllBytes(updatedZip));
+        assertEquals(1, meterRegistry.get("zip.deflater.pool.borrows").tag("result", "created").counter().count());
+        assertEquals(3, meterRegistry.get("zip.deflater.pool.borrows").tag("result", "reused").counter().count());
+
+        // sizes are in the local headers, so streaming readers need no data descriptors
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(fullZip))) {
+            assertEquals("a.txt", zis.getNextEntry().getName());
+            assertEquals(Files.readString(unchanged), new String(zis.readAllBytes(), StandardCharsets.UTF_8));
+            assertEquals("b.txt", zis.getNextEntry().getName());
+            assertEquals("new content ".repeat(50), new String(zis.readAllBytes(), StandardCharsets.UTF_8));
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test
+    public void shouldMergeEntriesOfUploadedZip_WithoutRecompressing(@TempDir Path tempDir) throws IOException {
+        ReflectionTestUtils.setField(zipArchiveCreator, "mergeZipUploads", true);
+
+        Path sourceDir = Files.createDirectories(tempDir.resolve("source"));
+        Path plain = Files.writeString(sourceDir.resolve("a.txt"), "plain content");
+        Path bundle = sourceDir.resolve("bundle.zip");
+
+        try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(bundle))) {
+            zos.setLevel(Deflater.BEST_SPEED);
+            zos.putNextEntry(new ZipEntry("x.txt"));
+            zos.write("bundled content ".repeat(200).getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("sub/"));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("sub/y.txt"));
+            zos.write("nested content".getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+
+        Path zipPath = tempDir.resolve("merged.zip");
+        zipArchiveCreator.createZipArchiveFromPaths(List.of(bundle, plain), zipPath, sourceDir, new ProgressCounter());
+
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile()); ZipFile bundleFile = new ZipFile(bundle.toFile())) {
+            assertEquals(List.of("a.txt", "bundle/x.txt", "bundle/sub/y.txt"),
+                    zipFile.stream().map(ZipEntry::getName).toList());
+            assertEquals("plain content", readEntry(zipFile, "a.txt"));
+            assertEquals("bundled content ".repeat(200), readEntry(zipFile, "bundle/x.txt"));
+            assertEquals("nested content", readEntry(zipFile, "bundle/sub/y.txt"));
+            // level 1 output copied as is, the archive itself would have deflated it at level 6
+            assertEquals(bundleFile.getEntry("x.txt").getCompressedSize(),
+                    zipFile.getEntry("bundle/x.txt").getCompressedSize());
+        }
+    }
+
+    @Test
+    public void shouldAddInvalidZipUploadAsPlainFile(@TempDir Path tempDir) throws IOException {
+        ReflectionTestUtils.setField(zipArchiveCreator, "mergeZipUploads", true);
+
+        Path sourceDir = Files.createDirectories(tempDir.resolve("source"));
+        Path notAZip = Files.writeString(sourceDir.resolve("fake.zip"), "not a zip at all");
+        Path zipPath = tempDir.resolve("merged.zip");
+
+        zipArchiveCreator.createZipArchiveFromPaths(List.of(notAZip), zipPath, sourceDir, new ProgressCounter());
+
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            assertEquals("not a zip at all", readEntry(zipFile, "fake.zip"));
+        }
+    }
+
+    @Test
+    public void shouldCreateTarArchives_WithSameEntriesAsZip(@TempDir Path tempDir) throws IOException {
+        Path sourceDir = Files.createDirectories(tempDir.resolve("source"));
+        Path file1 = Files.writeString(sourceDir.resolve("b.txt"), "second ".repeat(1000));
+        Path file2 = Files.writeString(Files.createDirectories(sourceDir.resolve("dir")).resolve("a.txt"), "first");
+
+        Path zstPath = tempDir.resolve("test.tar.zst");
+        Path gzPath = tempDir.resolve("test.tar.gz");
+        ProgressCounter progressCounter = new ProgressCounter();
+
+        zipArchiveCreator.createArchiveFromPaths(ArchiveFormat.TAR_ZST, List.of(file1, file2, file1), zstPath, sourceDir,
+                progressCounter);
+        zipArchiveCreator.createArchiveFromPaths(ArchiveFormat.TAR_GZ, List.of(file2, file1), gzPath, sourceDir,
+                new ProgressCounter());
+
+        Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("b.txt", "second ".repeat(1000));
+        expected.put("dir/a.txt", "first");
+
+        try (InputStream zst = new ZstdInputStream(Files.newInputStream(zstPath));
+             InputStream gz = new GzipCompressorInputStream(Files.newInputStream(gzPath))) {
+            assertEquals(expected, readTar(zst));
+            assertEquals(expected, readTar(gz));
+        }
+        assertTrue(Files.size(zstPath) < 1000);
+        assertEquals("dir/a.txt", progressCounter.getCurrentEntry());
+        assertEquals(2, meterRegistry.get("zip.pipeline.stage")
+                .tags("stage", "compression", "outcome", "success").timer().count());
+        assertNotEquals(zipArchiveCreator.contentDigest(ArchiveFormat.ZIP, List.of(file1), sourceDir),
+                zipArchiveCreator.contentDigest(ArchiveFormat.TAR_ZST, List.of(file1), sourceDir));
+    }
+
+    @Test
+    public void shouldStoreEntriesUncompressed_WhenGovernorReportsSaturation(@TempDir Path tempDir) throws IOException {
+        ReflectionTestUtils.setField(compressionGovernor, "adaptive", true);
+        ReflectionTestUtils.setField(compressionGovernor, "allowStored", true);
+        ReflectionTestUtils.setField(compressionGovernor, "cpuLow", 0.5);
+        ReflectionTestUtils.setField(compressionGovernor, "cpuHigh", 0.9);
+        ReflectionTestUtils.setField(compressionGovernor, "cpuLoad", (DoubleSupplier) () -> 1.0);
+
+        Path sourceDir = Files.createDirectories(tempDir.resolve("source"));
+        Path file = Files.writeString(sourceDir.resolve("a.txt"), "repetitive ".repeat(1000));
+        Path zipPath = tempDir.resolve("stored.zip");
+
+        zipArchiveCreator.createZipArchiveFromPaths(List.of(file), zipPath, sourceDir, new ProgressCounter());
+
+        try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+            assertEquals("repetitive ".repeat(1000), readEntry(zipFile, "a.txt"));
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("a.txt").getMethod());
+            assertEquals(Files.size(file), zipFile.getEntry("a.txt").getCompressedSize());
+        }
+        assertEquals(1, meterRegistry.get("zip.compression.level").tags("level", "0", "reason", "cpu").counter().count());
+    }
+
+    private Map<String, String> readTar(InputStream compressed) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        TarArchiveInputStream tar = new TarArchiveInputStream(compressed);
+        TarArchiveEntry entry;
+        while ((entry = tar.getNextEntry()) != null) {
+            entries.put(entry.getName(), new String(tar.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        return entries;
+    }
+
+    private String readEntry(ZipFile zipFile, String name) throws IOException {
+        try (InputStream inputStream = zipFile.getInputStream(zipFile.getEntry(name))) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
 }
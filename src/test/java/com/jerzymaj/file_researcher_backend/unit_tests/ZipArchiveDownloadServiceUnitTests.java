@@ -0,0 +1,115 @@
+package com.jerzymaj.file_researcher_backend.unit_tests;
+
+import com.jerzymaj.file_researcher_backend.exceptions.PathNotFoundException;
+import com.jerzymaj.file_researcher_backend.models.ZipArchive;
+import com.jerzymaj.file_researcher_backend.services.ZipArchiveDownloadService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZipArchiveDownloadServiceUnitTests {
+
+    private ZipArchiveDownloadService zipArchiveDownloadService;
+    private ZipArchive zipArchive;
+    private Path archiveFile;
+
+    @BeforeEach
+    public void setUp(@TempDir Path tempDir) throws IOException {
+        zipArchiveDownloadService = new ZipArchiveDownloadService();
+
+        archiveFile = Files.writeString(tempDir.resolve("fileset-1-1.zip"), "0123456789");
+
+        zipArchive = ZipArchive.builder()
+                .id(1L)
+                .archiveName("fileset-1-1.zip")
+                .archivePath(archiveFile.toString())
+                .size(10L)
+                .build();
+    }
+
+    @Test
+    public void shouldServeWholeArchive_IfNoRangeRequested() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        zipArchiveDownloadService.serveArchive(zipArchive, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertNotNull(response.getHeader("ETag"));
+    }
+
+    @Test
+    public void shouldServePartialContent_IfRangeRequested() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        request.addHeader("Range", "bytes=4-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        zipArchiveDownloadService.serveArchive(zipArchive, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("456789", response.getContentAsString());
+        assertEquals("bytes 4-9/10", response.getHeader("Content-Range"));
+        assertEquals(6, response.getContentLengthLong());
+    }
+
+    @Test
+    public void shouldReturnNotModified_IfETagMatches() throws IOException {
+        MockHttpServletResponse firstResponse = new MockHttpServletResponse();
+        zipArchiveDownloadService.serveArchive(zipArchive, new MockHttpServletRequest("GET", "/download"), firstResponse);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        request.addHeader("If-None-Match", firstResponse.getHeader("ETag"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        zipArchiveDownloadService.serveArchive(zipArchive, request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void shouldRejectUnsatisfiableRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        request.addHeader("Range", "bytes=50-60");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        zipArchiveDownloadService.serveArchive(zipArchive, request, response);
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    public void shouldDelegateToSendfile_IfContainerSupportsIt() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/download");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader("Range", "bytes=2-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        zipArchiveDownloadService.serveArchive(zipArchive, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(archiveFile.toAbsolutePath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(2L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(6L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void shouldThrowPathNotFoundException_IfArchiveNotRetained() throws IOException {
+        Files.delete(archiveFile);
+
+        assertThrows(PathNotFoundException.class, () -> zipArchiveDownloadService.serveArchive(
+                zipArchive, new MockHttpServletRequest("GET", "/download"), new MockHttpServletResponse()));
+    }
+}
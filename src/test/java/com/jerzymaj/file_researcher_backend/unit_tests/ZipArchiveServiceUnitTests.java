@@ -1,15 +1,18 @@
 package com.jerzymaj.file_researcher_backend.unit_tests;
 
+import com.jerzymaj.file_researcher_backend.DTOs.CompressedPart;
 import com.jerzymaj.file_researcher_backend.DTOs.ProgressUpdate;
 import com.jerzymaj.file_researcher_backend.DTOs.StagedUpload;
+import com.jerzymaj.file_researcher_backend.DTOs.ZipPart;
 import com.jerzymaj.file_researcher_backend.DTOs.ZipStatsResponse;
 import com.jerzymaj.file_researcher_backend.models.*;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.ArchiveFormat;
+import com.jerzymaj.file_researcher_backend.models.enum_classes.DeliveryMode;
 import com.jerzymaj.file_researcher_backend.models.enum_classes.FileSetStatus;
 import com.jerzymaj.file_researcher_backend.repositories.FileSetRepository;
 import com.jerzymaj.file_researcher_backend.repositories.ZipArchiveRepository;
 import com.jerzymaj.file_researcher_backend.security.AuthFacade;
 import com.jerzymaj.file_researcher_backend.services.*;
-import jakarta.mail.MessagingException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,7 +22,6 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 
@@ -41,9 +43,6 @@ public class ZipArchiveServiceUnitTests {
     @Mock
     private ZipArchiveCreator zipArchiveCreator;
 
-    @Mock
-    private ZipEmailSender zipEmailSender;
-
     @Mock
     private FileStager fileStager;
 
@@ -57,7 +56,7 @@ public class ZipArchiveServiceUnitTests {
     private ZipArchiveRepository zipArchiveRepository;
 
     @Mock
-    private SimpMessagingTemplate messagingTemplate;
+    private ProgressNotifier progressNotifier;
 
     @Mock
     private ZipArchiveStatusService zipArchiveStatusService;
@@ -65,6 +64,27 @@ public class ZipArchiveServiceUnitTests {
     @Mock
     private SentHistoryService sentHistoryService;
 
+    @Mock
+    private ArchiveStorage archiveStorage;
+
+    @Mock
+    private DeliveryPolicy deliveryPolicy;
+
+    @Mock
+    private DownloadLinkService downloadLinkService;
+
+    @Mock
+    private SplitArchivePipeline splitArchivePipeline;
+
+    @Mock
+    private ZipPipelineMetrics metrics;
+
+    @Mock
+    private TaskRegistry taskRegistry;
+
+    @Mock
+    private ArchiveCache archiveCache;
+
     @InjectMocks
     private ZipArchiveService zipArchiveService;
 
@@ -99,8 +119,11 @@ public class ZipArchiveServiceUnitTests {
         lenient().when(fileSetRepository.findByIdWithFiles(fileSet.getId())).thenReturn(Optional.of(fileSet));
         lenient().when(zipArchiveRepository.findMaxSendNumberByFileSetId(anyLong())).thenReturn(0);
         lenient().doNothing().when(zipArchiveStatusService).updateDatabaseAfterSuccess(anyLong(), anyLong());
+        lenient().when(deliveryPolicy.resolveMode(anyLong())).thenReturn(DeliveryMode.ATTACHMENT);
         lenient().when(sentHistoryService.saveSentHistory(any(ZipArchive.class), anyString(), anyBoolean(), anyString()))
                 .thenAnswer(i -> i.getArgument(0));
+        lenient().when(zipArchiveStatusService.registerForDelivery(any(ZipArchive.class), any(), anyString()))
+                .thenAnswer(i -> i.getArgument(0));
 
         expectedTaskId = "mock-task-id";
 
@@ -138,12 +161,10 @@ public class ZipArchiveServiceUnitTests {
     }
 
     @Test
-    public void shouldCreateAndSendZipAsync_IfSuccess(@TempDir Path tempDir) throws IOException, MessagingException {
+    public void shouldCreateZipAndQueueItForDelivery_IfSuccess(@TempDir Path tempDir) throws IOException {
 
         Path fakeZipPath = Files.createFile(tempDir.resolve("test-archive.zip"));
 
-        when(zipArchiveRepository.save(any(ZipArchive.class)))
-                .thenAnswer(i -> i.getArgument(0));
         when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt()))
                 .thenReturn(fakeZipPath);
 
@@ -154,20 +175,285 @@ public class ZipArchiveServiceUnitTests {
                 eq(fakeZipPath),
                 eq(stagedUpload.uploadDir()),
                 any());
+        verify(progressNotifier).untrack(expectedTaskId);
+
+        verify(zipArchiveStatusService).registerForDelivery(
+                argThat((ZipArchive archive) -> archive.getDeliveryMode() == DeliveryMode.ATTACHMENT
+                        && archive.getRecipientEmail().equals(fileSet.getRecipientEmail())),
+                eq(fakeZipPath),
+                eq(expectedTaskId));
+        verify(zipArchiveStatusService, never()).updateDatabaseAfterSuccess(any(), any());
+        verify(progressNotifier).publish(eq(expectedTaskId), eq(95), any());
+        assertTrue(Files.exists(fakeZipPath));
+    }
+
+    @Test
+    public void shouldSkipCompression_IfArchiveOfSameFilesIsCached(@TempDir Path tempDir) throws IOException {
+
+        Path fakeZipPath = Files.createFile(tempDir.resolve("test-archive.zip"));
+
+        when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt())).thenReturn(fakeZipPath);
+        when(archiveCache.isEnabled()).thenReturn(true);
+        when(zipArchiveCreator.contentDigest(ArchiveFormat.ZIP, stagedUpload.files(), stagedUpload.uploadDir())).thenReturn("digest");
+        when(archiveCache.restore("digest", fakeZipPath)).thenReturn(true);
+
+        zipArchiveService.createAndSendZipAsync(fileSet.getId(), fileSet.getRecipientEmail(), stagedUpload);
+
+        verify(zipArchiveCreator, never()).createZipArchiveFromPaths(any(), any(), any(), any());
+        verify(archiveCache, never()).store(any(), any());
+        verify(metrics).recordCacheLookup(true);
+        verify(zipArchiveStatusService).registerForDelivery(any(ZipArchive.class), eq(fakeZipPath), eq(expectedTaskId));
+    }
+
+    @Test
+    public void shouldCacheBuiltArchive_IfNotCachedYet(@TempDir Path tempDir) throws IOException {
+
+        Path fakeZipPath = tempDir.resolve("test-archive.zip");
 
+        when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt())).thenReturn(fakeZipPath);
+        when(archiveCache.isEnabled()).thenReturn(true);
+        when(zipArchiveCreator.contentDigest(ArchiveFormat.ZIP, stagedUpload.files(), stagedUpload.uploadDir())).thenReturn("digest");
+        doAnswer(i -> Files.createFile(fakeZipPath)).when(zipArchiveCreator)
+                .createZipArchiveFromPaths(any(), eq(fakeZipPath), any(), any());
+
+        zipArchiveService.createAndSendZipAsync(fileSet.getId(), fileSet.getRecipientEmail(), stagedUpload);
+
+        verify(metrics).recordCacheLookup(false);
+        verify(archiveCache).store("digest", fakeZipPath);
+        verify(zipArchiveStatusService).registerForDelivery(any(ZipArchive.class), eq(fakeZipPath), eq(expectedTaskId));
+    }
+
+    @Test
+    public void shouldUpdatePreviousArchive_IfStillOnDisk(@TempDir Path tempDir) throws IOException {
+
+        Path fakeZipPath = Files.createFile(tempDir.resolve("test-archive.zip"));
+        Path previousZipPath = Files.createFile(tempDir.resolve("previous-archive.zip"));
+        ZipArchive missing = ZipArchive.builder().archivePath(tempDir.resolve("purged.zip").toString()).build();
+        ZipArchive previous = ZipArchive.builder().archivePath(previousZipPath.toString()).build();
+
+        when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt())).thenReturn(fakeZipPath);
+        when(zipArchiveRepository.findSingleArchivesByFileSetIdLatestFirst(fileSet.getId()))
+                .thenReturn(List.of(missing, previous));
+
+        zipArchiveService.createAndSendZipAsync(fileSet.getId(), fileSet.getRecipientEmail(), stagedUpload);
+
+        verify(zipArchiveCreator).updateZipArchive(eq(previousZipPath), eq(stagedUpload.files()), eq(fakeZipPath),
+                eq(stagedUpload.uploadDir()), any());
+        verify(zipArchiveCreator, never()).createZipArchiveFromPaths(any(), any(), any(), any());
+        verify(zipArchiveStatusService).registerForDelivery(any(ZipArchive.class), eq(fakeZipPath), eq(expectedTaskId));
+    }
+
+    @Test
+    public void shouldRebuildArchive_IfIncrementalUpdateFails(@TempDir Path tempDir) throws IOException {
+
+        Path fakeZipPath = Files.createFile(tempDir.resolve("test-archive.zip"));
+        Path previousZipPath = Files.createFile(tempDir.resolve("previous-archive.zip"));
+
+        when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt())).thenReturn(fakeZipPath);
+        when(zipArchiveRepository.findSingleArchivesByFileSetIdLatestFirst(fileSet.getId()))
+                .thenReturn(List.of(ZipArchive.builder().archivePath(previousZipPath.toString()).build()));
+        when(zipArchiveCreator.updateZipArchive(any(), any(), any(), any(), any()))
+                .thenThrow(new IOException("Truncated archive"));
+
+        zipArchiveService.createAndSendZipAsync(fileSet.getId(), fileSet.getRecipientEmail(), stagedUpload);
+
+        verify(zipArchiveCreator).createZipArchiveFromPaths(eq(stagedUpload.files()), eq(fakeZipPath),
+                eq(stagedUpload.uploadDir()), any());
+        verify(zipArchiveStatusService).registerForDelivery(any(ZipArchive.class), eq(fakeZipPath), eq(expectedTaskId));
+    }
+
+    @Test
+    public void shouldBuildArchiveInRequestedFormat_WithoutSplitOrIncrementalUpdate(@TempDir Path tempDir) throws IOException {
+
+        Path tarPath = tempDir.resolve("test-archive.tar.zst");
+
+        when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt())).thenReturn(tempDir.resolve("test-archive.zip"));
+        when(deliveryPolicy.isSplitEnabled()).thenReturn(true);
+        doAnswer(i -> Files.createFile(tarPath)).when(zipArchiveCreator)
+                .createArchiveFromPaths(eq(ArchiveFormat.TAR_ZST), any(), eq(tarPath), any(), any());
+
+        zipArchiveService.createAndSendZipAsync(fileSet.getId(), List.of(fileSet.getRecipientEmail()),
+                ArchiveFormat.TAR_ZST, stagedUpload);
+
+        verify(zipArchiveCreator, never()).planParts(any(), any(), anyLong());
+        verify(zipArchiveRepository, never()).findSingleArchivesByFileSetIdLatestFirst(anyLong());
+        verify(zipArchiveCreator, never()).createZipArchiveFromPaths(any(), any(), any(), any());
+        verify(zipArchiveStatusService).registerForDelivery(
+                argThat((ZipArchive archive) -> archive.getFormat() == ArchiveFormat.TAR_ZST
+                        && archive.getArchiveName().equals("test-archive.tar.zst")),
+                eq(tarPath), eq(expectedTaskId));
+    }
+
+    @Test
+    public void shouldDeleteZip_IfQueueingFails(@TempDir Path tempDir) throws IOException {
+
+        Path fakeZipPath = Files.createFile(tempDir.resolve("test-archive.zip"));
 
-        verify(zipEmailSender).sendZipArchiveByEmail(
-                eq(fileSet.getRecipientEmail()),
+        when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt()))
+                .thenReturn(fakeZipPath);
+        when(zipArchiveStatusService.registerForDelivery(any(ZipArchive.class), any(), anyString()))
+                .thenThrow(new IllegalStateException("Database unavailable"));
+
+        zipArchiveService.createAndSendZipAsync(fileSet.getId(), fileSet.getRecipientEmail(), stagedUpload);
+
+        verify(progressNotifier).publish(eq(expectedTaskId), eq(-1), contains("Database unavailable"));
+        assertFalse(Files.exists(fakeZipPath));
+    }
+
+    @Test
+    public void shouldQueueDownloadLink_IfArchiveExceedsLinkThreshold(@TempDir Path tempDir) throws IOException {
+
+        Path fakeZipPath = Files.createFile(tempDir.resolve("test-archive.zip"));
+        Path retainedZipPath = Files.createFile(tempDir.resolve("retained.zip"));
+
+        when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt()))
+                .thenReturn(fakeZipPath);
+        when(deliveryPolicy.resolveMode(anyLong())).thenReturn(DeliveryMode.DOWNLOAD_LINK);
+        when(archiveStorage.retain(fakeZipPath, fileSet.getId(), 1)).thenReturn(retainedZipPath);
+
+        zipArchiveService.createAndSendZipAsync(fileSet.getId(), fileSet.getRecipientEmail(), stagedUpload);
+
+        verify(zipArchiveStatusService).registerForDelivery(
+                argThat((ZipArchive archive) -> archive.getDeliveryMode() == DeliveryMode.DOWNLOAD_LINK
+                        && archive.getArchivePath().equals(retainedZipPath.toAbsolutePath().toString())),
+                isNull(),
+                eq(expectedTaskId));
+    }
+
+    @Test
+    public void shouldCompressOnceAndQueueEveryRecipient_IfSentToSeveralRecipients(@TempDir Path tempDir) throws IOException {
+
+        Path fakeZipPath = Files.createFile(tempDir.resolve("test-archive.zip"));
+        List<String> recipients = List.of("first@mail.com", "second@mail.com");
+
+        when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt()))
+                .thenReturn(fakeZipPath);
+        when(deliveryPolicy.isSplitEnabled()).thenReturn(true);
+
+        zipArchiveService.createAndSendZipAsync(fileSet.getId(), recipients, stagedUpload);
+
+        verify(zipArchiveCreator, times(1)).createZipArchiveFromPaths(eq(stagedUpload.files()), eq(fakeZipPath),
+                eq(stagedUpload.uploadDir()), any());
+        verify(zipArchiveCreator, never()).planParts(any(), any(), anyLong());
+        verify(zipArchiveStatusService).registerForBatchDelivery(
+                argThat((ZipArchive archive) -> archive.getRecipientCount() == 2
+                        && archive.getRecipientEmail().equals("first@mail.com")),
+                eq(recipients),
                 eq(fakeZipPath),
-                any(),
-                any());
+                eq(expectedTaskId));
+        verify(zipArchiveStatusService, never()).registerForDelivery(any(), any(), any());
+        assertTrue(Files.exists(fakeZipPath));
+    }
 
-        verify(zipArchiveStatusService).updateDatabaseAfterSuccess(any(), eq(fileSet.getId()));
-        verify(sentHistoryService).saveSentHistory(any(), eq(fileSet.getRecipientEmail()), eq(true), any());
-        verify(messagingTemplate).convertAndSend(
-                contains(expectedTaskId),
-                argThat((ProgressUpdate msg) -> msg.percent() == 100)
-        );
+    @Test
+    public void shouldQueueEveryPart_IfSplitDeliveryEnabled(@TempDir Path tempDir) throws IOException {
+
+        Path fakeZipPath = tempDir.resolve("test-archive.zip");
+        List<ZipPart> parts = List.of(
+                new ZipPart(1, List.of(stagedUpload.files().get(0)), 100),
+                new ZipPart(2, List.of(stagedUpload.files().get(1)), 100));
+        Path part1 = tempDir.resolve("part1.zip");
+        Path part2 = tempDir.resolve("part2.zip");
+
+        List<CompressedPart> compressedParts = List.of(
+                new CompressedPart(1, part1, 60, null),
+                new CompressedPart(2, part2, 70, null));
+
+        when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt()))
+                .thenReturn(fakeZipPath);
+        when(deliveryPolicy.isSplitEnabled()).thenReturn(true);
+        when(deliveryPolicy.getSplitPartBytes()).thenReturn(150L);
+        when(zipArchiveCreator.planParts(stagedUpload.files(), stagedUpload.uploadDir(), 150L)).thenReturn(parts);
+        when(splitArchivePipeline.compressParts(eq(parts), eq(fakeZipPath), eq(stagedUpload.uploadDir()), any()))
+                .thenReturn(compressedParts);
+
+        zipArchiveService.createAndSendZipAsync(fileSet.getId(), fileSet.getRecipientEmail(), stagedUpload);
+
+        verify(zipArchiveStatusService).registerForSplitDelivery(
+                argThat((ZipArchive archive) -> archive.getDeliveryMode() == DeliveryMode.SPLIT
+                        && archive.getPartCount() == 2 && archive.getSize() == 130L),
+                eq(compressedParts),
+                eq(expectedTaskId));
+        verify(zipArchiveRepository, never()).save(any(ZipArchive.class));
+        verify(zipArchiveCreator, never()).createZipArchiveFromPaths(any(), any(), any(), any());
+        verify(zipArchiveStatusService, never()).updateDatabaseAfterSplitDelivery(any(), any(), anyLong(), anyBoolean());
+    }
+
+    @Test
+    public void shouldQueueNoPart_IfAnyPartFailsToCompress(@TempDir Path tempDir) throws IOException {
+
+        Path fakeZipPath = tempDir.resolve("test-archive.zip");
+        List<ZipPart> parts = List.of(
+                new ZipPart(1, List.of(stagedUpload.files().get(0)), 100),
+                new ZipPart(2, List.of(stagedUpload.files().get(1)), 100));
+        Path part1 = Files.createFile(tempDir.resolve("part1.zip"));
+        Path part2 = tempDir.resolve("part2.zip");
+
+        CompressedPart failedPart = new CompressedPart(2, part2, 0, new IOException("Disk full"));
+
+        when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt()))
+                .thenReturn(fakeZipPath);
+        when(deliveryPolicy.isSplitEnabled()).thenReturn(true);
+        when(deliveryPolicy.getSplitPartBytes()).thenReturn(150L);
+        when(zipArchiveCreator.planParts(stagedUpload.files(), stagedUpload.uploadDir(), 150L)).thenReturn(parts);
+        when(splitArchivePipeline.compressParts(eq(parts), eq(fakeZipPath), eq(stagedUpload.uploadDir()), any()))
+                .thenReturn(List.of(new CompressedPart(1, part1, 60, null), failedPart));
+
+        zipArchiveService.createAndSendZipAsync(fileSet.getId(), fileSet.getRecipientEmail(), stagedUpload);
+
+        verify(zipArchiveStatusService, never()).registerForSplitDelivery(any(), any(), any());
+        verify(zipArchiveStatusService).registerFailedSplitDelivery(
+                argThat((ZipArchive archive) -> archive.getSize() == 60L), eq(List.of(failedPart)));
+        verify(progressNotifier).publish(expectedTaskId, -1, "Error: 1 of 2 parts could not be created, no part was sent");
+        assertFalse(Files.exists(part1));
+    }
+
+    @Test
+    public void shouldSendDownloadLink_IfFileIsLargerThanSplitPart(@TempDir Path tempDir) throws IOException {
+
+        Path fakeZipPath = Files.createFile(tempDir.resolve("test-archive.zip"));
+        Path retainedZipPath = Files.createFile(tempDir.resolve("retained.zip"));
+        List<ZipPart> parts = List.of(
+                new ZipPart(1, List.of(stagedUpload.files().get(0)), 100),
+                new ZipPart(2, List.of(stagedUpload.files().get(1)), 400));
+
+        when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt())).thenReturn(fakeZipPath);
+        when(deliveryPolicy.isSplitEnabled()).thenReturn(true);
+        when(deliveryPolicy.isLinksEnabled()).thenReturn(true);
+        when(deliveryPolicy.getSplitPartBytes()).thenReturn(150L);
+        when(deliveryPolicy.resolveUnsplittableMode(anyLong())).thenReturn(DeliveryMode.DOWNLOAD_LINK);
+        when(zipArchiveCreator.planParts(stagedUpload.files(), stagedUpload.uploadDir(), 150L)).thenReturn(parts);
+        when(archiveStorage.retain(fakeZipPath, fileSet.getId(), 1)).thenReturn(retainedZipPath);
+
+        zipArchiveService.createAndSendZipAsync(fileSet.getId(), fileSet.getRecipientEmail(), stagedUpload);
+
+        verify(splitArchivePipeline, never()).compressParts(any(), any(), any(), any());
+        verify(zipArchiveCreator).createZipArchiveFromPaths(eq(stagedUpload.files()), eq(fakeZipPath),
+                eq(stagedUpload.uploadDir()), any());
+        verify(zipArchiveStatusService).registerForDelivery(
+                argThat((ZipArchive archive) -> archive.getDeliveryMode() == DeliveryMode.DOWNLOAD_LINK),
+                isNull(),
+                eq(expectedTaskId));
+    }
+
+    @Test
+    public void shouldRejectSendBeforeCompressing_IfFileIsLargerThanSplitPartAndLinksAreDisabled(@TempDir Path tempDir)
+            throws IOException {
+
+        List<ZipPart> parts = List.of(new ZipPart(1, List.of(stagedUpload.files().get(1)), 400));
+
+        when(zipArchiveCreator.prepareTempPath(anyLong(), anyInt())).thenReturn(tempDir.resolve("test-archive.zip"));
+        when(deliveryPolicy.isSplitEnabled()).thenReturn(true);
+        when(deliveryPolicy.isLinksEnabled()).thenReturn(false);
+        when(deliveryPolicy.getSplitPartBytes()).thenReturn(150L);
+        when(zipArchiveCreator.planParts(stagedUpload.files(), stagedUpload.uploadDir(), 150L)).thenReturn(parts);
+
+        zipArchiveService.createAndSendZipAsync(fileSet.getId(), fileSet.getRecipientEmail(), stagedUpload);
+
+        verify(zipArchiveCreator, never()).createZipArchiveFromPaths(any(), any(), any(), any());
+        verify(zipArchiveStatusService, never()).registerForDelivery(any(), any(), any());
+        verify(progressNotifier).publish(eq(expectedTaskId), eq(-1),
+                contains("test2.txt is larger than the split part limit of 150 bytes"));
     }
 
     @Test
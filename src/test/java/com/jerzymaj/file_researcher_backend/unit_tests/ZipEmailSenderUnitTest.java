@@ -1,5 +1,6 @@
 package com.jerzymaj.file_researcher_backend.unit_tests;
 
+import com.jerzymaj.file_researcher_backend.services.SmtpTransportPool;
 import com.jerzymaj.file_researcher_backend.services.ZipEmailSender;
 import jakarta.mail.MessagingException;
 import jakarta.mail.Session;
@@ -26,6 +27,9 @@ public class ZipEmailSenderUnitTest {
     @Mock
     private JavaMailSender mailSender;
 
+    @Mock
+    private SmtpTransportPool smtpTransportPool;
+
     @InjectMocks
     private ZipEmailSender zipEmailSender;
 
@@ -40,6 +44,6 @@ public class ZipEmailSenderUnitTest {
 
         zipEmailSender.sendZipArchiveByEmail("test@gmail.com", zipFilePath, "Subject", "Content");
 
-        verify(mailSender).send(any(MimeMessage.class));
+        verify(smtpTransportPool).send(any(MimeMessage.class));
     }
 }